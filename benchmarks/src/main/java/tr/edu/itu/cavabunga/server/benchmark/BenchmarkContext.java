@@ -0,0 +1,127 @@
+package tr.edu.itu.cavabunga.server.benchmark;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.CavabungaApplication;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import tr.edu.itu.cavabunga.server.service.ParticipantService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Starts the application against an in-memory H2 database and builds calendars shaped like the
+ * one SeederController creates, every event with its own UID.
+ */
+final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @return started application context, close it in the trial tear down
+     */
+    static ConfigurableApplicationContext start() {
+        // command line arguments, application.properties of the server would win over default properties
+        return new SpringApplicationBuilder(CavabungaApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                "--logging.level.root=WARN"
+        );
+    }
+
+    /**
+     * saves a new participant with a calendar of the given number of events
+     *
+     * @param context started application context
+     * @param userName username of the new participant
+     * @param events number of events in the calendar
+     * @return id of the saved calendar
+     */
+    static Long saveCalendar(ConfigurableApplicationContext context, String userName, int events) {
+        IcalService icalService = context.getBean(IcalService.class);
+        ParticipantService participantService = context.getBean(ParticipantService.class);
+        Long calendarId = new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            participantService.saveParticipant(participantService.createParticipant(userName, ParticipantType.User));
+            Component calendar = calendar(icalService, events);
+            calendar.setOwner(participantService.getParticipantByUserName(userName).get());
+            icalService.saveComponent(calendar);
+            return calendar.getId();
+        });
+        return calendarId;
+    }
+
+    /**
+     * @param icalService service to create elements with
+     * @param events number of events in the calendar
+     * @return unsaved calendar with a timezone and the given number of events
+     */
+    static Component calendar(IcalService icalService, int events) {
+        Component calendar = icalService.createComponent(ComponentType.Calendar);
+        calendar.addProperty(property(icalService, PropertyType.Prodid, "-//Test Inc//Cavabunga Calendar//"));
+        calendar.addProperty(property(icalService, PropertyType.Calscale, "GREGORIAN"));
+        calendar.addProperty(property(icalService, PropertyType.Method, "PUBLISH"));
+
+        Component timezone = icalService.createComponent(ComponentType.Timezone);
+        timezone.addProperty(property(icalService, PropertyType.Tzid, "Europe/Istanbul"));
+        Component standard = icalService.createComponent(ComponentType.Standard);
+        standard.addProperty(property(icalService, PropertyType.Tzoffsetfrom, "+0300"));
+        standard.addProperty(property(icalService, PropertyType.Tzoffsetto, "+0300"));
+        standard.addProperty(property(icalService, PropertyType.Tzname, "+03"));
+        timezone.addComponent(standard);
+        calendar.addComponent(timezone);
+
+        for (int i = 0; i < events; i++) {
+            calendar.addComponent(event(icalService, UUID.randomUUID().toString()));
+        }
+        return calendar;
+    }
+
+    /**
+     * @param icalService service to create elements with
+     * @param uid UID of the event
+     * @return unsaved event with an organizer and an attendee
+     */
+    static Component event(IcalService icalService, String uid) {
+        Component event = icalService.createComponent(ComponentType.Event);
+        event.addProperty(property(icalService, PropertyType.Dtstart, "20160423T170000Z"));
+        event.addProperty(property(icalService, PropertyType.Dtend, "20160423T180000Z"));
+        event.addProperty(property(icalService, PropertyType.Dtstamp, "20180520T181535Z"));
+        Property organizer = property(icalService, PropertyType.Organizer, "mailto:unknownorganizer@calendar.cavabunga.com");
+        organizer.addParameter(parameter(icalService, ParameterType.Cn, "unknownorganizer@calendar.google.com"));
+        event.addProperty(organizer);
+        event.addProperty(property(icalService, PropertyType.Uid, uid));
+        Property attendee = property(icalService, PropertyType.Acknowledged, "mailto:dgkncelik@gmail.com");
+        attendee.addParameter(parameter(icalService, ParameterType.Cutype, "INDIVIDUAL"));
+        attendee.addParameter(parameter(icalService, ParameterType.Role, "REQ-PARTICIPANT"));
+        attendee.addParameter(parameter(icalService, ParameterType.Partstat, "ACCEPTED"));
+        event.addProperty(attendee);
+        event.addProperty(property(icalService, PropertyType.Class, "PRIVATE"));
+        event.addProperty(property(icalService, PropertyType.Created, "20160111T065955Z"));
+        event.addProperty(property(icalService, PropertyType.Description, "---description_here---"));
+        event.addProperty(property(icalService, PropertyType.Lastmod, "20160112T053844Z"));
+        event.addProperty(property(icalService, PropertyType.Seq, "0"));
+        return event;
+    }
+
+    static Property property(IcalService icalService, PropertyType type, String value) {
+        Property property = icalService.createProperty(type);
+        property.setValue(value);
+        return property;
+    }
+
+    static Parameter parameter(IcalService icalService, ParameterType type, String value) {
+        Parameter parameter = icalService.createParameter(type);
+        parameter.setValue(value);
+        return parameter;
+    }
+}
@@ -0,0 +1,108 @@
+package tr.edu.itu.cavabunga.server.benchmark;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRUD paths of CalendarManagerService against H2, each call runs in its own transaction like a request does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarManagerBenchmark {
+    @Param({"10", "100"})
+    private int events;
+
+    private ConfigurableApplicationContext context;
+
+    private CalendarManagerService calendarManagerService;
+
+    private IcalService icalService;
+
+    private String userName;
+
+    private Long calendarId;
+
+    private Long propertyId;
+
+    private String uid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        calendarManagerService = context.getBean(CalendarManagerService.class);
+        icalService = context.getBean(IcalService.class);
+        userName = "benchmark-" + UUID.randomUUID();
+        calendarId = BenchmarkContext.saveCalendar(context, userName, events);
+
+        uid = UUID.randomUUID().toString();
+        calendarManagerService.addComponent(BenchmarkContext.event(icalService, uid), userName, calendarId);
+        Property description = BenchmarkContext.property(icalService, PropertyType.Description, "benchmark");
+        calendarManagerService.addProperty(description, calendarId);
+        propertyId = description.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Participant getParticipantByUserName() {
+        return calendarManagerService.getParticipantByUserName(userName);
+    }
+
+    @Benchmark
+    public Component getComponentTree() {
+        return calendarManagerService.getComponentById(calendarId);
+    }
+
+    @Benchmark
+    public String getSerializedComponentTree() {
+        return calendarManagerService.getSerializedComponentById(calendarId);
+    }
+
+    @Benchmark
+    public Long getComponentIdByUid() {
+        return calendarManagerService.getComponentIdByUid(userName, uid);
+    }
+
+    @Benchmark
+    public Long addAndDeleteEvent() {
+        Component event = BenchmarkContext.event(icalService, UUID.randomUUID().toString());
+        calendarManagerService.addComponent(event, userName, calendarId);
+        calendarManagerService.deleteComponentById(event.getId());
+        return event.getId();
+    }
+
+    @Benchmark
+    public void updateProperty() {
+        Property property = calendarManagerService.getPropertyById(propertyId);
+        property.setValue(UUID.randomUUID().toString());
+        calendarManagerService.updateProperty(propertyId, property);
+    }
+}
@@ -0,0 +1,83 @@
+package tr.edu.itu.cavabunga.server.benchmark;
+
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.ical.IcalReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * iCalendar rendering of stored calendars and parsing of the rendered text
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IcalBenchmark {
+    @Param({"100", "1000"})
+    private int events;
+
+    private ConfigurableApplicationContext context;
+
+    private CalendarManagerService calendarManagerService;
+
+    private String userName;
+
+    private byte[] ics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start();
+        calendarManagerService = context.getBean(CalendarManagerService.class);
+        userName = "benchmark-" + UUID.randomUUID();
+        BenchmarkContext.saveCalendar(context, userName, events);
+        ics = render().toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream renderCalendars() throws IOException {
+        return render();
+    }
+
+    @Benchmark
+    public long parseCalendars(Blackhole blackhole) throws IOException {
+        try (IcalReader reader = new IcalReader(new ByteArrayInputStream(ics))) {
+            IcalReader.ContentLine line;
+            while ((line = reader.next()) != null) {
+                blackhole.consume(line);
+            }
+            return reader.getLineNumber();
+        }
+    }
+
+    private ByteArrayOutputStream render() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(ics != null ? ics.length : 8192);
+        calendarManagerService.exportCalendars(userName, outputStream);
+        return outputStream;
+    }
+}
@@ -0,0 +1,85 @@
+package tr.edu.itu.cavabunga.server.benchmark;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deleting a calendar of 1000 events with 100000 properties in total, measured once per freshly saved calendar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubtreeDeleteBenchmark {
+    private static final int EVENTS = 1000;
+
+    @Param({"100000"})
+    private int properties;
+
+    private ConfigurableApplicationContext context;
+
+    private CalendarManagerService calendarManagerService;
+
+    private Long calendarId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        calendarManagerService = context.getBean(CalendarManagerService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void saveCalendar() {
+        String userName = "benchmark-" + UUID.randomUUID();
+        calendarId = BenchmarkContext.saveCalendar(context, userName, 0);
+        IcalService icalService = context.getBean(IcalService.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        int perEvent = properties / EVENTS;
+        // one transaction per event keeps the persistence context small while seeding
+        for (int i = 0; i < EVENTS; i++) {
+            transaction.execute(status -> {
+                Component event = icalService.createComponent(ComponentType.Event);
+                event.addProperty(BenchmarkContext.property(icalService, PropertyType.Uid, UUID.randomUUID().toString()));
+                for (int p = 1; p < perEvent; p++) {
+                    event.addProperty(BenchmarkContext.property(icalService, PropertyType.Description, "description " + p));
+                }
+                calendarManagerService.addComponent(event, userName, calendarId);
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deleteCalendar() {
+        calendarManagerService.deleteComponentById(calendarId);
+    }
+}
@@ -0,0 +1,35 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+
+/**
+ * Fills the closure table of the component hierarchy for components created before it existed, one
+ * depth at a time from the parent_id chain. Rows written since are kept, so components created under
+ * an older parent get the ancestors they are missing. The loop ends below the deepest component.
+ */
+public class V5__component_ancestor_backfill implements JdbcMigration {
+    private static final String SELF_ROWS = "INSERT INTO component_ancestor (ancestor_id, descendant_id, depth) "
+            + "SELECT c.id, c.id, 0 FROM component c WHERE NOT EXISTS "
+            + "(SELECT 1 FROM component_ancestor e WHERE e.ancestor_id = c.id AND e.descendant_id = c.id)";
+
+    private static final String NEXT_DEPTH_ROWS = "INSERT INTO component_ancestor (ancestor_id, descendant_id, depth) "
+            + "SELECT a.ancestor_id, c.id, a.depth + 1 FROM component c JOIN component_ancestor a ON a.descendant_id = c.parent_id "
+            + "WHERE a.depth = ? AND NOT EXISTS "
+            + "(SELECT 1 FROM component_ancestor e WHERE e.ancestor_id = a.ancestor_id AND e.descendant_id = c.id)";
+
+    @Override
+    public void migrate(Connection connection) {
+        JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        template.update(SELF_ROWS);
+        int depth = 0;
+        // rows of a depth are complete once the previous one is, whether they were written before or here
+        while (template.queryForObject("SELECT COUNT(*) FROM component_ancestor WHERE depth = ?", Integer.class, depth) > 0) {
+            template.update(NEXT_DEPTH_ROWS, depth);
+            depth++;
+        }
+    }
+}
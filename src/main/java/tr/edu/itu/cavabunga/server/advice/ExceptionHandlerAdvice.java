@@ -3,13 +3,28 @@ package tr.edu.itu.cavabunga.server.advice;
 import tr.edu.itu.cavabunga.lib.exception.Conflict;
 import tr.edu.itu.cavabunga.lib.exception.NotFound;
 import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class ExceptionHandlerAdvice {
+    private MeterRegistry meterRegistry;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param meterRegistry to inject MeterRegistry, handled exceptions are counted as cavabunga.errors
+     */
+    @Autowired
+    public ExceptionHandlerAdvice(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Advice for uncaught Not Found exceptions
@@ -20,6 +35,7 @@ public class ExceptionHandlerAdvice {
     @ExceptionHandler(NotFound.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFound(NotFound e){
+        count(e, HttpStatus.NOT_FOUND);
         return new ErrorResponse(1,e.getMessage(), null);
     }
 
@@ -32,6 +48,7 @@ public class ExceptionHandlerAdvice {
     @ExceptionHandler(Conflict.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleConflict(Conflict e){
+        count(e, HttpStatus.CONFLICT);
         return new ErrorResponse(1,e.getMessage(),null);
     }
 
@@ -44,6 +61,7 @@ public class ExceptionHandlerAdvice {
     @ExceptionHandler(IllegalStateException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIllegalState(IllegalStateException e){
+        count(e, HttpStatus.BAD_REQUEST);
         return new ErrorResponse(1,e.getMessage(),null);
     }
 
@@ -56,6 +74,24 @@ public class ExceptionHandlerAdvice {
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIllegalArgument(IllegalArgumentException e){
+        count(e, HttpStatus.BAD_REQUEST);
+        return new ErrorResponse(1,e.getMessage(),null);
+    }
+
+    /**
+     * Advice for heavy requests turned away because their endpoint or executor is saturated
+     *
+     * @param e caught exception
+     * @return ErrorResponse with exception message with related HTTP status
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleRejectedExecution(RejectedExecutionException e){
+        count(e, HttpStatus.SERVICE_UNAVAILABLE);
         return new ErrorResponse(1,e.getMessage(),null);
     }
+
+    private void count(Exception e, HttpStatus status) {
+        meterRegistry.counter("cavabunga.errors", "exception", e.getClass().getSimpleName(), "status", String.valueOf(status.value())).increment();
+    }
 }
@@ -0,0 +1,37 @@
+package tr.edu.itu.cavabunga.server.advice;
+
+import tr.edu.itu.cavabunga.server.datasource.ReadYourWrites;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Hands the time of a request's committed writes to the client as cookie, right before the body
+ * is written since the response can't carry headers afterwards
+ */
+@ControllerAdvice
+public class ReadYourWritesAdvice implements ResponseBodyAdvice<Object> {
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest) {
+            Object readYourWrites = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(ReadYourWrites.ATTRIBUTE);
+            if (readYourWrites instanceof ReadYourWrites && ((ReadYourWrites) readYourWrites).getLastWrite() > 0) {
+                response.getHeaders().add(HttpHeaders.SET_COOKIE, ((ReadYourWrites) readYourWrites).cookie());
+            }
+        }
+        return body;
+    }
+}
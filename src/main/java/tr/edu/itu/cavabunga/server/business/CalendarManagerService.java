@@ -5,13 +5,35 @@ import tr.edu.itu.cavabunga.lib.entity.Parameter;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
 import tr.edu.itu.cavabunga.lib.entity.Property;
 import tr.edu.itu.cavabunga.lib.exception.*;
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import tr.edu.itu.cavabunga.server.http.BatchOperation;
+import tr.edu.itu.cavabunga.server.ical.BusyPeriod;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+import tr.edu.itu.cavabunga.server.shard.ShardKey;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static tr.edu.itu.cavabunga.server.shard.ShardKey.Kind.*;
 
 /**
  * CRUD service for all Calendar elements
+ *
+ * Calls run on the shard of the participant named by the parameter marked with ShardKey, calls without
+ * one run on the default shard, see ShardRoutingAspect. Participant listings, getFreeBusy and applyBatch
+ * may span several shards and visit each of them themselves.
  */
 public interface CalendarManagerService {
+    int MAX_BATCH_OPERATIONS = 500;
+
     /**
      * add new participant
      *
@@ -23,22 +45,32 @@ public interface CalendarManagerService {
     void addParticipant(Participant participant);
 
     /**
-     * get participant by username
+     * get participant by username, with its calendars
      *
      * @param userName requested participant username
      * @return requested participant
      * @throws IllegalArgumentException when username is null
      * @throws NotFound when participant with given username not found
      */
-    Participant getParticipantByUserName(String userName);
+    Participant getParticipantByUserName(@ShardKey(PARTICIPANT_NAME) String userName);
 
     /**
-     * get list of the all participants
+     * get list of the all participants, with their calendars read from the shard of each participant
      *
      * @return list of the all participants
      */
     List<Participant> getAllParticipants();
 
+    /**
+     * get a page of participants ordered by id, with their calendars read from the shard of each participant
+     *
+     * @param afterId id of the last participant of the previous page, 0 for the first page
+     * @param limit maximum number of participants to return
+     * @return requested participants
+     * @throws IllegalArgumentException when afterId is null | limit is not positive
+     */
+    List<Participant> getParticipants(Long afterId, int limit);
+
     /**
      * delete a participant
      *
@@ -46,7 +78,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when participant id is null
      * @throws NotFound when participant with given username not found
      */
-    void deleteParticipantById(Long id);
+    void deleteParticipantById(@ShardKey(PARTICIPANT_ID) Long id);
 
     /**
      * update a participant
@@ -66,7 +98,7 @@ public interface CalendarManagerService {
      * @throws IllegalStateException when the component has id field
      * @throws NotFound when owner or parent component not found
      */
-    void addComponent(Component component, String owner, Long parentComponentId);
+    void addComponent(Component component, @ShardKey(PARTICIPANT_NAME) String owner, Long parentComponentId);
 
     /**
      * get component by id
@@ -76,7 +108,37 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id is null
      * @throws NotFound when component with given id not found
      */
-    Component getComponentById(Long id);
+    Component getComponentById(@ShardKey(COMPONENT) Long id);
+
+    /**
+     * get component with its whole subtree as serialized ComponentResponse JSON, served from the component tree cache
+     *
+     * @param id requested component id
+     * @return serialized response
+     * @throws IllegalArgumentException when id is null
+     * @throws NotFound when component with given id not found
+     */
+    String getSerializedComponentById(@ShardKey(COMPONENT) Long id);
+
+    /**
+     * get version of the component subtree, bumped by every write to the component or its descendants
+     *
+     * @param id requested component id
+     * @return version of the component
+     * @throws IllegalArgumentException when id is null
+     * @throws NotFound when component with given id not found
+     */
+    ComponentVersion getComponentVersion(@ShardKey(COMPONENT) Long id);
+
+    /**
+     * get version of all components owned by participant, bumped by every write to one of them
+     *
+     * @param owner username of the owner participant
+     * @return version of the owner's components
+     * @throws IllegalArgumentException when owner is null
+     * @throws NotFound when no participant found with given username
+     */
+    OwnerVersion getOwnerVersion(@ShardKey(PARTICIPANT_NAME) String owner);
 
     /**
      * get component by owner
@@ -86,7 +148,129 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when owner is null
      * @throws NotFound when participant with given username not found
      */
-    List<Component> getComponentByOwner(String owner);
+    List<Component> getComponentByOwner(@ShardKey(PARTICIPANT_NAME) String owner);
+
+    /**
+     * get a page of components of the owner ordered by id
+     *
+     * @param owner requested component's owner username
+     * @param afterId id of the last component of the previous page, 0 for the first page
+     * @param limit maximum number of components to return
+     * @return requested components
+     * @throws IllegalArgumentException when owner or afterId is null | limit is not positive
+     * @throws NotFound when participant with given username not found
+     */
+    List<Component> getComponentByOwner(@ShardKey(PARTICIPANT_NAME) String owner, Long afterId, int limit);
+
+    /**
+     * get schedulable components of the owner overlapping with given time range
+     *
+     * @param owner requested component's owner username
+     * @param start inclusive start of the time range
+     * @param end exclusive end of the time range
+     * @return requested components ordered by their start
+     * @throws IllegalArgumentException when any input is null | start is not before end
+     * @throws NotFound when participant with given username not found
+     */
+    List<Component> getComponentByOwner(@ShardKey(PARTICIPANT_NAME) String owner, Date start, Date end);
+
+    /**
+     * get a page of components of the owner ordered by id, each with its whole subtree, as serialized
+     * PagedResponse JSON. The response is serialized before the transaction ends
+     *
+     * @param owner requested component's owner username
+     * @param afterId id of the last component of the previous page, 0 for the first page
+     * @param limit maximum number of components to return, next is set when there are more
+     * @return serialized response
+     * @throws IllegalArgumentException when owner or afterId is null | limit is not positive
+     * @throws NotFound when participant with given username not found
+     */
+    String getSerializedComponentsByOwner(@ShardKey(PARTICIPANT_NAME) String owner, Long afterId, int limit);
+
+    /**
+     * get schedulable components of the owner overlapping with given time range, each with its whole
+     * subtree, as serialized PagedResponse JSON. The response is serialized before the transaction ends
+     *
+     * @param owner requested component's owner username
+     * @param start inclusive start of the time range
+     * @param end exclusive end of the time range
+     * @return serialized response, components ordered by their start
+     * @throws IllegalArgumentException when any input is null | start is not before end
+     * @throws NotFound when participant with given username not found
+     */
+    String getSerializedComponentsByOwner(@ShardKey(PARTICIPANT_NAME) String owner, Date start, Date end);
+
+    /**
+     * expand instances of a component overlapping with given time range,
+     * recurring components yield one occurrence per instance of the series
+     *
+     * @param id component id
+     * @param start inclusive start of the time range
+     * @param end exclusive end of the time range
+     * @return occurrences ordered by their start
+     * @throws IllegalArgumentException when any input is null | start is not before end | recurrence values are malformed
+     * @throws NotFound when component with given id not found
+     */
+    List<Occurrence> getOccurrencesOfComponent(@ShardKey(COMPONENT) Long id, Date start, Date end);
+
+    /**
+     * get merged busy time of the participants, VFREEBUSY style. Participants may be on different shards,
+     * each shard is queried for its participants and the results are merged
+     *
+     * @param userNames usernames of the participants
+     * @param start inclusive start of the window
+     * @param end exclusive end of the window
+     * @return disjoint busy periods clipped to the window, ordered by start
+     * @throws IllegalArgumentException when an argument is null, start is not before end or too many participants are given
+     * @throws NotFound when a participant with one of the given usernames not found
+     * @throws Conflict when one of the participants is being moved to another shard
+     */
+    List<BusyPeriod> getFreeBusy(List<String> userNames, Date start, Date end);
+
+    /**
+     * export all calendars of the participant as iCalendar (.ics) text
+     *
+     * @param owner username of the calendars' owner
+     * @param outputStream stream to write iCalendar text to
+     * @throws IllegalArgumentException when any input is null
+     * @throws NotFound when participant with given username not found
+     * @throws IOException when output stream fails
+     */
+    void exportCalendars(@ShardKey(PARTICIPANT_NAME) String owner, OutputStream outputStream) throws IOException;
+
+    /**
+     * import iCalendar (.ics) text as new calendars of the participant
+     *
+     * @param owner username of the calendars' owner
+     * @param inputStream stream to read iCalendar text from
+     * @return progress of the finished import
+     * @throws IllegalArgumentException when any input is null | input is not valid iCalendar
+     * @throws NotFound when participant with given username not found
+     * @throws IOException when input stream fails
+     */
+    ImportProgress importCalendars(@ShardKey(PARTICIPANT_NAME) String owner, InputStream inputStream) throws IOException;
+
+    /**
+     * get running and recently finished imports of the participant
+     *
+     * @param owner username of the calendars' owner
+     * @return imports, most recent first
+     * @throws IllegalArgumentException when owner is null
+     * @throws NotFound when participant with given username not found
+     */
+    List<ImportProgress> getImports(@ShardKey(PARTICIPANT_NAME) String owner);
+
+    /**
+     * get journal of component changes of the participant after a sync point
+     *
+     * @param owner username of the components' owner
+     * @param sinceSequence sequence of the last journal entry the client has seen, 0 for the whole journal
+     * @param limit maximum number of journal entries
+     * @return journal entries ordered by sequence
+     * @throws IllegalArgumentException when owner or sinceSequence is null or limit is not positive
+     * @throws NotFound when participant with given username not found
+     */
+    List<ComponentChange> getChanges(@ShardKey(PARTICIPANT_NAME) String owner, Long sinceSequence, int limit);
 
     /**
      * delete a component
@@ -95,7 +279,16 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when component id is null
      * @throws NotFound when component with given id not found
      */
-    void deleteComponentById(Long id);
+    void deleteComponentById(@ShardKey(COMPONENT) Long id);
+
+    /**
+     * delete a component and its subtree in the background, for trees too large for a single transaction
+     *
+     * @param id id of the component to be deleted
+     * @throws IllegalArgumentException when id is null
+     * @throws NotFound when component with given id not found
+     */
+    void deleteComponentByIdAsync(@ShardKey(COMPONENT) Long id);
 
     /**
      * update a component
@@ -105,7 +298,35 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id or component input null | id and component.id does not match
      * @throws NotFound when component with given id not found
      */
-    void updateComponent(Long id, Component component);
+    void updateComponent(@ShardKey(COMPONENT) Long id, Component component);
+
+    /**
+     * get id of the component with given iCalendar UID
+     *
+     * @param owner username of the owner participant
+     * @param uid iCalendar UID
+     * @return id of the component, overrides of a recurring series are never returned
+     * @throws IllegalArgumentException when owner is null | uid is empty
+     * @throws NotFound when participant with given username not found | no component has the UID
+     */
+    Long getComponentIdByUid(@ShardKey(PARTICIPANT_NAME) String owner, String uid);
+
+    /**
+     * create or replace the component with given iCalendar UID. A UID property is added when the component has none.
+     * An existing component with the UID is updated in place and keeps its id, whether or not the given one carries it
+     *
+     * @param owner username of the owner participant
+     * @param uid iCalendar UID
+     * @param parentComponentId parent of the component, may be null when a component with the UID exists
+     * @param component component to be saved
+     * @return id of the saved component
+     * @throws IllegalArgumentException when owner | parentComponentId of a new UID | component is null,
+     *                                  uid is empty or doesn't match the UID of the component
+     * @throws IllegalStateException when component has the id of another component
+     * @throws NotFound when participant with given username | parent component not found
+     * @throws Conflict when the component or one of its children has a UID used by another component of the owner
+     */
+    Long putComponentByUid(@ShardKey(PARTICIPANT_NAME) String owner, String uid, Long parentComponentId, Component component);
 
     /**
      * add new property
@@ -116,7 +337,7 @@ public interface CalendarManagerService {
      * @throws IllegalStateException when the property has id field
      * @throws NotFound when parent component not found
      */
-    void addProperty(Property property, Long parentComponentId);
+    void addProperty(Property property, @ShardKey(COMPONENT) Long parentComponentId);
 
     /**
      * get property by id
@@ -126,7 +347,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id is null
      * @throws NotFound when property with given id not found
      */
-    Property getPropertyById(Long propertyId);
+    Property getPropertyById(@ShardKey(PROPERTY) Long propertyId);
 
     /**
      * returns all properties of the given component
@@ -136,7 +357,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when componentId is null
      * @throws NotFound when component with given Id not found
      */
-    List<Property> getPropertiesOfComponent(Long componentId);
+    List<Property> getPropertiesOfComponent(@ShardKey(COMPONENT) Long componentId);
 
     /**
      * delete a property
@@ -145,7 +366,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when property id is null
      * @throws NotFound when property with given id not found
      */
-    void deleteProperty(Long propertyId);
+    void deleteProperty(@ShardKey(PROPERTY) Long propertyId);
 
     /**
      * update a property
@@ -155,7 +376,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id or property input null | id and property.id does not match
      * @throws NotFound when property with given id not found
      */
-    void updateProperty(Long propertyId, Property property);
+    void updateProperty(@ShardKey(PROPERTY) Long propertyId, Property property);
 
     /**
      * add new parameter
@@ -166,7 +387,7 @@ public interface CalendarManagerService {
      * @throws IllegalStateException when the parameter has id field
      * @throws NotFound when parent property not found
      */
-    void addParameter(Parameter parameter, Long parentPropertyId);
+    void addParameter(Parameter parameter, @ShardKey(PROPERTY) Long parentPropertyId);
 
     /**
      * get parameter by id
@@ -176,7 +397,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id is null
      * @throws NotFound when parameter with given id not found
      */
-    Parameter getParameterById(Long parameterId);
+    Parameter getParameterById(@ShardKey(PARAMETER) Long parameterId);
 
     /**
      * returns all parameters of the given property
@@ -186,7 +407,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when propertyId is null
      * @throws NotFound when property with given Id not found
      */
-    List<Parameter> getParametersOfProperty(Long propertyId);
+    List<Parameter> getParametersOfProperty(@ShardKey(PROPERTY) Long propertyId);
 
     /**
      * delete a parameter
@@ -195,7 +416,7 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when parameter id is null
      * @throws NotFound when parameter with given id not found
      */
-    void deleteParameter(Long parameterId);
+    void deleteParameter(@ShardKey(PARAMETER) Long parameterId);
 
     /**
      * update a parameter
@@ -205,5 +426,105 @@ public interface CalendarManagerService {
      * @throws IllegalArgumentException when id or parameter input null | id and parameter.id does not match
      * @throws NotFound when parameter with given id not found
      */
-    void updateParameter(Parameter parameter, Long parameterId);
+    void updateParameter(Parameter parameter, @ShardKey(PARAMETER) Long parameterId);
+
+    /**
+     * apply creates, updates and deletes of components, properties and parameters in order, all or none of them.
+     * All elements of a batch must be on one shard
+     *
+     * @param operations operations to apply, later ones may refer to elements created earlier by their temporary id
+     * @return id each operation was applied to, in order
+     * @throws IllegalArgumentException when operations are empty, too many, one of them is malformed or
+     * they refer to elements of different shards
+     * @throws IllegalStateException when a created element has id field or an updated element's id doesn't match
+     * @throws NotFound when an element or parent referred by an operation not found
+     * @throws Conflict when the participant owning an element is being moved to another shard
+     */
+    List<Long> applyBatch(List<BatchOperation> operations);
+
+    /**
+     * get a page of participant views, see ProjectionService for depth and fields
+     *
+     * @param afterId id of the last participant of the previous page, 0 for the first page
+     * @param limit maximum number of participants to return
+     * @param depth nesting depth of the views
+     * @param fields keys to keep in the views, empty for all
+     * @return participant views ordered by id
+     * @throws IllegalArgumentException when afterId is null | limit is not positive | depth is out of range
+     */
+    List<Map<String, Object>> getParticipantViews(Long afterId, int limit, int depth, Set<String> fields);
+
+    /**
+     * get view of a participant
+     *
+     * @param userName requested participant username
+     * @param depth nesting depth of the view
+     * @param fields keys to keep in the view, empty for all
+     * @return participant view
+     * @throws IllegalArgumentException when username is null | depth is out of range
+     * @throws NotFound when participant with given username not found
+     */
+    Map<String, Object> getParticipantView(@ShardKey(PARTICIPANT_NAME) String userName, int depth, Set<String> fields);
+
+    /**
+     * get a page of component views of the owner
+     *
+     * @param owner requested component's owner username
+     * @param afterId id of the last component of the previous page, 0 for the first page
+     * @param limit maximum number of components to return
+     * @param depth nesting depth of the views
+     * @param fields keys to keep in the views, empty for all
+     * @return component views ordered by id
+     * @throws IllegalArgumentException when owner or afterId is null | limit is not positive | depth is out of range
+     * @throws NotFound when participant with given username not found
+     */
+    List<Map<String, Object>> getComponentViewsByOwner(@ShardKey(PARTICIPANT_NAME) String owner, Long afterId, int limit, int depth, Set<String> fields);
+
+    /**
+     * get view of a component
+     *
+     * @param id requested component id
+     * @param depth nesting depth of the view
+     * @param fields keys to keep in the view, empty for all
+     * @return component view
+     * @throws IllegalArgumentException when id is null | depth is out of range
+     * @throws NotFound when component with given id not found
+     */
+    Map<String, Object> getComponentView(@ShardKey(COMPONENT) Long id, int depth, Set<String> fields);
+
+    /**
+     * get view of the root component, e.g. the calendar, of a component
+     *
+     * @param id requested component id
+     * @param depth nesting depth of the view
+     * @param fields keys to keep in the view, empty for all
+     * @return view of the root component, the component itself when it is a root
+     * @throws IllegalArgumentException when id is null | depth is out of range
+     * @throws NotFound when component with given id not found
+     */
+    Map<String, Object> getRootComponentView(@ShardKey(COMPONENT) Long id, int depth, Set<String> fields);
+
+    /**
+     * get views of the properties of a component
+     *
+     * @param componentId component that properties are bound to
+     * @param depth nesting depth of the views
+     * @param fields keys to keep in the views, empty for all
+     * @return property views ordered by id
+     * @throws IllegalArgumentException when componentId is null | depth is out of range
+     * @throws NotFound when component with given id not found
+     */
+    List<Map<String, Object>> getPropertyViewsOfComponent(@ShardKey(COMPONENT) Long componentId, int depth, Set<String> fields);
+
+    /**
+     * get view of a property
+     *
+     * @param propertyId requested property id
+     * @param depth nesting depth of the view
+     * @param fields keys to keep in the view, empty for all
+     * @return property view
+     * @throws IllegalArgumentException when propertyId is null | depth is out of range
+     * @throws NotFound when property with given id not found
+     */
+    Map<String, Object> getPropertyView(@ShardKey(PROPERTY) Long propertyId, int depth, Set<String> fields);
 }
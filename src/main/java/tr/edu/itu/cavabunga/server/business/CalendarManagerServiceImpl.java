@@ -4,15 +4,59 @@ import tr.edu.itu.cavabunga.lib.entity.Component;
 import tr.edu.itu.cavabunga.lib.entity.Parameter;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
 import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import tr.edu.itu.cavabunga.server.http.BatchOperation;
+import tr.edu.itu.cavabunga.server.http.PagedResponse;
+import tr.edu.itu.cavabunga.server.ical.BusyPeriod;
+import tr.edu.itu.cavabunga.server.ical.ComponentUids;
+import tr.edu.itu.cavabunga.server.ical.EventTimes;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+import tr.edu.itu.cavabunga.server.service.ChangeLogService;
+import tr.edu.itu.cavabunga.server.service.ComponentHierarchyService;
+import tr.edu.itu.cavabunga.server.service.ComponentTreeCacheService;
+import tr.edu.itu.cavabunga.server.service.ComponentUidService;
+import tr.edu.itu.cavabunga.server.service.FreeBusyService;
+import tr.edu.itu.cavabunga.server.service.IcalExportService;
+import tr.edu.itu.cavabunga.server.service.IcalImportService;
 import tr.edu.itu.cavabunga.server.service.IcalService;
 import tr.edu.itu.cavabunga.server.service.ParticipantService;
+import tr.edu.itu.cavabunga.server.service.ProjectionService;
+import tr.edu.itu.cavabunga.server.service.RecurrenceService;
+import tr.edu.itu.cavabunga.server.service.ShardMapService;
+import tr.edu.itu.cavabunga.server.service.SubtreeDeleteService;
+import tr.edu.itu.cavabunga.server.service.VersionService;
+import tr.edu.itu.cavabunga.server.shard.ShardKey;
 import tr.edu.itu.cavabunga.lib.exception.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * {@inheritDoc}
@@ -25,10 +69,71 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
 
     private ParticipantService participantService;
 
+    private RecurrenceService recurrenceService;
+
+    private IcalExportService icalExportService;
+
+    private IcalImportService icalImportService;
+
+    private ProjectionService projectionService;
+
+    private ComponentTreeCacheService componentTreeCacheService;
+
+    private VersionService versionService;
+
+    private ChangeLogService changeLogService;
+
+    private FreeBusyService freeBusyService;
+
+    private SubtreeDeleteService subtreeDeleteService;
+
+    private ComponentHierarchyService componentHierarchyService;
+
+    private ComponentUidService componentUidService;
+
+    private ShardMapService shardMapService;
+
+    private ObjectMapper objectMapper;
+
+    private TransactionTemplate batchTransaction;
+
+    private TransactionTemplate readTransaction;
+
     @Autowired
-    public CalendarManagerServiceImpl(IcalService icalService, ParticipantService participantService) {
+    public CalendarManagerServiceImpl(IcalService icalService,
+                                      ParticipantService participantService,
+                                      RecurrenceService recurrenceService,
+                                      IcalExportService icalExportService,
+                                      IcalImportService icalImportService,
+                                      ProjectionService projectionService,
+                                      ComponentTreeCacheService componentTreeCacheService,
+                                      VersionService versionService,
+                                      ChangeLogService changeLogService,
+                                      FreeBusyService freeBusyService,
+                                      SubtreeDeleteService subtreeDeleteService,
+                                      ComponentHierarchyService componentHierarchyService,
+                                      ComponentUidService componentUidService,
+                                      ShardMapService shardMapService,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager) {
         this.icalService = icalService;
         this.participantService = participantService;
+        this.recurrenceService = recurrenceService;
+        this.icalExportService = icalExportService;
+        this.icalImportService = icalImportService;
+        this.projectionService = projectionService;
+        this.componentTreeCacheService = componentTreeCacheService;
+        this.versionService = versionService;
+        this.changeLogService = changeLogService;
+        this.freeBusyService = freeBusyService;
+        this.subtreeDeleteService = subtreeDeleteService;
+        this.componentHierarchyService = componentHierarchyService;
+        this.componentUidService = componentUidService;
+        this.shardMapService = shardMapService;
+        this.objectMapper = objectMapper;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
     }
 
     /**
@@ -47,28 +152,101 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
         }
 
         participantService.saveParticipant(participant);
+        shardMapService.participantAdded(participant);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public Participant getParticipantByUserName(String userName){
         Assert.notNull(userName, "Username must not be null!");
 
-        if(!participantService.getParticipantByUserName(userName).isPresent()) {
-            throw new NotFound("Participant with username: " + userName + " couldn't found");
-        }
-
-        return participantService.getParticipantByUserName(userName).get();
+        Long id = participantService.getParticipantByUserName(userName)
+                .orElseThrow(() -> new NotFound("Participant with username: " + userName + " couldn't found"))
+                .getId();
+        // the cached participant comes without calendars, the entity brings them along
+        Participant participant = participantService.getParticipantsByIds(Collections.singletonList(id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFound("Participant with username: " + userName + " couldn't found"));
+        initializeCalendars(participant);
+        return participant;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Participant> getAllParticipants(){
-        return participantService.getAllParticipant();
+        return withCalendars(() -> participantService.getAllParticipant());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Participant> getParticipants(Long afterId, int limit){
+        Assert.notNull(afterId, "AfterId must not be null!");
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+
+        return withCalendars(() -> participantService.getParticipantsAfter(afterId, limit));
+    }
+
+    /**
+     * reads the participants on the default shard, which holds every participant, and initializes their
+     * calendars on the shard each of them is assigned to. Participants of other shards are read again
+     * from their shard, a detached participant would load its calendars from whichever shard is bound
+     *
+     * @param participants query of the participants, run on the default shard
+     * @return participants in the order of the query
+     */
+    private List<Participant> withCalendars(Supplier<List<Participant>> participants) {
+        Map<Long, Participant> loaded = new LinkedHashMap<>();
+        Map<String, List<Long>> idsByShard = new TreeMap<>();
+        readOnShard(ShardContext.DEFAULT, () -> {
+            for (Participant participant : participants.get()) {
+                loaded.put(participant.getId(), participant);
+                String shard = shardMapService.getShardOfParticipant(participant.getId());
+                if (ShardContext.DEFAULT.equals(shard)) {
+                    initializeCalendars(participant);
+                } else {
+                    idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(participant.getId());
+                }
+            }
+            return null;
+        });
+        for (Map.Entry<String, List<Long>> shard : idsByShard.entrySet()) {
+            readOnShard(shard.getKey(), () -> {
+                for (Participant participant : participantService.getParticipantsByIds(shard.getValue())) {
+                    initializeCalendars(participant);
+                    loaded.put(participant.getId(), participant);
+                }
+                return null;
+            });
+        }
+        return new ArrayList<>(loaded.values());
+    }
+
+    /**
+     * initializes the calendar trees of the participant, so that they serialize without lazy loading
+     */
+    private void initializeCalendars(Participant participant) {
+        icalService.initializeTrees(new ArrayList<>(participant.getComponents()));
+    }
+
+    /**
+     * @return result of work, run in a read-only transaction on the shard
+     */
+    private <T> T readOnShard(String shard, Supplier<T> work) {
+        String previous = ShardContext.bind(shard);
+        try {
+            return readTransaction.execute(status -> work.get());
+        } finally {
+            ShardContext.bind(previous);
+        }
     }
 
     /**
@@ -78,11 +256,12 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
     public void deleteParticipantById(Long id){
         Assert.notNull(id, "");
 
-        if(!participantService.getParticipantById(id).isPresent()) {
-            throw new NotFound("Participant with id: " + id + " couldn't found");
-        }
+        // answered by the participant cache, the delete reads the row once
+        participantService.getParticipantById(id)
+                .orElseThrow(() -> new NotFound("Participant with id: " + id + " couldn't found"));
 
         participantService.deleteParticipantById(id);
+        shardMapService.participantDeleted(id);
     }
 
     /**
@@ -94,11 +273,12 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
         Assert.notNull(participant, "Participant must not be null!");
         Assert.isTrue(id.equals(participant.getId()), "ID doesn't match!");
 
-        if(!participantService.getParticipantById(id).isPresent()) {
-            throw new NotFound("Participant with id: " + id + " couldn't found");
-        }
+        // answered by the participant cache, the merge of the save reads the row once
+        participantService.getParticipantById(id)
+                .orElseThrow(() -> new NotFound("Participant with id: " + id + " couldn't found"));
 
         participantService.saveParticipant(participant);
+        shardMapService.participantUpdated(participant);
     }
 
     /**
@@ -116,15 +296,10 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
                 "44New component cannot have id field, please use update methods"
         );
 
-        if(!participantService.getParticipantByUserName(owner).isPresent()) {
-            throw new NotFound("owner: " + owner + " couldn't found");
-        }
-        if(!icalService.getComponentById(parentComponentId).isPresent()) {
-            throw new NotFound("Parent component not found");
-        }
-
-        component.setOwner(participantService.getParticipantByUserName(owner).get());
-        component.setParent(icalService.getComponentById(parentComponentId).get());
+        component.setOwner(participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("owner: " + owner + " couldn't found")));
+        component.setParent(icalService.getComponentById(parentComponentId)
+                .orElseThrow(() -> new NotFound("Parent component not found")));
         icalService.saveComponent(component);
     }
 
@@ -132,28 +307,240 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public Component getComponentById(Long id){
         Assert.notNull(id, "Id must not be null!");
 
-        if(!icalService.getComponentById(id).isPresent()) {
+        return icalService.getComponentTreeById(id)
+                .orElseThrow(() -> new NotFound("Component with ID: " + id + " couldn't found"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getSerializedComponentById(Long id){
+        Assert.notNull(id, "Id must not be null!");
+
+        return componentTreeCacheService.getSerializedTree(id)
+                .orElseThrow(() -> new NotFound("Component with ID: " + id + " couldn't found"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ComponentVersion getComponentVersion(Long id){
+        Assert.notNull(id, "Id must not be null!");
+
+        ComponentVersion version = versionService.getComponentVersion(id);
+        // only components never written since versions were introduced lack a row, deleted ones lose theirs
+        if (version.getLastModified() == null && !icalService.componentExists(id)) {
             throw new NotFound("Component with ID: " + id + " couldn't found");
         }
+        return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OwnerVersion getOwnerVersion(String owner){
+        Assert.notNull(owner, "Owner participant cannot be null");
 
-        return icalService.getComponentById(id).get();
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return versionService.getOwnerVersion(participant.getId());
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Component> getComponentByOwner(String owner){
         Assert.notNull(owner, "Owner participant cannot be null");
 
-        if(!participantService.getParticipantByUserName(owner).isPresent()){
-            throw new NotFound("No participant found for username: " + owner);
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return icalService.getComponentByOwner(participant);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Component> getComponentByOwner(String owner, Long afterId, int limit){
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(afterId, "AfterId must not be null!");
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return icalService.getComponentByOwnerAfter(participant, afterId, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Component> getComponentByOwner(String owner, Date start, Date end){
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(start, "Start must not be null!");
+        Assert.notNull(end, "End must not be null!");
+        Assert.isTrue(start.before(end), "Start must be before end!");
+
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return icalService.getComponentByOwnerInTimeRange(participant, start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getSerializedComponentsByOwner(String owner, Long afterId, int limit){
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+
+        List<Component> components = getComponentByOwner(owner, afterId, limit + 1);
+        icalService.initializeTrees(components);
+        return serialize(PagedResponse.of(components, limit, Component::getId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getSerializedComponentsByOwner(String owner, Date start, Date end){
+        List<Component> components = getComponentByOwner(owner, start, end);
+        icalService.initializeTrees(components);
+        return serialize(new PagedResponse<>(0, null, components, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Occurrence> getOccurrencesOfComponent(Long id, Date start, Date end){
+        Assert.notNull(id, "Id must not be null!");
+        Assert.notNull(start, "Start must not be null!");
+        Assert.notNull(end, "End must not be null!");
+        Assert.isTrue(start.before(end), "Start must be before end!");
+
+        Component component = icalService.getComponentById(id)
+                .orElseThrow(() -> new NotFound("Component with ID: " + id + " couldn't found"));
+
+        return recurrenceService.getOccurrences(component, start.toInstant(), end.toInstant());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BusyPeriod> getFreeBusy(List<String> userNames, Date start, Date end){
+        Assert.notEmpty(userNames, "User names must not be empty!");
+        Assert.isTrue(
+                userNames.size() <= FreeBusyService.MAX_PARTICIPANTS,
+                "At most " + FreeBusyService.MAX_PARTICIPANTS + " participants are allowed"
+        );
+        Assert.notNull(start, "Start must not be null!");
+        Assert.notNull(end, "End must not be null!");
+        Assert.isTrue(start.before(end), "Start must be before end!");
+
+        Map<String, Set<Long>> ownerIdsByShard = new TreeMap<>();
+        for (String userName : userNames) {
+            Long ownerId = participantService.getParticipantReferenceByUserName(userName)
+                    .orElseThrow(() -> new NotFound("No participant found for username: " + userName))
+                    .getId();
+            ownerIdsByShard.computeIfAbsent(shardMapService.locate(ShardKey.Kind.PARTICIPANT_ID, ownerId), shard -> new HashSet<>())
+                    .add(ownerId);
         }
 
-        return icalService.getComponentByOwner(participantService.getParticipantByUserName(owner).get());
+        // every shard answers for its own participants in a transaction of its own
+        List<BusyPeriod> periods = new ArrayList<>();
+        for (Map.Entry<String, Set<Long>> shard : ownerIdsByShard.entrySet()) {
+            String previous = ShardContext.bind(shard.getKey());
+            try {
+                periods.addAll(freeBusyService.getBusyPeriods(shard.getValue(), start, end));
+            } finally {
+                ShardContext.bind(previous);
+            }
+        }
+        return BusyPeriod.merge(periods, start.toInstant(), end.toInstant());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCalendars(String owner, OutputStream outputStream) throws IOException {
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(outputStream, "Output stream must not be null!");
+
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        icalExportService.exportCalendars(participant, outputStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportProgress importCalendars(String owner, InputStream inputStream) throws IOException {
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(inputStream, "Input stream must not be null!");
+
+        Participant participant = participantService.getParticipantByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        // chunks commit on their own, an enclosing transaction would hold the whole import open
+        return icalImportService.importCalendars(participant, inputStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ImportProgress> getImports(String owner){
+        Assert.notNull(owner, "Owner participant cannot be null");
+
+        participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return icalImportService.getImports(owner);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ComponentChange> getChanges(String owner, Long sinceSequence, int limit){
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(sinceSequence, "SinceSequence must not be null!");
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return changeLogService.getChangesAfter(participant.getId(), sinceSequence, limit);
     }
 
     /**
@@ -163,11 +550,24 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
     public void deleteComponentById(Long id){
         Assert.notNull(id, "Id must not be null!");
 
-        if(!icalService.getComponentById(id).isPresent()) {
+        // the subtree is read from the closure table either way, an empty one means there is no component
+        if(!icalService.deleteComponentById(id)) {
             throw new NotFound("Component with ID: " + id + " couldn't found");
         }
+    }
 
-        icalService.deleteComponentById(id);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteComponentByIdAsync(Long id){
+        Assert.notNull(id, "Id must not be null!");
+
+        if(!icalService.componentExists(id)) {
+            throw new NotFound("Component with ID: " + id + " couldn't found");
+        }
+
+        subtreeDeleteService.deleteAsync(id);
     }
 
     /**
@@ -179,11 +579,71 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
         Assert.notNull(component, "Component must not be null!");
         Assert.isTrue(id.equals(component.getId()), "ID doesn't match!");
 
-        if(!icalService.getComponentById(id).isPresent()) {
-            throw new NotFound("Component with ID: " + id + " couldn't found");
+        // loaded once, the merge of the save copies onto this instance without reading the row again
+        icalService.getComponentById(id)
+                .orElseThrow(() -> new NotFound("Component with ID: " + id + " couldn't found"));
+
+        icalService.saveComponent(component);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Long getComponentIdByUid(String owner, String uid){
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.hasText(uid, "UID must not be empty!");
+
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("No participant found for username: " + owner));
+
+        return componentUidService.findComponentId(participant.getId(), uid.trim())
+                .orElseThrow(() -> new NotFound("Component with UID: " + uid + " couldn't found"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long putComponentByUid(String owner, String uid, Long parentComponentId, Component component){
+        Assert.notNull(component, "Component must not be null!");
+        Assert.notNull(owner, "Username must not be null!");
+        Assert.hasText(uid, "UID must not be empty!");
+
+        if (EventTimes.findProperty(component, "UID") == null) {
+            Property uidProperty = icalService.createProperty(PropertyType.Uid);
+            uidProperty.setValue(uid.trim());
+            component.addProperty(uidProperty);
         }
+        Assert.isTrue(uid.trim().equals(ComponentUids.of(component)), "UID doesn't match!");
 
+        Participant participant = participantService.getParticipantReferenceByUserName(owner)
+                .orElseThrow(() -> new NotFound("owner: " + owner + " couldn't found"));
+        Optional<Long> existingId = componentUidService.findComponentId(participant.getId(), uid.trim());
+        if (!existingId.isPresent()) {
+            addComponent(component, owner, parentComponentId);
+            return component.getId();
+        }
+
+        // the merge below reuses the loaded component, the update costs the UID lookup and the write
+        Component existing = icalService.getComponentById(existingId.get())
+                .orElseThrow(() -> new NotFound("Component with ID: " + existingId.get() + " couldn't found"));
+        Assert.state(
+                component.getId() == null || existing.getId().equals(component.getId()),
+                "ID doesn't match the component with UID: " + uid
+        );
+        Component parent = parentComponentId != null
+                ? icalService.getComponentById(parentComponentId).orElseThrow(() -> new NotFound("Parent component not found"))
+                : existing.getParent();
+        Assert.notNull(parent, "ParentComponentId must not be null!");
+
+        // updated in place like updateComponent, the component keeps its id and is journaled as modified
+        component.setId(existing.getId());
+        component.setOwner(participant);
+        component.setParent(parent);
         icalService.saveComponent(component);
+        return component.getId();
     }
 
     /**
@@ -198,11 +658,8 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
                 "55New Property cannot have id field, please use update methods"
         );
 
-        if(!icalService.getComponentById(parentComponentId).isPresent()) {
-            throw new NotFound("Parent component not found");
-        }
-
-        property.setComponent(icalService.getComponentById(parentComponentId).get());
+        property.setComponent(icalService.getComponentById(parentComponentId)
+                .orElseThrow(() -> new NotFound("Parent component not found")));
         icalService.saveProperty(property);
     }
 
@@ -210,27 +667,25 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public Property getPropertyById(Long propertyId){
         Assert.notNull(propertyId, "Id must not be null!");
 
-        if(!icalService.getPropertyById(propertyId).isPresent()) {
-            throw new NotFound("Property with ID: " + propertyId + " couldn't found");
-        }
-
-        return icalService.getPropertyById(propertyId).get();
+        return icalService.getPropertyWithParametersById(propertyId)
+                .orElseThrow(() -> new NotFound("Property with ID: " + propertyId + " couldn't found"));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Property> getPropertiesOfComponent(Long componentId){
         Assert.notNull(componentId, "Id must not be null!");
 
-        if(!icalService.getComponentById(componentId).isPresent()) {
-            throw new NotFound("Component with ID: " + componentId + " couldn't found");
-        }
-        return icalService.getComponentById(componentId).get().getProperties();
+        return icalService.getComponentWithPropertiesById(componentId)
+                .orElseThrow(() -> new NotFound("Component with ID: " + componentId + " couldn't found"))
+                .getProperties();
     }
 
     /**
@@ -240,11 +695,8 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
     public void deleteProperty(Long propertyId){
         Assert.notNull(propertyId, "Id must not be null!");
 
-        if(!icalService.getComponentById(propertyId).isPresent()) {
-            throw new NotFound("Property with ID: " + propertyId + " couldn't found");
-        }
-
-        icalService.deletePropertyById(propertyId);
+        icalService.deleteProperty(icalService.getPropertyById(propertyId)
+                .orElseThrow(() -> new NotFound("Property with ID: " + propertyId + " couldn't found")));
     }
 
     /**
@@ -256,9 +708,9 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
         Assert.notNull(property, "Property must not be null!");
         Assert.state(propertyId.equals(property.getId()), "ID doesn't match!");
 
-        if(!icalService.getComponentById(propertyId).isPresent()) {
-            throw new NotFound("Property with ID: " + propertyId + " couldn't found");
-        }
+        // loaded once, the merge of the save copies onto this instance without reading the row again
+        icalService.getPropertyById(propertyId)
+                .orElseThrow(() -> new NotFound("Property with ID: " + propertyId + " couldn't found"));
 
         icalService.saveProperty(property);
     }
@@ -275,10 +727,8 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
                 "77New parameter cannot have id field, please use update methods"
         );
 
-        if(!icalService.getPropertyById(parentPropertyId).isPresent()) {
-            throw new NotFound("Parent property not found");
-        }
-        parameter.setProperty(icalService.getPropertyById(parentPropertyId).get());
+        parameter.setProperty(icalService.getPropertyById(parentPropertyId)
+                .orElseThrow(() -> new NotFound("Parent property not found")));
         icalService.saveParameter(parameter);
     }
 
@@ -286,27 +736,25 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public Parameter getParameterById(Long parameterId){
         Assert.notNull(parameterId, "Id must not be null!");
 
-        if(!icalService.getParameterById(parameterId).isPresent()) {
-            throw new NotFound("Parameter with ID: " + parameterId + " couldn't found");
-        }
-
-        return icalService.getParameterById(parameterId).get();
+        return icalService.getParameterById(parameterId)
+                .orElseThrow(() -> new NotFound("Parameter with ID: " + parameterId + " couldn't found"));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Parameter> getParametersOfProperty(Long propertyId){
         Assert.notNull(propertyId, "Id must not be null!");
 
-        if(!icalService.getPropertyById(propertyId).isPresent()) {
-            throw new NotFound("Property with ID: " + propertyId + " couldn't found");
-        }
-        return icalService.getPropertyById(propertyId).get().getParameters();
+        return icalService.getPropertyWithParametersById(propertyId)
+                .orElseThrow(() -> new NotFound("Property with ID: " + propertyId + " couldn't found"))
+                .getParameters();
     }
 
     /**
@@ -316,11 +764,8 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
     public void deleteParameter(Long parameterId){
         Assert.notNull(parameterId, "Id must not be null!");
 
-        if(!icalService.getParameterById(parameterId).isPresent()) {
-            throw new NotFound("Parameter with ID: " + parameterId + " couldn't found");
-        }
-
-        icalService.deleteParameterById(parameterId);
+        icalService.deleteParameter(icalService.getParameterById(parameterId)
+                .orElseThrow(() -> new NotFound("Parameter with ID: " + parameterId + " couldn't found")));
     }
 
     /**
@@ -332,10 +777,351 @@ public class CalendarManagerServiceImpl implements CalendarManagerService {
         Assert.notNull(parameterId, "parameterId must not be null!");
         Assert.state(parameterId.equals(parameter.getId()), "ID doesn't match!");
 
-        if(!icalService.getParameterById(parameterId).isPresent()) {
-            throw new NotFound("Parameter with ID: " + parameterId + " couldn't found");
-        }
+        // loaded once, the merge of the save copies onto this instance without reading the row again
+        icalService.getParameterById(parameterId)
+                .orElseThrow(() -> new NotFound("Parameter with ID: " + parameterId + " couldn't found"));
 
         icalService.saveParameter(parameter);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The shard is located from the operations before the transaction starts. Every operation runs
+     * through the single element method, inside this one transaction the inserts are flushed together
+     * as JDBC batches and the change listeners write once at commit.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Long> applyBatch(List<BatchOperation> operations){
+        Assert.notEmpty(operations, "Operations must not be empty!");
+        Assert.isTrue(
+                operations.size() <= MAX_BATCH_OPERATIONS,
+                "At most " + MAX_BATCH_OPERATIONS + " operations are allowed"
+        );
+
+        // elements created in the batch stay on the shard of their parent
+        Map<String, String> tempIdShards = new HashMap<>();
+        String batchShard = null;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            String shard = inOperation(i, () -> shardOf(operation, tempIdShards));
+            if (batchShard == null) {
+                batchShard = shard;
+            }
+            Assert.isTrue(
+                    batchShard.equals(shard),
+                    "Operation " + i + ": element is on shard " + shard + ", the batch on shard " + batchShard
+                            + ", a batch must stay within one shard"
+            );
+        }
+
+        String previous = ShardContext.bind(batchShard);
+        try {
+            return batchTransaction.execute(status -> {
+                Map<String, Long> tempIds = new HashMap<>();
+                List<Long> ids = new ArrayList<>(operations.size());
+                for (int i = 0; i < operations.size(); i++) {
+                    BatchOperation operation = operations.get(i);
+                    ids.add(inOperation(i, () -> applyOperation(operation, tempIds)));
+                }
+                return ids;
+            });
+        } finally {
+            ShardContext.bind(previous);
+        }
+    }
+
+    private String shardOf(BatchOperation operation, Map<String, String> tempIdShards) {
+        Assert.notNull(operation, "Operation must not be null!");
+        Assert.notNull(operation.getAction(), "Action must not be null!");
+        Assert.notNull(operation.getTarget(), "Target must not be null!");
+
+        if (operation.getAction() != BatchOperation.Action.CREATE) {
+            if (operation.getTempId() != null) {
+                return tempIdShard(operation.getTempId(), tempIdShards);
+            }
+            return shardMapService.locate(kindOf(operation.getTarget()), operation.getId());
+        }
+
+        String shard = null;
+        if (operation.getParentTempId() != null) {
+            shard = tempIdShard(operation.getParentTempId(), tempIdShards);
+        } else if (operation.getParentId() != null) {
+            shard = shardMapService.locate(parentKindOf(operation.getTarget()), operation.getParentId());
+        }
+        if (operation.getUserName() != null) {
+            String ownerShard = shardMapService.locate(ShardKey.Kind.PARTICIPANT_NAME, operation.getUserName());
+            Assert.isTrue(shard == null || shard.equals(ownerShard), "Parent and owner are on different shards");
+            shard = ownerShard;
+        }
+        if (shard == null) {
+            shard = ShardContext.DEFAULT;
+        }
+        if (operation.getTempId() != null) {
+            tempIdShards.putIfAbsent(operation.getTempId(), shard);
+        }
+        return shard;
+    }
+
+    private static String tempIdShard(String tempId, Map<String, String> tempIdShards) {
+        String shard = tempIdShards.get(tempId);
+        Assert.notNull(shard, "Unknown temporary id: " + tempId);
+        return shard;
+    }
+
+    private static ShardKey.Kind kindOf(BatchOperation.Target target) {
+        if (target == BatchOperation.Target.COMPONENT) {
+            return ShardKey.Kind.COMPONENT;
+        }
+        return target == BatchOperation.Target.PROPERTY ? ShardKey.Kind.PROPERTY : ShardKey.Kind.PARAMETER;
+    }
+
+    private static ShardKey.Kind parentKindOf(BatchOperation.Target target) {
+        return target == BatchOperation.Target.PARAMETER ? ShardKey.Kind.PROPERTY : ShardKey.Kind.COMPONENT;
+    }
+
+    /**
+     * @return result of work, exceptions name the operation they were thrown for
+     */
+    private static <T> T inOperation(int index, Supplier<T> work) {
+        try {
+            return work.get();
+        } catch (NotFound e) {
+            throw new NotFound("Operation " + index + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Operation " + index + ": " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Operation " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Long applyOperation(BatchOperation operation, Map<String, Long> tempIds) {
+        Assert.notNull(operation, "Operation must not be null!");
+        Assert.notNull(operation.getAction(), "Action must not be null!");
+        Assert.notNull(operation.getTarget(), "Target must not be null!");
+
+        if (operation.getAction() == BatchOperation.Action.CREATE) {
+            Long parentId = resolve(operation.getParentId(), operation.getParentTempId(), tempIds);
+            Long id;
+            switch (operation.getTarget()) {
+                case COMPONENT:
+                    addComponent(operation.getComponent(), operation.getUserName(), parentId);
+                    id = operation.getComponent().getId();
+                    break;
+                case PROPERTY:
+                    addProperty(operation.getProperty(), parentId);
+                    id = operation.getProperty().getId();
+                    break;
+                default:
+                    addParameter(operation.getParameter(), parentId);
+                    id = operation.getParameter().getId();
+                    break;
+            }
+            if (operation.getTempId() != null) {
+                Assert.isTrue(!tempIds.containsKey(operation.getTempId()), "Duplicate temporary id: " + operation.getTempId());
+                tempIds.put(operation.getTempId(), id);
+            }
+            return id;
+        }
+
+        Long id = resolve(operation.getId(), operation.getTempId(), tempIds);
+        Assert.notNull(id, "Id must not be null!");
+        if (operation.getAction() == BatchOperation.Action.DELETE) {
+            switch (operation.getTarget()) {
+                case COMPONENT:
+                    deleteComponentById(id);
+                    break;
+                case PROPERTY:
+                    deleteProperty(id);
+                    break;
+                default:
+                    deleteParameter(id);
+                    break;
+            }
+            return id;
+        }
+
+        switch (operation.getTarget()) {
+            case COMPONENT:
+                updateComponent(id, operation.getComponent());
+                break;
+            case PROPERTY:
+                updateProperty(id, operation.getProperty());
+                break;
+            default:
+                updateParameter(operation.getParameter(), id);
+                break;
+        }
+        return id;
+    }
+
+    /**
+     * @return id of the element created earlier under tempId, or id when no tempId is given
+     */
+    private static Long resolve(Long id, String tempId, Map<String, Long> tempIds) {
+        if (tempId == null) {
+            return id;
+        }
+        Long resolved = tempIds.get(tempId);
+        Assert.notNull(resolved, "Unknown temporary id: " + tempId);
+        return resolved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Map<String, Object>> getParticipantViews(Long afterId, int limit, int depth, Set<String> fields){
+        Assert.notNull(afterId, "AfterId must not be null!");
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = readOnShard(
+                ShardContext.DEFAULT,
+                () -> projectionService.getParticipants(afterId, limit, depth, fields)
+        );
+        if (depth == 0) {
+            return views;
+        }
+
+        // calendars are attached from the default shard, participants of other shards are read again on theirs
+        Map<String, List<Long>> idsByShard = new TreeMap<>();
+        for (Map<String, Object> view : views) {
+            Long id = (Long) view.get("id");
+            String shard = shardMapService.getShardOfParticipant(id);
+            if (!ShardContext.DEFAULT.equals(shard)) {
+                idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(id);
+            }
+        }
+        Map<Object, Map<String, Object>> viewsOfShards = new HashMap<>();
+        for (Map.Entry<String, List<Long>> shard : idsByShard.entrySet()) {
+            for (Map<String, Object> view : readOnShard(
+                    shard.getKey(),
+                    () -> projectionService.getParticipants(shard.getValue(), depth, fields)
+            )) {
+                viewsOfShards.put(view.get("id"), view);
+            }
+        }
+        views.replaceAll(view -> viewsOfShards.getOrDefault(view.get("id"), view));
+        return views;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getParticipantView(String userName, int depth, Set<String> fields){
+        Assert.notNull(userName, "Username must not be null!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = projectionService.getParticipant(userName, depth, fields);
+        if(views.isEmpty()) {
+            throw new NotFound("Participant with username: " + userName + " couldn't found");
+        }
+
+        return views.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRootComponentView(Long id, int depth, Set<String> fields){
+        Assert.notNull(id, "Id must not be null!");
+
+        Long rootId = componentHierarchyService.getRootId(id)
+                .orElseThrow(() -> new NotFound("Component with ID: " + id + " couldn't found"));
+
+        return getComponentView(rootId, depth, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getComponentViewsByOwner(String owner, Long afterId, int limit, int depth, Set<String> fields){
+        Assert.notNull(owner, "Owner participant cannot be null");
+        Assert.notNull(afterId, "AfterId must not be null!");
+        Assert.isTrue(limit > 0, "Limit must be positive!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = projectionService.getComponentsOfOwner(owner, afterId, limit, depth, fields);
+        // an empty page is the only case where the owner has to be checked separately
+        if(views.isEmpty() && !participantService.getParticipantByUserName(owner).isPresent()){
+            throw new NotFound("No participant found for username: " + owner);
+        }
+
+        return views;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getComponentView(Long id, int depth, Set<String> fields){
+        Assert.notNull(id, "Id must not be null!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = projectionService.getComponents(Collections.singleton(id), depth, fields);
+        if(views.isEmpty()) {
+            throw new NotFound("Component with ID: " + id + " couldn't found");
+        }
+
+        return views.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPropertyViewsOfComponent(Long componentId, int depth, Set<String> fields){
+        Assert.notNull(componentId, "Id must not be null!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = projectionService.getPropertiesOfComponent(componentId, depth, fields);
+        if(views.isEmpty() && !icalService.componentExists(componentId)) {
+            throw new NotFound("Component with ID: " + componentId + " couldn't found");
+        }
+
+        return views;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPropertyView(Long propertyId, int depth, Set<String> fields){
+        Assert.notNull(propertyId, "Id must not be null!");
+        assertDepth(depth);
+
+        List<Map<String, Object>> views = projectionService.getProperties(Collections.singleton(propertyId), depth, fields);
+        if(views.isEmpty()) {
+            throw new NotFound("Property with ID: " + propertyId + " couldn't found");
+        }
+
+        return views.get(0);
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response couldn't be serialized", e);
+        }
+    }
+
+    private static void assertDepth(int depth) {
+        Assert.isTrue(
+                depth >= 0 && depth <= ProjectionService.MAX_DEPTH,
+                "Depth must be between 0 and " + ProjectionService.MAX_DEPTH
+        );
+    }
 }
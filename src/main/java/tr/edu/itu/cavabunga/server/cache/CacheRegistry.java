@@ -0,0 +1,105 @@
+package tr.edu.itu.cavabunga.server.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Creates named near caches, collects their statistics and publishes them as cavabunga.cache.* meters
+ */
+@Component
+public class CacheRegistry {
+    private final Map<String, NearCache<?, ?>> caches = new ConcurrentSkipListMap<>();
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param meterRegistry to inject MeterRegistry
+     */
+    @Autowired
+    public CacheRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name unique cache name
+     * @param maxSize maximum number of entries
+     * @param ttlMillis time to live of an entry, 0 or less disables expiration
+     * @param <K> key type
+     * @param <V> value type
+     * @return new cache registered under name
+     * @throws IllegalStateException when a cache with the same name exists
+     */
+    public <K, V> NearCache<K, V> create(String name, int maxSize, long ttlMillis) {
+        return register(new NearCache<>(name, maxSize, ttlMillis));
+    }
+
+    /**
+     * @param name unique cache name
+     * @param maxSize maximum number of entries
+     * @param ttlMillis time to live of an entry, 0 or less disables expiration
+     * @param maxWeight maximum total weight of the entries, values heavier than this are not cached
+     * @param weigher weight of a value, e.g. the length of serialized text
+     * @param <K> key type
+     * @param <V> value type
+     * @return new cache registered under name
+     * @throws IllegalStateException when a cache with the same name exists
+     */
+    public <K, V> NearCache<K, V> create(String name, int maxSize, long ttlMillis, long maxWeight, ToLongFunction<V> weigher) {
+        return register(new NearCache<>(name, maxSize, ttlMillis, maxWeight, weigher));
+    }
+
+    private <K, V> NearCache<K, V> register(NearCache<K, V> cache) {
+        String name = cache.getName();
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Cache already registered: " + name);
+        }
+        bindMeters(cache);
+        return cache;
+    }
+
+    /**
+     * @return statistics of all caches ordered by name
+     */
+    public List<CacheStats> stats() {
+        List<CacheStats> result = new ArrayList<>(caches.size());
+        for (NearCache<?, ?> cache : caches.values()) {
+            result.add(cache.stats());
+        }
+        return result;
+    }
+
+    private void bindMeters(NearCache<?, ?> cache) {
+        String name = cache.getName();
+        Gauge.builder("cavabunga.cache.size", cache, c -> c.stats().getSize())
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cavabunga.cache.weight", cache, c -> c.stats().getWeight())
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cavabunga.cache.hit.ratio", cache, c -> c.stats().getHitRatio())
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cavabunga.cache.requests", cache, c -> c.stats().getHits())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cavabunga.cache.requests", cache, c -> c.stats().getMisses())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cavabunga.cache.evictions", cache, c -> c.stats().getEvictions() + c.stats().getExpirations())
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package tr.edu.itu.cavabunga.server.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time counters of a NearCache
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    private final String name;
+
+    private final int size;
+
+    private final int maxSize;
+
+    /**
+     * total weight of the entries, 0 for caches bounded by the number of entries only
+     */
+    private final long weight;
+
+    private final long maxWeight;
+
+    private final long ttlMillis;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long expirations;
+
+    private final long invalidations;
+
+    /**
+     * @return hits / (hits + misses), 0 when the cache was never read
+     */
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,206 @@
+package tr.edu.itu.cavabunga.server.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-process LRU cache with a time to live, keeps hit/miss/eviction counters for sizing.
+ *
+ * All operations synchronize on the cache. The number of entries is always bounded, caches of values
+ * whose size varies widely (serialized text) are bounded by their total weight as well, least recently
+ * used entries are evicted until the weight fits and a value heavier than the bound is not cached at all.
+ */
+public class NearCache<K, V> {
+    private static final class Entry<V> {
+        private final V value;
+
+        private final long expiresAt;
+
+        private final long weight;
+
+        Entry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    private final String name;
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long expirations;
+
+    private long invalidations;
+
+    private BiConsumer<K, V> removalListener = (key, value) -> { };
+
+    /**
+     * @param name name reported with the statistics
+     * @param maxSize maximum number of entries, least recently used entries are evicted first
+     * @param ttlMillis time to live of an entry, 0 or less disables expiration
+     */
+    public NearCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, 0, value -> 0);
+    }
+
+    /**
+     * @param name name reported with the statistics
+     * @param maxSize maximum number of entries, least recently used entries are evicted first
+     * @param ttlMillis time to live of an entry, 0 or less disables expiration
+     * @param maxWeight maximum total weight of the entries, 0 or less bounds the number of entries only
+     * @param weigher weight of a value, taken once when it is put
+     */
+    public NearCache(String name, int maxSize, long ttlMillis, long maxWeight, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > NearCache.this.maxSize) {
+                    evictions++;
+                    weight -= eldest.getValue().weight;
+                    removalListener.accept(eldest.getKey(), eldest.getValue().value);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key cache key
+     * @return cached value or null when absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (ttlMillis > 0 && entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            weight -= entry.weight;
+            expirations++;
+            removalListener.accept(key, entry.value);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * @param key cache key
+     * @param value value to cache, null values and values heavier than the weight bound are not cached
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null || maxSize <= 0) {
+            return;
+        }
+        long valueWeight = weigher.applyAsLong(value);
+        if (maxWeight > 0 && valueWeight > maxWeight) {
+            // the previous value must not outlive the one that replaced it
+            invalidate(key);
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE, valueWeight));
+        weight += valueWeight;
+        if (previous != null) {
+            weight -= previous.weight;
+            removalListener.accept(key, previous.value);
+        }
+        if (maxWeight > 0) {
+            // the new entry is the most recently used and fits on its own, so it is never reached
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.getValue().weight;
+                evictions++;
+                removalListener.accept(eldest.getKey(), eldest.getValue().value);
+            }
+        }
+    }
+
+    /**
+     * @param key cache key
+     * @return value that was cached, null when absent
+     */
+    public synchronized V invalidate(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        weight -= entry.weight;
+        invalidations++;
+        removalListener.accept(key, entry.value);
+        return entry.value;
+    }
+
+    /**
+     * @param condition entries matching the condition are removed
+     */
+    public synchronized void invalidateIf(BiPredicate<K, V> condition) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (condition.test(entry.getKey(), entry.getValue().value)) {
+                iterator.remove();
+                weight -= entry.getValue().weight;
+                invalidations++;
+                removalListener.accept(entry.getKey(), entry.getValue().value);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            removalListener.accept(entry.getKey(), entry.getValue().value);
+        }
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @param removalListener called with the lock held whenever an entry leaves the cache for any reason
+     */
+    public synchronized void setRemovalListener(BiConsumer<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * @return snapshot of the counters
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), maxSize, weight, maxWeight, ttlMillis, hits, misses, evictions, expirations, invalidations);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,62 @@
+package tr.edu.itu.cavabunga.server.configuration;
+
+import tr.edu.itu.cavabunga.server.datasource.ReadYourWrites;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.metrics.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    /**
+     * runs asynchronous subtree deletes, kept small so that background deletes can't starve request handling of connections
+     */
+    @Bean
+    public Executor subtreeDeleteExecutor(
+            @Value("${cavabunga.delete.async.threads:2}") int threads,
+            @Value("${cavabunga.delete.async.queue-capacity:100}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("subtree-delete-");
+        // the subtree is deleted on the shard of the call that scheduled it
+        executor.setTaskDecorator(ShardContext::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * runs the work of heavy endpoints and streaming responses, see HeavyRequestService. Bounded in
+     * threads and queue so that heavy requests are turned away instead of piling up, its queue depth
+     * is exposed as executor.queued with name heavy-request.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor heavyRequestExecutor(
+            @Value("${cavabunga.heavy.threads:8}") int threads,
+            @Value("${cavabunga.heavy.queue-capacity:100}") int queueCapacity,
+            MeterRegistry meterRegistry
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("heavy-request-");
+        // reads done for a request honour its read-your-writes state and shard scope on the executor
+        // thread as well, and their statements count against the request's budget
+        executor.setTaskDecorator(task -> ReadYourWrites.propagate(ShardContext.propagate(StatementCounter.propagate(task))));
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "heavy-request", Collections.emptyList()).bindTo(meterRegistry);
+        return executor;
+    }
+}
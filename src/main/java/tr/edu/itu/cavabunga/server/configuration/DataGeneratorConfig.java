@@ -0,0 +1,58 @@
+package tr.edu.itu.cavabunga.server.configuration;
+
+import tr.edu.itu.cavabunga.server.ical.GenerationResult;
+import tr.edu.itu.cavabunga.server.ical.GenerationSpec;
+import tr.edu.itu.cavabunga.server.service.DataGeneratorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Generates a synthetic dataset on start when cavabunga.generator.enabled=true, e.g.
+ * {@code java -jar cavabunga-server-exec.jar --cavabunga.generator.enabled=true --cavabunga.generator.participants=1000}.
+ * The application exits after the run unless cavabunga.generator.exit is false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cavabunga.generator.enabled", havingValue = "true")
+public class DataGeneratorConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataGeneratorConfig.class);
+
+    private static final String PREFIX = "cavabunga.generator.";
+
+    @Bean
+    public CommandLineRunner dataGeneratorRunner(DataGeneratorService dataGeneratorService,
+                                                 Environment environment,
+                                                 ApplicationContext applicationContext) {
+        return args -> {
+            GenerationSpec spec = specOf(environment);
+            LOGGER.info("Generating synthetic data: {}", spec);
+            GenerationResult result = dataGeneratorService.generate(spec);
+            LOGGER.info("Generated {} participants, {} components, {} properties, {} parameters in {} ms",
+                    result.getParticipants(), result.getComponents(), result.getProperties(),
+                    result.getParameters(), result.getElapsedMillis());
+            if (environment.getProperty(PREFIX + "exit", Boolean.class, true)) {
+                System.exit(SpringApplication.exit(applicationContext));
+            }
+        };
+    }
+
+    private static GenerationSpec specOf(Environment environment) {
+        GenerationSpec spec = new GenerationSpec();
+        spec.setUserNamePrefix(environment.getProperty(PREFIX + "user-name-prefix", spec.getUserNamePrefix()));
+        spec.setParticipants(environment.getProperty(PREFIX + "participants", Integer.class, spec.getParticipants()));
+        spec.setCalendarsPerParticipant(environment.getProperty(PREFIX + "calendars-per-participant", Integer.class, spec.getCalendarsPerParticipant()));
+        spec.setEventsPerCalendar(environment.getProperty(PREFIX + "events-per-calendar", Integer.class, spec.getEventsPerCalendar()));
+        spec.setPropertiesPerEvent(environment.getProperty(PREFIX + "properties-per-event", Integer.class, spec.getPropertiesPerEvent()));
+        spec.setParametersPerProperty(environment.getProperty(PREFIX + "parameters-per-property", Integer.class, spec.getParametersPerProperty()));
+        spec.setRecurrenceRatio(environment.getProperty(PREFIX + "recurrence-ratio", Double.class, spec.getRecurrenceRatio()));
+        spec.setAttendeesPerEvent(environment.getProperty(PREFIX + "attendees-per-event", Integer.class, spec.getAttendeesPerEvent()));
+        spec.setSeed(environment.getProperty(PREFIX + "seed", Long.class, spec.getSeed()));
+        return spec;
+    }
+}
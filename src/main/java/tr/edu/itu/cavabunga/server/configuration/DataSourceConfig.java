@@ -0,0 +1,98 @@
+package tr.edu.itu.cavabunga.server.configuration;
+
+import tr.edu.itu.cavabunga.server.datasource.ReplicaRoutingDataSource;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.datasource.ShardRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class DataSourceConfig {
+    private static final String SHARD_PREFIX = "cavabunga.shard.";
+
+    /**
+     * the default shard is the primary pool from spring.datasource.*, plus one pool per entry of
+     * cavabunga.datasource.replica-urls, which use the primary's driver and credentials unless
+     * cavabunga.datasource.replica-username/-password are given.
+     *
+     * Every name in cavabunga.shards adds a shard from cavabunga.shard.{name}.url, -.username, -.password
+     * and -.replica-urls, credentials default to the ones of spring.datasource.
+     */
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${cavabunga.shards:}") String[] shardNames,
+            @Value("${cavabunga.datasource.replica-urls:}") String[] replicaUrls,
+            @Value("${cavabunga.datasource.replica-username:}") String replicaUsername,
+            @Value("${cavabunga.datasource.replica-password:}") String replicaPassword
+    ) {
+        Map<String, ReplicaRoutingDataSource> shards = new LinkedHashMap<>();
+        shards.put(ShardContext.DEFAULT, new ReplicaRoutingDataSource(
+                properties.initializeDataSourceBuilder().build(),
+                replicas(properties, replicaUrls,
+                        replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername,
+                        replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword)
+        ));
+        for (String name : shardNames) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Assert.isTrue(!shards.containsKey(name), "Duplicate shard: " + name);
+            String url = environment.getProperty(SHARD_PREFIX + name + ".url");
+            Assert.hasText(url, "Missing " + SHARD_PREFIX + name + ".url");
+            String username = environment.getProperty(SHARD_PREFIX + name + ".username", properties.determineUsername());
+            String password = environment.getProperty(SHARD_PREFIX + name + ".password", properties.determinePassword());
+            shards.put(name, new ReplicaRoutingDataSource(
+                    dataSource(properties, url, username, password),
+                    replicas(properties, environment.getProperty(SHARD_PREFIX + name + ".replica-urls", String[].class, new String[0]),
+                            username, password)
+            ));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * the data source of the application, connections are fetched once the transaction's shard and
+     * read-only flag are known
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    private static List<DataSource> replicas(DataSourceProperties properties, String[] urls, String username, String password) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            replicas.add(dataSource(properties, url.trim(), username, password));
+        }
+        return replicas;
+    }
+
+    private static DataSource dataSource(DataSourceProperties properties, String url, String username, String password) {
+        return DataSourceBuilder.create(properties.getClassLoader())
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package tr.edu.itu.cavabunga.server.configuration;
+
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.datasource.ShardRoutingDataSource;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+    /**
+     * applies db/migration to the default shard and then to every other shard. Flyway runs before the
+     * entity manager factory, which only validates the mapping against the tables of the default shard
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+        return flyway -> {
+            flyway.migrate();
+            for (String shard : shardRoutingDataSource.getShardNames()) {
+                if (ShardContext.DEFAULT.equals(shard)) {
+                    continue;
+                }
+                // Flyway connects through the application data source, which follows the bound shard
+                String previous = ShardContext.bind(shard);
+                try {
+                    flyway.migrate();
+                } finally {
+                    ShardContext.bind(previous);
+                }
+            }
+        };
+    }
+}
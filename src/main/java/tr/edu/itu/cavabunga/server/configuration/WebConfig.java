@@ -0,0 +1,64 @@
+package tr.edu.itu.cavabunga.server.configuration;
+
+import tr.edu.itu.cavabunga.server.metrics.StatementBudgetInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+
+/**
+ * Spring MVC configuration, it replaces Boot's MVC auto-configuration so interceptors and async
+ * support are set up here
+ */
+@Configuration
+public class WebConfig extends WebMvcConfigurationSupport {
+    private StatementBudgetInterceptor statementBudgetInterceptor;
+
+    private ThreadPoolTaskExecutor heavyRequestExecutor;
+
+    private long asyncTimeoutMillis;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param statementBudgetInterceptor to inject StatementBudgetInterceptor
+     * @param heavyRequestExecutor executor of streaming responses
+     * @param asyncTimeoutMillis time after which an unfinished asynchronous request is answered with 503
+     */
+    @Autowired
+    public WebConfig(
+            StatementBudgetInterceptor statementBudgetInterceptor,
+            @Qualifier("heavyRequestExecutor") ThreadPoolTaskExecutor heavyRequestExecutor,
+            @Value("${cavabunga.heavy.timeout-millis:600000}") long asyncTimeoutMillis
+    ) {
+        this.statementBudgetInterceptor = statementBudgetInterceptor;
+        this.heavyRequestExecutor = heavyRequestExecutor;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    @Override
+    protected void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("swagger-ui.html")
+                .addResourceLocations("classpath:/META-INF/resources/");
+
+        registry.addResourceHandler("/webjars/**")
+                .addResourceLocations("classpath:/META-INF/resources/webjars/");
+    }
+
+    @Override
+    protected void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementBudgetInterceptor);
+    }
+
+    @Override
+    protected void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // StreamingResponseBody would otherwise run on an unbounded SimpleAsyncTaskExecutor
+        configurer.setTaskExecutor(heavyRequestExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMillis);
+    }
+}
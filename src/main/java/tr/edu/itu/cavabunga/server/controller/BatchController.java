@@ -0,0 +1,43 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.http.BatchOperation;
+import tr.edu.itu.cavabunga.server.http.BatchResponse;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
+import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/batch")
+@Api(value = "Batch controller", description = "Multiple writes in a single transaction")
+public class BatchController {
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    public BatchController(CalendarManagerService calendarManagerService) {
+        this.calendarManagerService = calendarManagerService;
+    }
+
+    @ApiOperation(value = "Apply ordered creates, updates and deletes of components, properties and parameters, all or none of them")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully applied all operations", response = BatchResponse.class),
+            @ApiResponse(code = 400, message = "Bad request, message names the failing operation", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "Element referred by an operation not found, message names the failing operation", response = ErrorResponse.class)
+    })
+    @PostMapping(produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    @StatementBudget(StatementBudget.UNLIMITED)
+    public BatchResponse applyBatch(@RequestBody List<BatchOperation> operations) {
+        return new BatchResponse(0, "applied", calendarManagerService.applyBatch(operations));
+    }
+}
@@ -6,13 +6,25 @@ import tr.edu.itu.cavabunga.lib.http.ComponentResponse;
 import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
 import tr.edu.itu.cavabunga.lib.http.PropertyResponse;
 import tr.edu.itu.cavabunga.lib.http.Response;
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.http.ETags;
+import tr.edu.itu.cavabunga.server.http.OccurrenceResponse;
+import tr.edu.itu.cavabunga.server.http.ViewResponse;
+import tr.edu.itu.cavabunga.server.service.HeavyRequestService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Date;
 
 @RestController
 @RequestMapping(path="/component")
@@ -21,9 +33,12 @@ public class ComponentController {
 
     private CalendarManagerService calendarManagerService;
 
+    private HeavyRequestService heavyRequestService;
+
     @Autowired
-    public ComponentController(CalendarManagerService calendarManagerService) {
+    public ComponentController(CalendarManagerService calendarManagerService, HeavyRequestService heavyRequestService) {
         this.calendarManagerService = calendarManagerService;
+        this.heavyRequestService = heavyRequestService;
     }
 
     @ApiOperation(value = "Create new component with parent_id = {parent_component_id}")
@@ -43,18 +58,33 @@ public class ComponentController {
         return new Response(0,"created");
     }
 
-    @ApiOperation(value = "Get component with id = {component_id}")
+    @ApiOperation(value = "Get component with id = {component_id}, as shallow view when depth or fields is given")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully get component with id = {component_id}", response = ComponentResponse.class),
+            @ApiResponse(code = 304, message = "Component with id = {component_id} not modified since If-None-Match/If-Modified-Since"),
             @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
             @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
             @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
             @ApiResponse(code = 404, message = "No component found with id = {component_id}", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class),
     })
     @GetMapping(value = "/{component_id}", produces = "application/json")
-    @ResponseStatus(HttpStatus.OK)
-    public ComponentResponse getComponent(@PathVariable(value = "component_id")Long componentId){
-        return new ComponentResponse(0,null,calendarManagerService.getComponentById(componentId));
+    public DeferredResult<ResponseEntity<String>> getComponent(@PathVariable(value = "component_id")Long componentId,
+                                                               @RequestParam(value = "depth", required = false) Integer depth,
+                                                               @RequestParam(value = "fields", required = false) String fields,
+                                                               WebRequest webRequest){
+        ComponentVersion version = calendarManagerService.getComponentVersion(componentId);
+        if (ETags.notModified(webRequest, ETags.of(version), version.getLastModified())) {
+            return ETags.notModifiedResult();
+        }
+        if (ViewResponse.requested(depth, fields)) {
+            return heavyRequestService.submitJson("component", () ->
+                    new ViewResponse(0, null, calendarManagerService.getComponentView(componentId, depth == null ? 0 : depth, ViewResponse.fields(fields))));
+        }
+        // the cached text is exactly the ComponentResponse the entity tree would serialize to
+        return heavyRequestService.submit("component", () -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(calendarManagerService.getSerializedComponentById(componentId)));
     }
 
     @ApiOperation(value = "Update component with id = {component_id}")
@@ -73,23 +103,33 @@ public class ComponentController {
         return new Response(0,"updated");
     }
 
-    @ApiOperation(value = "Delete component with id = {component_id}")
+    @ApiOperation(value = "Delete component with id = {component_id} and its subtree, in the background when async is true")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully delete component with id = {component_id}", response = Response.class),
+            @ApiResponse(code = 202, message = "Delete of component with id = {component_id} and its subtree started in the background", response = Response.class),
             @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
             @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
             @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
             @ApiResponse(code = 404, message = "No component found with id = {component_id}", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class),
     })
     @DeleteMapping(value = "/{component_id}/", produces = "applicatioin/json")
-    @ResponseStatus(HttpStatus.OK)
-    public Response deleteComponent(@PathVariable(value = "component_id")Long componentId) {
-        calendarManagerService.deleteComponentById(componentId);
-        return new Response(0,"deleted");
+    public DeferredResult<ResponseEntity<Response>> deleteComponent(@PathVariable(value = "component_id")Long componentId,
+                                                                    @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            calendarManagerService.deleteComponentByIdAsync(componentId);
+            DeferredResult<ResponseEntity<Response>> accepted = new DeferredResult<>();
+            accepted.setResult(ResponseEntity.status(HttpStatus.ACCEPTED).body(new Response(0,"accepted")));
+            return accepted;
+        }
+        return heavyRequestService.submit("delete", () -> {
+            calendarManagerService.deleteComponentById(componentId);
+            return ResponseEntity.ok(new Response(0,"deleted"));
+        });
     }
 
 
-    @ApiOperation(value = "Get component's property by component with id = {component_id}")
+    @ApiOperation(value = "Get component's property by component with id = {component_id}, as shallow views when depth or fields is given")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully update component with id = {component_id}", response = PropertyResponse.class),
             @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
@@ -99,7 +139,44 @@ public class ComponentController {
     })
     @GetMapping(value = "/{component_id}/property", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
-    public PropertyResponse getComponentProperties(@PathVariable(value = "component_id")Long componentId) {
+    public Object getComponentProperties(@PathVariable(value = "component_id")Long componentId,
+                                         @RequestParam(value = "depth", required = false) Integer depth,
+                                         @RequestParam(value = "fields", required = false) String fields) {
+        if (ViewResponse.requested(depth, fields)) {
+            return new ViewResponse(0, null, calendarManagerService.getPropertyViewsOfComponent(componentId, depth == null ? 0 : depth, ViewResponse.fields(fields)));
+        }
         return new PropertyResponse(0,null,calendarManagerService.getPropertiesOfComponent(componentId));
     }
+
+    @ApiOperation(value = "Get root component, e.g. the calendar, of component with id = {component_id} as shallow view")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully get root of component with id = {component_id}", response = ViewResponse.class),
+            @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No component found with id = {component_id}", response = ErrorResponse.class),
+    })
+    @GetMapping(value = "/{component_id}/root", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public ViewResponse getRootComponent(@PathVariable(value = "component_id") Long componentId,
+                                         @RequestParam(value = "depth", defaultValue = "0") int depth,
+                                         @RequestParam(value = "fields", required = false) String fields) {
+        return new ViewResponse(0, null, calendarManagerService.getRootComponentView(componentId, depth, ViewResponse.fields(fields)));
+    }
+
+    @ApiOperation(value = "Get instances of component with id = {component_id} overlapping [start, end), recurring components are expanded")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully expanded component with id = {component_id}", response = OccurrenceResponse.class),
+            @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No component found with id = {component_id}", response = ErrorResponse.class),
+    })
+    @GetMapping(value = "/{component_id}/occurrences", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public OccurrenceResponse getComponentOccurrences(@PathVariable(value = "component_id") Long componentId,
+                                                      @RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date start,
+                                                      @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date end) {
+        return OccurrenceResponse.of(0, null, calendarManagerService.getOccurrencesOfComponent(componentId, start, end));
+    }
 }
@@ -0,0 +1,44 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.http.FreeBusyResponse;
+import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/freebusy")
+@Api(value = "Free/busy controller", description = "Busy time of participant groups")
+public class FreeBusyController {
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    public FreeBusyController(CalendarManagerService calendarManagerService) {
+        this.calendarManagerService = calendarManagerService;
+    }
+
+    @ApiOperation(value = "Get merged busy periods of participants with the given usernames overlapping [start, end)")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully computed busy periods", response = FreeBusyResponse.class),
+            @ApiResponse(code = 400, message = "Bad request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with one of the usernames", response = ErrorResponse.class)
+    })
+    @GetMapping(produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public FreeBusyResponse getFreeBusy(@RequestParam(value = "user_name") List<String> userNames,
+                                        @RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date start,
+                                        @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date end) {
+        return FreeBusyResponse.of(0, null, calendarManagerService.getFreeBusy(userNames, start, end));
+    }
+}
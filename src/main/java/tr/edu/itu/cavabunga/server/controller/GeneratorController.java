@@ -0,0 +1,39 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.server.http.GenerationResponse;
+import tr.edu.itu.cavabunga.server.ical.GenerationSpec;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
+import tr.edu.itu.cavabunga.server.service.DataGeneratorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Synthetic data over HTTP, only mapped when cavabunga.generator.http-enabled=true. A single request
+ * can write millions of rows, so the endpoint is off unless a load test environment turns it on.
+ */
+@RestController
+@RequestMapping(path="/seeddb")
+@ConditionalOnProperty(name = "cavabunga.generator.http-enabled", havingValue = "true")
+public class GeneratorController {
+    @Autowired
+    private DataGeneratorService dataGeneratorService;
+
+    /**
+     * generates a synthetic dataset, omitted fields of the spec keep their defaults
+     *
+     * @param spec shape of the dataset
+     * @return counters of the run
+     */
+    @PostMapping(value = "/generate", produces = "application/json")
+    @ResponseStatus(HttpStatus.CREATED)
+    @StatementBudget(StatementBudget.UNLIMITED)
+    public GenerationResponse generate(@RequestBody GenerationSpec spec){
+        return new GenerationResponse(0, "generated", dataGeneratorService.generate(spec));
+    }
+}
@@ -1,6 +1,17 @@
 package tr.edu.itu.cavabunga.server.controller;
 
 import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import tr.edu.itu.cavabunga.server.http.Cursor;
+import tr.edu.itu.cavabunga.server.http.ETags;
+import tr.edu.itu.cavabunga.server.http.ImportResponse;
+import tr.edu.itu.cavabunga.server.http.PagedResponse;
+import tr.edu.itu.cavabunga.server.http.SyncResponse;
+import tr.edu.itu.cavabunga.server.http.ViewResponse;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
+import tr.edu.itu.cavabunga.server.service.HeavyRequestService;
+import tr.edu.itu.cavabunga.lib.entity.Component;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
 import tr.edu.itu.cavabunga.lib.http.ComponentResponse;
 import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
@@ -11,8 +22,19 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
 
 @RestController
 @RequestMapping(path = "/participant")
@@ -20,22 +42,41 @@ import org.springframework.web.bind.annotation.*;
 public class ParticipantController {
    private CalendarManagerService calendarManagerService;
 
+    private HeavyRequestService heavyRequestService;
+
     @Autowired
-    public ParticipantController(CalendarManagerService calendarManagerService) {
+    public ParticipantController(CalendarManagerService calendarManagerService, HeavyRequestService heavyRequestService) {
         this.calendarManagerService = calendarManagerService;
+        this.heavyRequestService = heavyRequestService;
     }
 
-    @ApiOperation(value ="View all participants available", response = Iterable.class)
+    @ApiOperation(value ="View participants available, one page at a time ordered by id, as shallow views when depth or fields is given", response = Iterable.class)
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved list of participants",response = ParticipantResponse.class),
+            @ApiResponse(code = 200, message = "Successfully retrieved list of participants",response = PagedResponse.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
             @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
             @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
             @ApiResponse(code = 404, message = "No participants found", response = ErrorResponse.class),
     })
     @GetMapping(produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
-    public ParticipantResponse getAllParticipants(){
-        return new ParticipantResponse(0,null, calendarManagerService.getAllParticipants());
+    public PagedResponse<?> getAllParticipants(@RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "size", defaultValue = PagedResponse.DEFAULT_SIZE) int size,
+                                               @RequestParam(value = "depth", required = false) Integer depth,
+                                               @RequestParam(value = "fields", required = false) String fields){
+        int limit = PagedResponse.limit(size);
+        if (ViewResponse.requested(depth, fields)) {
+            return PagedResponse.of(
+                    calendarManagerService.getParticipantViews(Cursor.decode(cursor), limit + 1, depth == null ? 0 : depth, ViewResponse.fields(fields)),
+                    limit,
+                    view -> (Long) view.get("id")
+            );
+        }
+        return PagedResponse.of(
+                calendarManagerService.getParticipants(Cursor.decode(cursor), limit + 1),
+                limit,
+                Participant::getId
+        );
     }
 
     @ApiOperation(value = "Create new participant", response = Iterable.class)
@@ -53,7 +94,7 @@ public class ParticipantController {
         return new Response(0,"created");
     }
 
-    @ApiOperation(value = "Get participant with username = {user_name}", response = Object.class)
+    @ApiOperation(value = "Get participant with username = {user_name}, as shallow view when depth or fields is given", response = Object.class)
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully retrive a participant with username = {user_name}", response = ParticipantResponse.class),
             @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
@@ -62,23 +103,177 @@ public class ParticipantController {
             @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class)
     })
     @GetMapping(value = "/{user_name}", produces = "application/json")
+    @StatementBudget(25)
     @ResponseStatus(HttpStatus.OK)
-    public ParticipantResponse getParticipant(@PathVariable(value = "user_name") String userName){
+    public Object getParticipant(@PathVariable(value = "user_name") String userName,
+                                 @RequestParam(value = "depth", required = false) Integer depth,
+                                 @RequestParam(value = "fields", required = false) String fields){
+        if (ViewResponse.requested(depth, fields)) {
+            return new ViewResponse(0, null, calendarManagerService.getParticipantView(userName, depth == null ? 0 : depth, ViewResponse.fields(fields)));
+        }
         return new ParticipantResponse(0,null,calendarManagerService.getParticipantByUserName(userName));
     }
 
-    @ApiOperation(value = "Get component which owned by participant with username = {user_name}", response = Object.class)
+    @ApiOperation(value = "Get component which owned by participant with username = {user_name}, one page at a time ordered by id (as shallow views when depth or fields is given) or all events overlapping [start, end)", response = Object.class)
     @ApiResponses({
-            @ApiResponse(code = 200, message = "Successfully retrieve a components owned by participant with username = {user_name}", response = ComponentResponse.class),
+            @ApiResponse(code = 200, message = "Successfully retrieve a components owned by participant with username = {user_name}", response = PagedResponse.class),
+            @ApiResponse(code = 304, message = "Components owned by participant with username = {user_name} not modified since If-None-Match/If-Modified-Since"),
             @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
             @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
             @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
-            @ApiResponse(code = 404, message = "No component found which owned by participant with username = {user_name}", response = ErrorResponse.class)
+            @ApiResponse(code = 404, message = "No component found which owned by participant with username = {user_name}", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class)
     })
     @GetMapping(value = "/{user_name}/components", produces = "application/json")
+    public DeferredResult<ResponseEntity<String>> getComponentByOwner(@PathVariable(value = "user_name") String userName,
+                                                                      @RequestParam(value = "start", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date start,
+                                                                      @RequestParam(value = "end", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date end,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                                      @RequestParam(value = "size", defaultValue = PagedResponse.DEFAULT_SIZE) int size,
+                                                                      @RequestParam(value = "depth", required = false) Integer depth,
+                                                                      @RequestParam(value = "fields", required = false) String fields,
+                                                                      WebRequest webRequest){
+        OwnerVersion version = calendarManagerService.getOwnerVersion(userName);
+        if (ETags.notModified(webRequest, ETags.of(version), version.getLastModified())) {
+            return ETags.notModifiedResult();
+        }
+        // component trees are serialized by the business layer, inside the transaction that loaded them
+        if (start != null || end != null) {
+            return heavyRequestService.submit("owner-components", () -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .body(calendarManagerService.getSerializedComponentsByOwner(userName, start, end)));
+        }
+        int limit = PagedResponse.limit(size);
+        if (ViewResponse.requested(depth, fields)) {
+            return heavyRequestService.submitJson("owner-components", () -> PagedResponse.of(
+                    calendarManagerService.getComponentViewsByOwner(userName, Cursor.decode(cursor), limit + 1, depth == null ? 0 : depth, ViewResponse.fields(fields)),
+                    limit,
+                    view -> (Long) view.get("id")
+            ));
+        }
+        return heavyRequestService.submit("owner-components", () -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(calendarManagerService.getSerializedComponentsByOwner(userName, Cursor.decode(cursor), limit)));
+    }
+
+    @ApiOperation(value = "Get component with iCalendar UID = {uid} of participant with username = {user_name}")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully get component with UID = {uid}", response = ComponentResponse.class),
+            @ApiResponse(code = 304, message = "Component with UID = {uid} not modified since If-None-Match/If-Modified-Since"),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No component found with UID = {uid}", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/{user_name}/uid/{uid:.+}", produces = "application/json")
+    public ResponseEntity<String> getComponentByUid(@PathVariable(value = "user_name") String userName,
+                                                    @PathVariable(value = "uid") String uid,
+                                                    WebRequest webRequest){
+        Long componentId = calendarManagerService.getComponentIdByUid(userName, uid);
+        ComponentVersion version = calendarManagerService.getComponentVersion(componentId);
+        if (ETags.notModified(webRequest, ETags.of(version), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(calendarManagerService.getSerializedComponentById(componentId));
+    }
+
+    @ApiOperation(value = "Create or replace component with iCalendar UID = {uid} of participant with username = {user_name}")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successfully save component with UID = {uid}", response = Response.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name} or no parent component found", response = ErrorResponse.class),
+            @ApiResponse(code = 409, message = "Conflict", response = ErrorResponse.class)
+    })
+    @PutMapping(value = "/{user_name}/uid/{uid:.+}", produces = "application/json")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Response putComponentByUid(@PathVariable(value = "user_name") String userName,
+                                      @PathVariable(value = "uid") String uid,
+                                      @RequestParam(value = "parent_component_id", required = false) Long parentComponentId,
+                                      @RequestBody Component component){
+        calendarManagerService.putComponentByUid(userName, uid, parentComponentId, component);
+        return new Response(0, "saved");
+    }
+
+    @ApiOperation(value = "Export calendars of participant with username = {user_name} as iCalendar")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully export calendars of participant with username = {user_name}"),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/{user_name}/calendar.ics", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> exportCalendars(@PathVariable(value = "user_name") String userName){
+        // resolve the participant up front so a missing one is still answered with 404 instead of a broken stream
+        calendarManagerService.getParticipantByUserName(userName);
+        StreamingResponseBody body = heavyRequestService.stream(
+                "export",
+                outputStream -> calendarManagerService.exportCalendars(userName, outputStream)
+        );
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/calendar; charset=UTF-8"))
+                .header("Content-Disposition", "attachment; filename=\"" + userName + ".ics\"")
+                .body(body);
+    }
+
+    @ApiOperation(value = "Import iCalendar text as new calendars of participant with username = {user_name}")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successfully import calendars of participant with username = {user_name}", response = ImportResponse.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class)
+    })
+    @PostMapping(value = "/{user_name}/calendar.ics", consumes = "text/calendar", produces = "application/json")
+    @StatementBudget(StatementBudget.UNLIMITED)
+    public DeferredResult<ResponseEntity<ImportResponse>> importCalendars(@PathVariable(value = "user_name") String userName, InputStream body) {
+        // the body is read on the executor thread, the request stays open until the result is set
+        return heavyRequestService.submit("import", () -> {
+            try {
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(new ImportResponse(0, "imported", calendarManagerService.importCalendars(userName, body)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @ApiOperation(value = "Get running and recent imports of participant with username = {user_name}")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieve imports of participant with username = {user_name}", response = ImportResponse.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/{user_name}/imports", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public ImportResponse getImports(@PathVariable(value = "user_name") String userName){
+        return new ImportResponse(0, null, calendarManagerService.getImports(userName));
+    }
+
+    @ApiOperation(value = "Get components of participant with username = {user_name} created, modified or deleted since the given sync token")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieve changes of participant with username = {user_name}", response = SyncResponse.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/{user_name}/changes", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
-    public ComponentResponse getComponentByOwner(@PathVariable(value = "user_name") String userName){
-        return new ComponentResponse(0, null, calendarManagerService.getComponentByOwner(userName));
+    public SyncResponse getChanges(@PathVariable(value = "user_name") String userName,
+                                   @RequestParam(value = "since", required = false) String since,
+                                   @RequestParam(value = "size", defaultValue = PagedResponse.DEFAULT_SIZE) int size){
+        Long sinceSequence = Cursor.decode(since);
+        int limit = PagedResponse.limit(size);
+        return SyncResponse.of(calendarManagerService.getChanges(userName, sinceSequence, limit + 1), limit, sinceSequence);
     }
 
     @ApiOperation(value = "Delete participant with id = {user_id}")
@@ -6,6 +6,7 @@ import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
 import tr.edu.itu.cavabunga.lib.http.ParameterResponse;
 import tr.edu.itu.cavabunga.lib.http.PropertyResponse;
 import tr.edu.itu.cavabunga.lib.http.Response;
+import tr.edu.itu.cavabunga.server.http.ViewResponse;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -42,7 +43,7 @@ public class PropertyController {
         return new Response(0,"created");
     }
 
-    @ApiOperation(value = "Get property with id = {property_id}")
+    @ApiOperation(value = "Get property with id = {property_id}, as shallow view when depth or fields is given")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully retrive property with id = {property_id}", response = PropertyResponse.class),
             @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
@@ -52,7 +53,12 @@ public class PropertyController {
     })
     @GetMapping(value = "/{property_id}", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
-    public PropertyResponse getProperty(@PathVariable(value = "property_id") Long propertyId) {
+    public Object getProperty(@PathVariable(value = "property_id") Long propertyId,
+                              @RequestParam(value = "depth", required = false) Integer depth,
+                              @RequestParam(value = "fields", required = false) String fields) {
+        if (ViewResponse.requested(depth, fields)) {
+            return new ViewResponse(0, null, calendarManagerService.getPropertyView(propertyId, depth == null ? 0 : depth, ViewResponse.fields(fields)));
+        }
         return new PropertyResponse(0,null,calendarManagerService.getPropertyById(propertyId));
     }
 
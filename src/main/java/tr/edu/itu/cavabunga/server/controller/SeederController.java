@@ -8,6 +8,7 @@ import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
 import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
 import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
 import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
 import tr.edu.itu.cavabunga.server.service.IcalService;
 import tr.edu.itu.cavabunga.server.service.ParticipantService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,7 @@ public class SeederController {
 
     @GetMapping
     @Transactional
+    @StatementBudget(StatementBudget.UNLIMITED)
     public String seedDataBase(){
         participantService.saveParticipant(participantService.createParticipant("testuser", ParticipantType.User));
         participantService.saveParticipant(participantService.createParticipant("testgroup", ParticipantType.Group));
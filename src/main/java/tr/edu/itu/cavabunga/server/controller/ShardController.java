@@ -0,0 +1,80 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
+import tr.edu.itu.cavabunga.server.http.ShardResponse;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
+import tr.edu.itu.cavabunga.server.service.HeavyRequestService;
+import tr.edu.itu.cavabunga.server.service.ShardMapService;
+import tr.edu.itu.cavabunga.server.service.ShardMoveService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.LinkedHashMap;
+
+@RestController
+@RequestMapping(path = "/shard")
+@Api(value = "Shard controller", description = "Shard map of participants and moves between shards")
+public class ShardController {
+    private ShardMapService shardMapService;
+
+    private ShardMoveService shardMoveService;
+
+    private HeavyRequestService heavyRequestService;
+
+    @Autowired
+    public ShardController(ShardMapService shardMapService,
+                           ShardMoveService shardMoveService,
+                           HeavyRequestService heavyRequestService) {
+        this.shardMapService = shardMapService;
+        this.shardMoveService = shardMoveService;
+        this.heavyRequestService = heavyRequestService;
+    }
+
+    @ApiOperation(value = "Get number of participants on every shard")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieve participants per shard", response = ShardResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class)
+    })
+    @GetMapping(produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public ShardResponse getShards(){
+        return new ShardResponse(0, null, null, new LinkedHashMap<>(shardMapService.countParticipants()));
+    }
+
+    @ApiOperation(value = "Get shard of participant with username = {user_name}")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieve shard of participant with username = {user_name}", response = ShardResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/participant/{user_name}", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public ShardResponse getShardOfParticipant(@PathVariable(value = "user_name") String userName){
+        return new ShardResponse(0, null, shardMapService.getShardOfParticipant(userName), null);
+    }
+
+    @ApiOperation(value = "Move calendars of participant with username = {user_name} to another shard")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully moved participant, data holds rows moved per table", response = ShardResponse.class),
+            @ApiResponse(code = 400, message = "Unknown shard or participant is on the shard already", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class),
+            @ApiResponse(code = 404, message = "No participant found with username = {user_name}", response = ErrorResponse.class),
+            @ApiResponse(code = 409, message = "Participant is being moved already", response = ErrorResponse.class),
+            @ApiResponse(code = 503, message = "Too many requests of this kind running, retry later", response = ErrorResponse.class)
+    })
+    @PostMapping(value = "/participant/{user_name}", produces = "application/json")
+    @StatementBudget(StatementBudget.UNLIMITED)
+    public DeferredResult<ShardResponse> moveParticipant(@PathVariable(value = "user_name") String userName,
+                                                         @RequestParam(value = "shard") String shard){
+        return heavyRequestService.submit("shard-move", () ->
+                new ShardResponse(0, "moved", shard, new LinkedHashMap<>(shardMoveService.move(userName, shard))));
+    }
+}
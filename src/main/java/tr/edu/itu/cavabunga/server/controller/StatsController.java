@@ -0,0 +1,36 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.lib.http.ErrorResponse;
+import tr.edu.itu.cavabunga.server.cache.CacheRegistry;
+import tr.edu.itu.cavabunga.server.http.CacheStatsResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "/stats")
+@Api(value = "Stats controller", description = "Runtime statistics of the server")
+public class StatsController {
+    private CacheRegistry cacheRegistry;
+
+    @Autowired
+    public StatsController(CacheRegistry cacheRegistry) {
+        this.cacheRegistry = cacheRegistry;
+    }
+
+    @ApiOperation(value = "Get hit/miss/eviction counters of the near caches")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieve cache statistics", response = CacheStatsResponse.class),
+            @ApiResponse(code = 401, message = "Unauthorized request", response = ErrorResponse.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = ErrorResponse.class)
+    })
+    @GetMapping(value = "/caches", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public CacheStatsResponse getCacheStats(){
+        return new CacheStatsResponse(0, null, cacheRegistry.stats());
+    }
+}
@@ -0,0 +1,95 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+/**
+ * Read-your-writes state of one client request. A client that wrote within the last
+ * cavabunga.datasource.read-your-writes-millis carries the time of its last write in a cookie,
+ * its read-only transactions then go to the primary until replicas have caught up.
+ *
+ * Bound to the request thread by ReadYourWritesFilter and handed on to the threads doing work for the request.
+ */
+public class ReadYourWrites {
+    public static final String COOKIE = "cavabunga_last_write";
+
+    public static final String ATTRIBUTE = ReadYourWrites.class.getName();
+
+    private static final ThreadLocal<ReadYourWrites> CURRENT = new ThreadLocal<>();
+
+    private final long primaryUntil;
+
+    private final long windowMillis;
+
+    private volatile long lastWrite = 0;
+
+    /**
+     * @param lastWrite time of the client's last write in epoch millis, 0 when unknown
+     * @param windowMillis time after a write during which reads go to the primary
+     */
+    public ReadYourWrites(long lastWrite, long windowMillis) {
+        this.primaryUntil = lastWrite > 0 ? lastWrite + windowMillis : 0;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return true when reads of this request must not go to a replica
+     */
+    public boolean isPrimaryRequired() {
+        return lastWrite > 0 || System.currentTimeMillis() < primaryUntil;
+    }
+
+    /**
+     * records a committed write of this request
+     */
+    public void written() {
+        lastWrite = System.currentTimeMillis();
+    }
+
+    /**
+     * @return time of the last write committed by this request, 0 when it didn't write
+     */
+    public long getLastWrite() {
+        return lastWrite;
+    }
+
+    /**
+     * @return Set-Cookie header value carrying the last write of this request
+     */
+    public String cookie() {
+        return COOKIE + "=" + lastWrite + "; Max-Age=" + Math.max(1, (windowMillis + 999) / 1000) + "; Path=/; HttpOnly";
+    }
+
+    /**
+     * @return state bound to the current thread or null outside of requests
+     */
+    public static ReadYourWrites current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param readYourWrites state to bind to the current thread, null unbinds
+     */
+    public static void bind(ReadYourWrites readYourWrites) {
+        if (readYourWrites == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(readYourWrites);
+        }
+    }
+
+    /**
+     * task decorator handing the state of the submitting thread to the executing one
+     *
+     * @param task task submitted on behalf of a request
+     * @return task running with the submitter's state bound
+     */
+    public static Runnable propagate(Runnable task) {
+        ReadYourWrites readYourWrites = current();
+        return () -> {
+            bind(readYourWrites);
+            try {
+                task.run();
+            } finally {
+                bind(null);
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Binds the ReadYourWrites state of the request, restored from the client's last write cookie,
+ * when cavabunga.datasource.read-your-writes is enabled
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private boolean enabled;
+
+    private long windowMillis;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param enabled whether clients read their own writes
+     * @param windowMillis upper bound of the replication lag, reads go to the primary this long after a write
+     */
+    @Autowired
+    public ReadYourWritesFilter(
+            @Value("${cavabunga.datasource.read-your-writes:true}") boolean enabled,
+            @Value("${cavabunga.datasource.read-your-writes-millis:5000}") long windowMillis
+    ) {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadYourWrites readYourWrites = new ReadYourWrites(lastWrite(request), windowMillis);
+        request.setAttribute(ReadYourWrites.ATTRIBUTE, readYourWrites);
+        ReadYourWrites.bind(readYourWrites);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.bind(null);
+        }
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, ReadYourWrites.COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            // a forged time can only send the client's own reads to the primary for one window
+            return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
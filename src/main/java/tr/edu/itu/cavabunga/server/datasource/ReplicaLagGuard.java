@@ -0,0 +1,47 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps reads of a lagging replica out of a cache. Replicas trail the primary by up to
+ * cavabunga.datasource.read-your-writes-millis, a value read from a replica within that time after
+ * the last write to the cached data may predate the write, it is served but not cached. Values read
+ * from the primary are always cacheable.
+ */
+public class ReplicaLagGuard {
+    private final long lagMillis;
+
+    private volatile long lastWrite = 0;
+
+    /**
+     * @param lagMillis upper bound of the replication lag
+     */
+    public ReplicaLagGuard(long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    /**
+     * records a write to the cached data, called along with its invalidation. Inside a transaction the
+     * write is recorded again once it completes, replicas only start to catch up after the commit
+     */
+    public void written() {
+        lastWrite = System.currentTimeMillis();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    lastWrite = System.currentTimeMillis();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true when values read by the current transaction may be cached
+     */
+    public boolean isCacheable() {
+        return !ReplicaRoutingDataSource.isCurrentTransactionOnReplica()
+                || System.currentTimeMillis() - lastWrite > lagMillis;
+    }
+}
@@ -0,0 +1,139 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replicas, round robin, and everything else to the primary.
+ *
+ * The transaction's read-only flag is only known once the transaction has begun, so this data
+ * source must be wrapped in a LazyConnectionDataSourceProxy which defers fetching the connection
+ * to the first statement. Read-only transactions of a client that wrote recently stay on the
+ * primary, see ReadYourWrites; every other transaction counts as a write once it commits.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private static final Object WRITE_TRACKED = new Object();
+
+    private static final Object REPLICA_READ = new Object();
+
+    private final Map<Object, Object> targets = new HashMap<>();
+
+    private final List<String> replicas = new ArrayList<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary data source of all writes and of reads while no replica is configured
+     * @param replicas data sources of read-only transactions, may be empty
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        targets.put(PRIMARY, primary);
+        for (DataSource replica : replicas) {
+            String key = "replica-" + this.replicas.size();
+            targets.put(key, replica);
+            this.replicas.add(key);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return data source of the primary, for reads that must not lag behind writes
+     */
+    public DataSource getPrimary() {
+        return (DataSource) targets.get(PRIMARY);
+    }
+
+    /**
+     * @return number of replicas reads are spread over
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        ReadYourWrites readYourWrites = ReadYourWrites.current();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(readYourWrites);
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || (readYourWrites != null && readYourWrites.isPrimaryRequired())) {
+            return PRIMARY;
+        }
+        trackReplicaRead();
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    /**
+     * @return true when the current transaction reads from a replica, which may lag behind the primary
+     */
+    public static boolean isCurrentTransactionOnReplica() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    /**
+     * closes the connection pools, called on shutdown
+     */
+    public void close() {
+        for (Object target : targets.values()) {
+            Method close = ReflectionUtils.findMethod(target.getClass(), "close");
+            if (close != null) {
+                try {
+                    close.invoke(target);
+                } catch (ReflectiveOperationException e) {
+                    LOGGER.warn("Data source {} couldn't be closed", target, e);
+                }
+            }
+        }
+    }
+
+    private static void trackReplicaRead() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+            }
+        });
+    }
+
+    private void trackWrite(ReadYourWrites readYourWrites) {
+        if (readYourWrites == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    readYourWrites.written();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+/**
+ * Shard the current thread works on. Bound by ShardRoutingAspect around calls of the business layer,
+ * connections fetched while it is bound come from that shard, otherwise from the default shard which
+ * also holds the participant directory.
+ *
+ * Within a request scope, opened by ShardContextFilter for every request, the shard of the last routed
+ * call stays current after the call returned. Entities the call returned are then lazily loaded from
+ * their own shard, e.g. while the response is serialized.
+ */
+public final class ShardContext {
+    public static final String DEFAULT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadLocal<String[]> REQUEST = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return shard bound to the current thread, else the shard retained by the request scope, else the default shard
+     */
+    public static String current() {
+        String shard = CURRENT.get();
+        if (shard == null && REQUEST.get() != null) {
+            shard = REQUEST.get()[0];
+        }
+        return shard != null ? shard : DEFAULT;
+    }
+
+    /**
+     * @return true when a shard is bound to the current thread
+     */
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @param shard shard to bind to the current thread, null unbinds
+     * @return shard bound before, null when none was bound
+     */
+    public static String bind(String shard) {
+        String previous = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    /**
+     * opens a request scope on the current thread, see retain
+     */
+    public static void openRequest() {
+        REQUEST.set(new String[1]);
+    }
+
+    /**
+     * closes the request scope of the current thread
+     */
+    public static void closeRequest() {
+        REQUEST.remove();
+    }
+
+    /**
+     * @param shard shard of a routed call that returned, stays current until the next routed call when
+     *              a request scope is open
+     */
+    public static void retain(String shard) {
+        String[] request = REQUEST.get();
+        if (request != null) {
+            request[0] = shard;
+        }
+    }
+
+    /**
+     * task decorator handing the shard and the request scope of the submitting thread to the executing one
+     *
+     * @param task task submitted on behalf of a shard or a request
+     * @return task running with the submitter's shard bound
+     */
+    public static Runnable propagate(Runnable task) {
+        String shard = CURRENT.get();
+        String[] request = REQUEST.get();
+        String retained = request != null ? request[0] : null;
+        return () -> {
+            String previous = bind(shard);
+            String[] previousRequest = REQUEST.get();
+            if (request != null) {
+                REQUEST.set(new String[]{retained});
+            }
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+                if (previousRequest != null) {
+                    REQUEST.set(previousRequest);
+                } else {
+                    REQUEST.remove();
+                }
+            }
+        };
+    }
+}
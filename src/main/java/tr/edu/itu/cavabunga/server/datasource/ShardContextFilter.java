@@ -0,0 +1,28 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Opens the ShardContext request scope, so that the shard of the last business call stays current while
+ * its result is turned into the response
+ */
+@Component
+public class ShardContextFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ShardContext.openRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardContext.closeRequest();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends connections to the shard bound by ShardContext, each shard being a primary with its replicas.
+ *
+ * Like ReplicaRoutingDataSource it must be wrapped in a LazyConnectionDataSourceProxy, the shard is
+ * then taken from the thread when the transaction runs its first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private final Map<String, ReplicaRoutingDataSource> shards = new LinkedHashMap<>();
+
+    /**
+     * @param shards data source of each shard by name, must contain ShardContext.DEFAULT
+     */
+    public ShardRoutingDataSource(Map<String, ReplicaRoutingDataSource> shards) {
+        Assert.isTrue(shards.containsKey(ShardContext.DEFAULT), "Shards must contain the default shard!");
+        this.shards.put(ShardContext.DEFAULT, shards.get(ShardContext.DEFAULT));
+        this.shards.putAll(shards);
+        setTargetDataSources(new HashMap<>(this.shards));
+        setDefaultTargetDataSource(shards.get(ShardContext.DEFAULT));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return names of all shards, the default shard first
+     */
+    public List<String> getShardNames() {
+        return new ArrayList<>(shards.keySet());
+    }
+
+    /**
+     * @param name shard name
+     * @return data source of the shard
+     * @throws IllegalArgumentException when no shard with given name is configured
+     */
+    public ReplicaRoutingDataSource getShard(String name) {
+        ReplicaRoutingDataSource shard = shards.get(name);
+        Assert.notNull(shard, "Unknown shard: " + name);
+        return shard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    /**
+     * closes the connection pools of all shards, called on shutdown
+     */
+    public void close() {
+        for (ReplicaRoutingDataSource shard : shards.values()) {
+            shard.close();
+        }
+    }
+}
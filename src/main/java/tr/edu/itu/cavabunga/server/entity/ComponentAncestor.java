@@ -0,0 +1,48 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Closure table of the component hierarchy, one row for every ancestor/descendant pair including
+ * the component itself at depth 0. Subtrees are read through the primary key, ancestors through
+ * the descendant index, both without walking the tree.
+ */
+@Entity
+@Table(name = "component_ancestor", indexes = {
+        @Index(name = "idx_component_ancestor_descendant", columnList = "descendant_id,depth")
+})
+@IdClass(ComponentAncestor.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComponentAncestor {
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ancestorId;
+
+        private Long descendantId;
+    }
+}
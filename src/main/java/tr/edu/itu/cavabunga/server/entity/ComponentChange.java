@@ -0,0 +1,51 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import tr.edu.itu.cavabunga.server.event.ChangeType;
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Append-only journal entry of a component change. The per owner sequence orders the journal in commit
+ * order and serves as sync token, see ComponentChangeSequence.
+ * Property and parameter writes are journaled as a modification of their component.
+ */
+@Entity
+@Table(name = "component_change", indexes = {
+        @Index(name = "idx_component_change_owner_sequence", columnList = "owner_id,sequence_no")
+})
+@Data
+public class ComponentChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "sequence_no", nullable = false)
+    private long sequence;
+
+    @Column(name = "component_id", nullable = false)
+    private Long componentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "changed_at", nullable = false)
+    private Date changedAt;
+}
@@ -0,0 +1,25 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Last journal sequence handed out for an owner. Writers take their sequences by incrementing the row
+ * inside the writing transaction, the row lock keeps them until commit, so sequences of an owner become
+ * visible strictly in order and a sync token can never skip an entry committed later.
+ */
+@Entity
+@Table(name = "component_change_sequence")
+@Data
+public class ComponentChangeSequence {
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
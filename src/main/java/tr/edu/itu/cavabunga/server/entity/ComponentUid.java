@@ -0,0 +1,31 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * iCalendar UID of a component, denormalized from its UID property on save so that a UID
+ * resolves to the component with one unique index lookup. Only series masters and
+ * non-recurring components are listed, a UID is unique per owner.
+ */
+@Entity
+@Table(name = "component_uid", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_component_uid_owner_uid", columnNames = {"owner_id", "uid"})
+})
+@Data
+public class ComponentUid {
+    @Id
+    @Column(name = "component_id")
+    private Long componentId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "uid", nullable = false)
+    private String uid;
+}
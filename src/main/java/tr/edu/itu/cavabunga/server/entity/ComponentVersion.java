@@ -0,0 +1,37 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Change counter of a component subtree, bumped whenever the component or any of its descendants,
+ * properties or parameters is written. Components never written since the counter was introduced have no row.
+ */
+@Entity
+@Table(name = "component_version")
+@Data
+@NoArgsConstructor
+public class ComponentVersion {
+    @Id
+    @Column(name = "component_id")
+    private Long componentId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "last_modified")
+    private Date lastModified;
+
+    public ComponentVersion(Long componentId) {
+        this.componentId = componentId;
+    }
+}
@@ -0,0 +1,66 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Denormalized time range of a schedulable component, extracted from its DTSTART/DTEND
+ * properties on save so that time range queries run as an index range scan.
+ * For recurring components the range spans the whole series and candidates are expanded afterwards.
+ * The owner range index covers every column, range queries never touch the table rows.
+ *
+ * Entries spanning more than MAX_SHORT_SPAN_MILLIS are flagged long_span. A short entry overlapping a
+ * window starts at most MAX_SHORT_SPAN_MILLIS before it, so short entries are found by a range scan
+ * bounded on both sides of start_date, only the few long entries (series, multi-day events) are
+ * scanned up to the end of the window.
+ */
+@Entity
+@Table(name = "event_index", indexes = {
+        @Index(name = "idx_event_index_owner_span_range", columnList = "owner_id,long_span,start_date,end_date,busy,recurring"),
+        @Index(name = "idx_event_index_owner_end", columnList = "owner_id,end_date")
+})
+@Data
+public class EventIndex {
+    @Id
+    @Column(name = "component_id")
+    private Long componentId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "start_date", nullable = false)
+    private Date startDate;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "end_date", nullable = false)
+    private Date endDate;
+
+    /**
+     * longest span of an entry which isn't flagged long_span, V3__event_index_long_span.sql uses the same bound
+     */
+    public static final long MAX_SHORT_SPAN_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    @Column(name = "recurring", nullable = false)
+    private boolean recurring;
+
+    /**
+     * false for components which don't block their time in free/busy, e.g. TRANSP:TRANSPARENT
+     */
+    @Column(name = "busy", nullable = false)
+    private boolean busy;
+
+    /**
+     * true when the entry spans more than MAX_SHORT_SPAN_MILLIS
+     */
+    @Column(name = "long_span", nullable = false)
+    private boolean longSpan;
+}
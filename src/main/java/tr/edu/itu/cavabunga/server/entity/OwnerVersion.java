@@ -0,0 +1,36 @@
+package tr.edu.itu.cavabunga.server.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Change counter of all components owned by a participant, bumped together with ComponentVersion
+ */
+@Entity
+@Table(name = "owner_version")
+@Data
+@NoArgsConstructor
+public class OwnerVersion {
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "last_modified")
+    private Date lastModified;
+
+    public OwnerVersion(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,10 @@
+package tr.edu.itu.cavabunga.server.event;
+
+/**
+ * kind of change applied to a component
+ */
+public enum ChangeType {
+    CREATED,
+    MODIFIED,
+    DELETED
+}
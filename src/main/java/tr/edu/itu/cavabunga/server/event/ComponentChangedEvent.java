@@ -0,0 +1,62 @@
+package tr.edu.itu.cavabunga.server.event;
+
+/**
+ * Published by IcalService whenever a component, one of its properties or one of their parameters is written.
+ * Listeners run inside the writing transaction.
+ */
+public class ComponentChangedEvent {
+    private final Long componentId;
+
+    private final Long parentId;
+
+    private final Long ownerId;
+
+    private final ChangeType changeType;
+
+    private final String uid;
+
+    /**
+     * @param componentId id of the changed component
+     * @param parentId id of the parent component, null for root components
+     * @param ownerId id of the owner participant, may be null
+     * @param changeType kind of the change
+     */
+    public ComponentChangedEvent(Long componentId, Long parentId, Long ownerId, ChangeType changeType) {
+        this(componentId, parentId, ownerId, changeType, null);
+    }
+
+    /**
+     * @param componentId id of the changed component
+     * @param parentId id of the parent component, null for root components
+     * @param ownerId id of the owner participant, may be null
+     * @param changeType kind of the change
+     * @param uid UID of the changed component, null when it has none or its properties were not loaded
+     */
+    public ComponentChangedEvent(Long componentId, Long parentId, Long ownerId, ChangeType changeType, String uid) {
+        this.componentId = componentId;
+        this.parentId = parentId;
+        this.ownerId = ownerId;
+        this.changeType = changeType;
+        this.uid = uid;
+    }
+
+    public Long getComponentId() {
+        return componentId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+}
@@ -0,0 +1,46 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+
+/**
+ * Single write of a batch request.
+ *
+ * A CREATE may declare tempId, later operations of the same batch refer to the new element by
+ * parentTempId (children) or tempId (delete) instead of its not yet known id. An update body must
+ * carry the id it updates, so elements created in the batch are sent in their final state instead.
+ * Only the body matching the target is read: component, property or parameter.
+ */
+@Data
+@NoArgsConstructor
+public class BatchOperation {
+    public enum Action { CREATE, UPDATE, DELETE }
+
+    public enum Target { COMPONENT, PROPERTY, PARAMETER }
+
+    private Action action;
+
+    private Target target;
+
+    private Long id;
+
+    private String tempId;
+
+    private Long parentId;
+
+    private String parentTempId;
+
+    /**
+     * owner of a created component
+     */
+    private String userName;
+
+    private Component component;
+
+    private Property property;
+
+    private Parameter parameter;
+}
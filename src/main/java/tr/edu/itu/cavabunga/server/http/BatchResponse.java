@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of batch requests, data holds the id each operation was applied to, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+    private Integer status;
+
+    private String message;
+
+    private List<Long> data;
+}
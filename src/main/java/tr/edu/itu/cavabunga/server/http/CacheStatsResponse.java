@@ -0,0 +1,22 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.server.cache.CacheStats;
+
+import java.util.List;
+
+/**
+ * Response of near cache statistics
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private Integer status;
+
+    private String message;
+
+    private List<CacheStats> data;
+}
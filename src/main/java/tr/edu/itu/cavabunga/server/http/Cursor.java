@@ -0,0 +1,43 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor, encodes the id of the last element of a page
+ */
+public final class Cursor {
+    private static final String PREFIX = "id:";
+
+    private Cursor() {
+    }
+
+    /**
+     * @param lastId id of the last element returned
+     * @return url safe token to continue after that element
+     */
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token token returned by encode, null for the first page
+     * @return id to continue after, 0 for the first page
+     * @throws IllegalArgumentException when token is not a valid cursor
+     */
+    public static Long decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return Long.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Date;
+
+/**
+ * Strong entity tags built from version counters, a conditional GET is answered without loading the resource
+ */
+public final class ETags {
+    private ETags() {
+    }
+
+    /**
+     * @param version version of a component subtree
+     * @return quoted entity tag, e.g. "c42-7"
+     */
+    public static String of(ComponentVersion version) {
+        return "\"c" + version.getComponentId() + "-" + version.getVersion() + "\"";
+    }
+
+    /**
+     * @param version version of the components of an owner
+     * @return quoted entity tag, e.g. "p3-12"
+     */
+    public static String of(OwnerVersion version) {
+        return "\"p" + version.getOwnerId() + "-" + version.getVersion() + "\"";
+    }
+
+    /**
+     * checks If-None-Match and If-Modified-Since, sets ETag and Last-Modified headers on the response
+     *
+     * @param request current request
+     * @param etag quoted entity tag of the resource
+     * @param lastModified last modification date, null when unknown
+     * @return true when the response status has been set to 304 and no body must be written
+     */
+    public static boolean notModified(WebRequest request, String etag, Date lastModified) {
+        if (lastModified == null) {
+            return request.checkNotModified(etag);
+        }
+        return request.checkNotModified(etag, lastModified.getTime());
+    }
+
+    /**
+     * @param <T> body type of the handler's responses
+     * @return completed result for asynchronous handlers whose notModified check succeeded, keeps the 304 and its headers
+     */
+    public static <T> DeferredResult<ResponseEntity<T>> notModifiedResult() {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+        result.setResult(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<T>build());
+        return result;
+    }
+}
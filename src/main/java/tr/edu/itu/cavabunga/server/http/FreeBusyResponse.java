@@ -0,0 +1,47 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.server.ical.BusyPeriod;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Response of free/busy requests, busy periods of the whole group merged
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeBusyResponse {
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Date start;
+
+        private Date end;
+    }
+
+    private Integer status;
+
+    private String message;
+
+    private List<Item> data;
+
+    /**
+     * @param status response status, 0 on success
+     * @param message response message
+     * @param periods busy periods
+     * @return response with periods converted to dates
+     */
+    public static FreeBusyResponse of(Integer status, String message, List<BusyPeriod> periods) {
+        List<Item> items = new ArrayList<>(periods.size());
+        for (BusyPeriod period : periods) {
+            items.add(new Item(Date.from(period.getStart()), Date.from(period.getEnd())));
+        }
+        return new FreeBusyResponse(status, message, items);
+    }
+}
@@ -0,0 +1,20 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.server.ical.GenerationResult;
+
+/**
+ * Response of synthetic data generation requests
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationResponse {
+    private Integer status;
+
+    private String message;
+
+    private GenerationResult data;
+}
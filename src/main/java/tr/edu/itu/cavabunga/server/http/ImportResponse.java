@@ -0,0 +1,27 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response of .ics import requests
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResponse {
+    private Integer status;
+
+    private String message;
+
+    private List<ImportProgress> data;
+
+    public ImportResponse(Integer status, String message, ImportProgress progress) {
+        this(status, message, Collections.singletonList(progress));
+    }
+}
@@ -0,0 +1,56 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Response of the expanded instances of a component
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccurrenceResponse {
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long componentId;
+
+        private Date recurrenceId;
+
+        private Date start;
+
+        private Date end;
+    }
+
+    private Integer status;
+
+    private String message;
+
+    private List<Item> data;
+
+    /**
+     * @param status response status, 0 on success
+     * @param message response message
+     * @param occurrences expanded occurrences
+     * @return response with occurrences converted to dates
+     */
+    public static OccurrenceResponse of(Integer status, String message, List<Occurrence> occurrences) {
+        List<Item> items = new ArrayList<>(occurrences.size());
+        for (Occurrence occurrence : occurrences) {
+            items.add(new Item(
+                    occurrence.getComponentId(),
+                    Date.from(occurrence.getRecurrenceId()),
+                    Date.from(occurrence.getStart()),
+                    Date.from(occurrence.getEnd())
+            ));
+        }
+        return new OccurrenceResponse(status, message, items);
+    }
+}
@@ -0,0 +1,53 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Response of keyset paginated listings, next is null on the last page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PagedResponse<T> {
+    public static final String DEFAULT_SIZE = "100";
+
+    public static final int MAX_SIZE = 500;
+
+    private Integer status;
+
+    private String message;
+
+    private List<T> data;
+
+    private String next;
+
+    /**
+     * @param requested page size asked by the client
+     * @return page size within [1, MAX_SIZE]
+     */
+    public static int limit(int requested) {
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+
+    /**
+     * builds a page from a result fetched with size + 1 rows, the extra row only signals a next page
+     *
+     * @param rows rows ordered by id, at most size + 1
+     * @param size page size
+     * @param idOf id of a row
+     * @param <T> row type
+     * @return page of at most size rows with a cursor when more rows exist
+     */
+    public static <T> PagedResponse<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new PagedResponse<>(0, null, rows, null);
+        }
+        List<T> page = rows.subList(0, size);
+        return new PagedResponse<>(0, null, page, Cursor.encode(idOf.apply(page.get(size - 1))));
+    }
+}
@@ -0,0 +1,24 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Response of shard map requests, shard names the participant's shard and data holds participants
+ * per shard or rows moved per table
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardResponse {
+    private Integer status;
+
+    private String message;
+
+    private String shard;
+
+    private Map<String, Number> data;
+}
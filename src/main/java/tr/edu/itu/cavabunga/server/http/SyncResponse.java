@@ -0,0 +1,72 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+import tr.edu.itu.cavabunga.server.event.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of sync requests, lists each changed component once with its net change and
+ * the token to pass as since on the next request. more is true when the delta did not fit
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    private Integer status;
+
+    private String message;
+
+    private List<Change> data;
+
+    private String token;
+
+    private boolean more;
+
+    /**
+     * net change of a single component
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private Long id;
+
+        private ChangeType change;
+    }
+
+    /**
+     * builds a response from journal entries fetched with size + 1 rows
+     *
+     * @param entries journal entries ordered by sequence, at most size + 1
+     * @param size maximum number of entries consumed
+     * @param sinceSequence journal sequence the client synced up to
+     * @return collapsed changes with the token of the last consumed entry
+     */
+    public static SyncResponse of(List<ComponentChange> entries, int size, Long sinceSequence) {
+        boolean more = entries.size() > size;
+        List<ComponentChange> consumed = more ? entries.subList(0, size) : entries;
+
+        Map<Long, ChangeType> changes = new LinkedHashMap<>();
+        for (ComponentChange entry : consumed) {
+            ChangeType previous = changes.remove(entry.getComponentId());
+            // a component created within the delta is still new to the client unless it is gone again
+            ChangeType change = previous == ChangeType.CREATED && entry.getChangeType() == ChangeType.MODIFIED
+                    ? ChangeType.CREATED
+                    : entry.getChangeType();
+            changes.put(entry.getComponentId(), change);
+        }
+        List<Change> data = new ArrayList<>(changes.size());
+        for (Map.Entry<Long, ChangeType> change : changes.entrySet()) {
+            data.add(new Change(change.getKey(), change.getValue()));
+        }
+        Long lastSequence = consumed.isEmpty() ? sinceSequence : consumed.get(consumed.size() - 1).getSequence();
+        return new SyncResponse(0, null, data, Cursor.encode(lastSequence), more);
+    }
+}
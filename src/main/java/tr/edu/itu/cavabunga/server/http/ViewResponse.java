@@ -0,0 +1,50 @@
+package tr.edu.itu.cavabunga.server.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Response of shallow views requested with depth and/or fields query parameters
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewResponse {
+    private Integer status;
+
+    private String message;
+
+    private Object data;
+
+    /**
+     * @param depth depth query parameter
+     * @param fields fields query parameter
+     * @return true when the client asked for a view instead of the full entity graph
+     */
+    public static boolean requested(Integer depth, String fields) {
+        return depth != null || fields != null;
+    }
+
+    /**
+     * @param fields comma separated keys, e.g. id,type,value
+     * @return set of keys, empty when fields is null or blank
+     */
+    public static Set<String> fields(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String field : Arrays.asList(fields.split(","))) {
+            if (!field.trim().isEmpty()) {
+                result.add(field.trim());
+            }
+        }
+        return result;
+    }
+}
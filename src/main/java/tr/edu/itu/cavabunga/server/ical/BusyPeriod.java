@@ -0,0 +1,67 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Busy time range [start, end) of a free/busy result
+ */
+public final class BusyPeriod {
+    private final Instant start;
+
+    private final Instant end;
+
+    public BusyPeriod(Instant start, Instant end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * clips the periods to [windowStart, windowEnd) and merges overlapping or adjacent ones
+     *
+     * @param periods periods in any order
+     * @param windowStart inclusive start of the window
+     * @param windowEnd exclusive end of the window
+     * @return disjoint periods ordered by start
+     */
+    public static List<BusyPeriod> merge(List<BusyPeriod> periods, Instant windowStart, Instant windowEnd) {
+        List<BusyPeriod> sorted = new ArrayList<>(periods);
+        sorted.sort(Comparator.comparing(BusyPeriod::getStart));
+
+        List<BusyPeriod> result = new ArrayList<>();
+        Instant currentStart = null;
+        Instant currentEnd = null;
+        for (BusyPeriod period : sorted) {
+            Instant start = period.start.isBefore(windowStart) ? windowStart : period.start;
+            Instant end = period.end.isAfter(windowEnd) ? windowEnd : period.end;
+            if (!start.isBefore(end)) {
+                continue;
+            }
+            if (currentEnd != null && !start.isAfter(currentEnd)) {
+                if (end.isAfter(currentEnd)) {
+                    currentEnd = end;
+                }
+                continue;
+            }
+            if (currentEnd != null) {
+                result.add(new BusyPeriod(currentStart, currentEnd));
+            }
+            currentStart = start;
+            currentEnd = end;
+        }
+        if (currentEnd != null) {
+            result.add(new BusyPeriod(currentStart, currentEnd));
+        }
+        return result;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+}
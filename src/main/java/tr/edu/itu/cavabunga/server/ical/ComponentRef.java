@@ -0,0 +1,30 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+/**
+ * Ids of a component and its parent and owner, enough to delete it and announce the deletion without loading it
+ */
+public final class ComponentRef {
+    private final Long id;
+
+    private final Long parentId;
+
+    private final Long ownerId;
+
+    public ComponentRef(Long id, Long parentId, Long ownerId) {
+        this.id = id;
+        this.parentId = parentId;
+        this.ownerId = ownerId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+}
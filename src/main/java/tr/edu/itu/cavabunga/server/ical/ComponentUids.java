@@ -0,0 +1,35 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+
+/**
+ * UID handling of components, overrides of a recurring series share the UID of their master
+ * and never own it.
+ */
+public final class ComponentUids {
+    private ComponentUids() {
+    }
+
+    /**
+     * @param component component to read
+     * @return trimmed UID of the component, null when it has none or overrides an instance of a series
+     */
+    public static String of(Component component) {
+        Property uid = EventTimes.findProperty(component, "UID");
+        if (uid == null || uid.getValue() == null || uid.getValue().trim().isEmpty()
+                || EventTimes.findProperty(component, "RECURRENCE-ID") != null) {
+            return null;
+        }
+        return uid.getValue().trim();
+    }
+
+    /**
+     * @param property property to check
+     * @return true when property decides which UID, if any, the component owns
+     */
+    public static boolean isUidProperty(Property property) {
+        String name = IcalNames.of(property);
+        return "UID".equals(name) || "RECURRENCE-ID".equals(name);
+    }
+}
@@ -0,0 +1,166 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Start and end instants of a schedulable component (VEVENT, VTODO, VJOURNAL)
+ * computed from its DTSTART, DTEND, DUE and DURATION properties
+ */
+public final class EventTimes {
+    private static final Set<String> SCHEDULABLE = new HashSet<>(Arrays.asList("VEVENT", "VTODO", "VJOURNAL"));
+    private static final Set<String> TIME_PROPERTIES = new HashSet<>(Arrays.asList("DTSTART", "DTEND", "DUE", "DURATION"));
+    private static final Set<String> SERIES_AND_BUSY_PROPERTIES = new HashSet<>(Arrays.asList("RRULE", "RDATE", "EXDATE", "TRANSP", "STATUS"));
+
+    private final Instant start;
+
+    private final Instant end;
+
+    private final boolean allDay;
+
+    private EventTimes(Instant start, Instant end, boolean allDay) {
+        this.start = start;
+        this.end = end;
+        this.allDay = allDay;
+    }
+
+    /**
+     * @param component component to check
+     * @return true when component type can carry a time range
+     */
+    public static boolean isSchedulable(Component component) {
+        return SCHEDULABLE.contains(IcalNames.of(component));
+    }
+
+    /**
+     * @param property property to check
+     * @return true when property takes part in the time range of its component
+     */
+    public static boolean isTimeProperty(Property property) {
+        return TIME_PROPERTIES.contains(IcalNames.of(property));
+    }
+
+    /**
+     * @param property property to check
+     * @return true when property is reflected in the event index: time range, recurrence set or busy state
+     */
+    public static boolean isIndexedProperty(Property property) {
+        return isTimeProperty(property) || SERIES_AND_BUSY_PROPERTIES.contains(IcalNames.of(property));
+    }
+
+    /**
+     * RFC 5545 free/busy time is taken from VEVENTs that are neither TRANSP:TRANSPARENT nor STATUS:CANCELLED
+     *
+     * @param component component to check
+     * @return true when component blocks its time range
+     */
+    public static boolean isBusy(Component component) {
+        if (!"VEVENT".equals(IcalNames.of(component))) {
+            return false;
+        }
+        Property transp = findProperty(component, "TRANSP");
+        Property status = findProperty(component, "STATUS");
+        return (transp == null || !"TRANSPARENT".equalsIgnoreCase(trim(transp.getValue())))
+                && (status == null || !"CANCELLED".equalsIgnoreCase(trim(status.getValue())));
+    }
+
+    /**
+     * computes time range of the given component
+     *
+     * @param component schedulable component
+     * @return time range or null when component has no valid DTSTART
+     */
+    public static EventTimes of(Component component) {
+        if (!isSchedulable(component)) {
+            return null;
+        }
+        Property dtstart = findProperty(component, "DTSTART");
+        if (dtstart == null || dtstart.getValue() == null) {
+            return null;
+        }
+        try {
+            boolean allDay = IcalTime.isDate(dtstart.getValue());
+            Instant start = IcalTime.parse(dtstart.getValue(), findParameterValue(dtstart, "TZID"));
+            Property dtend = findProperty(component, "DTEND");
+            if (dtend == null) {
+                dtend = findProperty(component, "DUE");
+            }
+            Property duration = findProperty(component, "DURATION");
+            Instant end;
+            if (dtend != null && dtend.getValue() != null) {
+                end = IcalTime.parse(dtend.getValue(), findParameterValue(dtend, "TZID"));
+            } else if (duration != null && duration.getValue() != null) {
+                end = start.plus(IcalTime.parseDuration(duration.getValue()));
+            } else {
+                end = allDay ? start.plus(Duration.ofDays(1)) : start;
+            }
+            if (end.isBefore(start)) {
+                end = start;
+            }
+            return new EventTimes(start, end, allDay);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param component component to search in
+     * @param name iCal property name
+     * @return first property of the component with given name or null
+     */
+    public static Property findProperty(Component component, String name) {
+        if (component.getProperties() == null) {
+            return null;
+        }
+        for (Property property : component.getProperties()) {
+            if (name.equals(IcalNames.of(property))) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param property property to search in
+     * @param name iCal parameter name
+     * @return value of the first parameter with given name or null
+     */
+    public static String findParameterValue(Property property, String name) {
+        if (property.getParameters() == null) {
+            return null;
+        }
+        for (Parameter parameter : property.getParameters()) {
+            if (name.equals(IcalNames.of(parameter))) {
+                return parameter.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    public Duration getDuration() {
+        return Duration.between(start, end);
+    }
+
+    public boolean isAllDay() {
+        return allDay;
+    }
+}
@@ -0,0 +1,56 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Counters of a synthetic data generation run
+ */
+@Getter
+public class GenerationResult {
+    private final GenerationSpec spec;
+
+    private final Date startedAt = new Date();
+
+    private Date finishedAt;
+
+    private long participants;
+
+    private long components;
+
+    private long properties;
+
+    private long parameters;
+
+    private long chunksCommitted;
+
+    /**
+     * @param spec spec the data is generated from
+     */
+    public GenerationResult(GenerationSpec spec) {
+        this.spec = spec;
+    }
+
+    public void participantCreated() {
+        participants++;
+    }
+
+    public void chunkCommitted(long components, long properties, long parameters) {
+        this.components += components;
+        this.properties += properties;
+        this.parameters += parameters;
+        this.chunksCommitted++;
+    }
+
+    public void completed() {
+        finishedAt = new Date();
+    }
+
+    /**
+     * @return elapsed milliseconds, up to now while the run is in progress
+     */
+    public long getElapsedMillis() {
+        return (finishedAt != null ? finishedAt : new Date()).getTime() - startedAt.getTime();
+    }
+}
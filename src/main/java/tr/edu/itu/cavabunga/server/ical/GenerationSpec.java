@@ -0,0 +1,44 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import lombok.Data;
+
+/**
+ * Shape of a synthetic dataset, every participant gets the same number of calendars and every
+ * calendar the same number of events. The same spec and seed always produce the same data.
+ */
+@Data
+public class GenerationSpec {
+    /**
+     * usernames are {@code <userNamePrefix>-<seed>-<n>}
+     */
+    private String userNamePrefix = "generated";
+
+    private int participants = 10;
+
+    private int calendarsPerParticipant = 1;
+
+    private int eventsPerCalendar = 100;
+
+    /**
+     * properties of an event including DTSTART, DTEND, DTSTAMP, UID, SUMMARY, RRULE and attendees,
+     * the rest is filled up with DESCRIPTION properties
+     */
+    private int propertiesPerEvent = 10;
+
+    /**
+     * parameters of each filler property
+     */
+    private int parametersPerProperty = 1;
+
+    /**
+     * share of events with an RRULE, between 0 and 1
+     */
+    private double recurrenceRatio = 0.1;
+
+    /**
+     * ATTENDEE properties per event, each with CN, CUTYPE, ROLE and PARTSTAT parameters
+     */
+    private int attendeesPerEvent = 3;
+
+    private long seed = 42;
+}
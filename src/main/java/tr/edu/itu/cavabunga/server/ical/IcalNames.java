@@ -0,0 +1,101 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import org.hibernate.Hibernate;
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps cavabunga entity classes to their RFC 5545 names.
+ *
+ * Entity classes are named after the iCal element they represent (Event, Dtstart, Cn ...),
+ * so the iCal name is derived from the simple class name with a few abbreviations resolved.
+ */
+public final class IcalNames {
+    private static final Map<String, String> COMPONENT_NAMES = new HashMap<>();
+    private static final Map<String, String> ELEMENT_NAMES = new HashMap<>();
+
+    static {
+        COMPONENT_NAMES.put("Calendar", "VCALENDAR");
+        COMPONENT_NAMES.put("Event", "VEVENT");
+        COMPONENT_NAMES.put("Todo", "VTODO");
+        COMPONENT_NAMES.put("Journal", "VJOURNAL");
+        COMPONENT_NAMES.put("Freebusy", "VFREEBUSY");
+        COMPONENT_NAMES.put("Timezone", "VTIMEZONE");
+        COMPONENT_NAMES.put("Alarm", "VALARM");
+        COMPONENT_NAMES.put("Standard", "STANDARD");
+        COMPONENT_NAMES.put("Daylight", "DAYLIGHT");
+
+        ELEMENT_NAMES.put("Lastmod", "LAST-MODIFIED");
+        ELEMENT_NAMES.put("Seq", "SEQUENCE");
+        ELEMENT_NAMES.put("Recurid", "RECURRENCE-ID");
+        ELEMENT_NAMES.put("Rstatus", "REQUEST-STATUS");
+        ELEMENT_NAMES.put("Percent", "PERCENT-COMPLETE");
+        ELEMENT_NAMES.put("Sentby", "SENT-BY");
+        ELEMENT_NAMES.put("Delfrom", "DELEGATED-FROM");
+        ELEMENT_NAMES.put("Delto", "DELEGATED-TO");
+    }
+
+    private IcalNames() {
+    }
+
+    /**
+     * @param component component entity
+     * @return iCal name of the component, e.g. VEVENT
+     */
+    public static String of(Component component) {
+        String simpleName = simpleName(component);
+        String name = COMPONENT_NAMES.get(simpleName);
+        return name != null ? name : "V" + simpleName.toUpperCase();
+    }
+
+    /**
+     * @param property property entity
+     * @return iCal name of the property, e.g. DTSTART
+     */
+    public static String of(Property property) {
+        if (property.getName() != null && !property.getName().isEmpty()) {
+            return property.getName().toUpperCase();
+        }
+        return elementName(simpleName(property));
+    }
+
+    /**
+     * @param parameter parameter entity
+     * @return iCal name of the parameter, e.g. TZID
+     */
+    public static String of(Parameter parameter) {
+        if (parameter.getName() != null && !parameter.getName().isEmpty()) {
+            return parameter.getName().toUpperCase();
+        }
+        return elementName(simpleName(parameter));
+    }
+
+    /**
+     * @param typeName name of a ComponentType constant or component class
+     * @return iCal name of the component type
+     */
+    public static String componentName(String typeName) {
+        String name = COMPONENT_NAMES.get(typeName);
+        return name != null ? name : "V" + typeName.toUpperCase();
+    }
+
+    /**
+     * @param typeName name of a PropertyType / ParameterType constant or entity class
+     * @return iCal name of the property or parameter type
+     */
+    public static String elementName(String typeName) {
+        String name = ELEMENT_NAMES.get(typeName);
+        if (name != null) {
+            return name;
+        }
+        return typeName.replaceAll("([a-z])([A-Z])", "$1-$2").toUpperCase();
+    }
+
+    private static String simpleName(Object entity) {
+        return Hibernate.getClass(entity).getSimpleName();
+    }
+}
@@ -0,0 +1,159 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Incremental RFC 5545 reader, unfolds and parses one content line at a time
+ * so that arbitrarily large .ics input is processed with constant memory
+ */
+public class IcalReader implements Closeable {
+    /**
+     * single parsed content line
+     */
+    public static final class ContentLine {
+        private final String name;
+
+        private final List<String[]> parameters;
+
+        private final String value;
+
+        ContentLine(String name, List<String[]> parameters, String value) {
+            this.name = name;
+            this.parameters = parameters;
+            this.value = value;
+        }
+
+        /**
+         * @return upper case property name, e.g. DTSTART, BEGIN
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return parameter name/value pairs with upper case names and unquoted values
+         */
+        public List<String[]> getParameters() {
+            return parameters;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private final BufferedReader reader;
+
+    private String lookahead;
+
+    private long lineNumber = 0;
+
+    /**
+     * @param inputStream UTF-8 encoded iCalendar input
+     */
+    public IcalReader(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return next content line or null at end of input
+     * @throws IOException when underlying stream fails
+     * @throws IllegalArgumentException when a content line is malformed
+     */
+    public ContentLine next() throws IOException {
+        String line = nextUnfoldedLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = nextUnfoldedLine();
+        }
+        return line == null ? null : parse(line);
+    }
+
+    /**
+     * @return number of physical lines read so far
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextUnfoldedLine() throws IOException {
+        String line = lookahead != null ? lookahead : readPhysicalLine();
+        lookahead = null;
+        if (line == null) {
+            return null;
+        }
+        StringBuilder unfolded = new StringBuilder(line);
+        String next = readPhysicalLine();
+        while (next != null && !next.isEmpty() && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+            unfolded.append(next, 1, next.length());
+            next = readPhysicalLine();
+        }
+        lookahead = next;
+        return unfolded.toString();
+    }
+
+    private String readPhysicalLine() throws IOException {
+        String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+        }
+        return line;
+    }
+
+    private ContentLine parse(String line) {
+        int position = 0;
+        while (position < line.length() && line.charAt(position) != ';' && line.charAt(position) != ':') {
+            position++;
+        }
+        if (position == 0 || position >= line.length()) {
+            throw new IllegalArgumentException("Malformed iCalendar content line " + lineNumber + ": " + line);
+        }
+        String name = line.substring(0, position).trim().toUpperCase();
+
+        List<String[]> parameters = Collections.emptyList();
+        while (line.charAt(position) == ';') {
+            int nameEnd = line.indexOf('=', position);
+            if (nameEnd < 0) {
+                throw new IllegalArgumentException("Malformed parameter on line " + lineNumber + ": " + line);
+            }
+            String parameterName = line.substring(position + 1, nameEnd).trim().toUpperCase();
+            StringBuilder parameterValue = new StringBuilder();
+            boolean quoted = false;
+            position = nameEnd + 1;
+            while (position < line.length()) {
+                char c = line.charAt(position);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (c == ';' || c == ':')) {
+                    break;
+                } else {
+                    parameterValue.append(c);
+                }
+                position++;
+            }
+            if (position >= line.length()) {
+                throw new IllegalArgumentException("Missing value on line " + lineNumber + ": " + line);
+            }
+            if (parameters.isEmpty()) {
+                parameters = new ArrayList<>();
+            }
+            parameters.add(new String[]{parameterName, parameterValue.toString()});
+        }
+        return new ContentLine(name, parameters, line.substring(position + 1));
+    }
+}
@@ -0,0 +1,124 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsing helpers for RFC 5545 DATE, DATE-TIME and DURATION values
+ */
+public final class IcalTime {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private IcalTime() {
+    }
+
+    /**
+     * @param value DATE or DATE-TIME value
+     * @return true when value is a DATE (no time part)
+     */
+    public static boolean isDate(String value) {
+        return value != null && value.trim().length() == 8;
+    }
+
+    /**
+     * parses a DATE or DATE-TIME value to local date time in its own zone
+     *
+     * @param value DATE (20160423), local DATE-TIME (20160423T170000) or UTC DATE-TIME (20160423T170000Z)
+     * @return parsed local date time, DATE values start at midnight
+     * @throws IllegalArgumentException when value is not a valid DATE or DATE-TIME
+     */
+    public static LocalDateTime parseLocal(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Date value must not be null!");
+        }
+        String trimmed = value.trim();
+        try {
+            if (isDate(trimmed)) {
+                return LocalDate.parse(trimmed, DATE).atStartOfDay();
+            }
+            if (trimmed.endsWith("Z")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 1);
+            }
+            return LocalDateTime.parse(trimmed, DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid iCal date value: " + value, e);
+        }
+    }
+
+    /**
+     * resolves a DATE or DATE-TIME value to an instant
+     *
+     * @param value DATE or DATE-TIME value
+     * @param tzid TZID parameter of the value, floating and DATE values fall back to UTC when null
+     * @return parsed instant
+     * @throws IllegalArgumentException when value is not a valid DATE or DATE-TIME
+     */
+    public static Instant parse(String value, String tzid) {
+        LocalDateTime local = parseLocal(value);
+        return local.atZone(zoneOf(value, tzid)).toInstant();
+    }
+
+    /**
+     * @param value DATE or DATE-TIME value
+     * @param tzid TZID parameter of the value or null
+     * @return zone the value is expressed in
+     */
+    public static ZoneId zoneOf(String value, String tzid) {
+        if (value != null && value.trim().endsWith("Z")) {
+            return ZoneOffset.UTC;
+        }
+        if (tzid != null) {
+            try {
+                return ZoneId.of(tzid);
+            } catch (DateTimeException e) {
+                return ZoneOffset.UTC;
+            }
+        }
+        return ZoneOffset.UTC;
+    }
+
+    /**
+     * parses a DURATION value, including week form (P2W)
+     *
+     * @param value DURATION value
+     * @return parsed duration
+     * @throws IllegalArgumentException when value is not a valid DURATION
+     */
+    public static Duration parseDuration(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Duration value must not be null!");
+        }
+        String trimmed = value.trim();
+        boolean negative = trimmed.startsWith("-");
+        if (negative || trimmed.startsWith("+")) {
+            trimmed = trimmed.substring(1);
+        }
+        try {
+            Duration result;
+            if (trimmed.endsWith("W")) {
+                result = Duration.ofDays(7 * Long.parseLong(trimmed.substring(1, trimmed.length() - 1)));
+            } else {
+                result = Duration.parse(trimmed);
+            }
+            return negative ? result.negated() : result;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid iCal duration value: " + value, e);
+        }
+    }
+
+    /**
+     * @param instant instant to format
+     * @return UTC DATE-TIME value, e.g. 20160423T170000Z
+     */
+    public static String format(Instant instant) {
+        return DATE_TIME.format(instant.atOffset(ZoneOffset.UTC)) + "Z";
+    }
+}
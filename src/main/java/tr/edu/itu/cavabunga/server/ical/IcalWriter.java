@@ -0,0 +1,125 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes RFC 5545 content lines, folding them at 75 octets without splitting UTF-8 sequences.
+ *
+ * Values are written in the textual form they are stored in, only line breaks are escaped
+ * so that a value can never terminate its content line.
+ */
+public class IcalWriter implements Closeable, Flushable {
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private static final String CRLF = "\r\n";
+
+    private final Writer writer;
+
+    /**
+     * @param outputStream target stream, written as UTF-8
+     */
+    public IcalWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 8192);
+    }
+
+    /**
+     * @param name component name, e.g. VEVENT
+     * @throws IOException when underlying stream fails
+     */
+    public void begin(String name) throws IOException {
+        writeLine("BEGIN:" + name);
+    }
+
+    /**
+     * @param name component name, e.g. VEVENT
+     * @throws IOException when underlying stream fails
+     */
+    public void end(String name) throws IOException {
+        writeLine("END:" + name);
+    }
+
+    /**
+     * writes a property content line
+     *
+     * @param name property name
+     * @param parameters parameter name/value pairs, may be empty
+     * @param value property value, null is written as empty value
+     * @throws IOException when underlying stream fails
+     */
+    public void property(String name, List<String[]> parameters, String value) throws IOException {
+        StringBuilder line = new StringBuilder(name);
+        for (String[] parameter : parameters) {
+            line.append(';').append(parameter[0]).append('=').append(parameterValue(parameter[1]));
+        }
+        line.append(':').append(escapeLineBreaks(value));
+        writeLine(line.toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeLine(String line) throws IOException {
+        int octets = 0;
+        int limit = MAX_LINE_OCTETS;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int width = utf8Width(codePoint);
+            if (octets + width > limit) {
+                writer.write(CRLF);
+                writer.write(' ');
+                // continuation lines start with a space which counts towards the limit
+                octets = 1;
+            }
+            writer.write(line, i, Character.charCount(codePoint));
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        writer.write(CRLF);
+    }
+
+    private static int utf8Width(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        if (codePoint < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private static String parameterValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        String cleaned = escapeLineBreaks(value).replace("\"", "'");
+        if (cleaned.indexOf(':') >= 0 || cleaned.indexOf(';') >= 0 || cleaned.indexOf(',') >= 0) {
+            return '"' + cleaned + '"';
+        }
+        return cleaned;
+    }
+
+    private static String escapeLineBreaks(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+    }
+}
@@ -0,0 +1,77 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Progress of a single .ics import, updated by the importing thread and readable while the import runs
+ */
+@Getter
+public class ImportProgress {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final String owner;
+
+    private final Date startedAt = new Date();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile Date finishedAt;
+
+    private volatile long bytesRead;
+
+    private volatile long calendars;
+
+    private volatile long components;
+
+    private volatile long properties;
+
+    private volatile long parameters;
+
+    private volatile long skipped;
+
+    private volatile long chunksCommitted;
+
+    private volatile String error;
+
+    /**
+     * @param owner username of the participant the calendars are imported for
+     */
+    public ImportProgress(String owner) {
+        this.owner = owner;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public void calendarStarted() {
+        calendars++;
+    }
+
+    public void chunkCommitted(long components, long properties, long parameters) {
+        this.components += components;
+        this.properties += properties;
+        this.parameters += parameters;
+        this.chunksCommitted++;
+    }
+
+    public void elementSkipped() {
+        skipped++;
+    }
+
+    public void completed() {
+        this.state = State.COMPLETED;
+        this.finishedAt = new Date();
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.state = State.FAILED;
+        this.finishedAt = new Date();
+    }
+}
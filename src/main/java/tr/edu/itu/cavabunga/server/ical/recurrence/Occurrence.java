@@ -0,0 +1,57 @@
+package tr.edu.itu.cavabunga.server.ical.recurrence;
+
+import java.time.Instant;
+
+/**
+ * Single instance of a recurring component
+ */
+public final class Occurrence {
+    private final Long componentId;
+
+    private final Instant recurrenceId;
+
+    private final Instant start;
+
+    private final Instant end;
+
+    /**
+     * @param componentId id of the component the instance comes from, an override component when overridden
+     * @param recurrenceId original start of the instance in the series
+     * @param start actual start of the instance
+     * @param end actual end of the instance
+     */
+    public Occurrence(Long componentId, Instant recurrenceId, Instant start, Instant end) {
+        this.componentId = componentId;
+        this.recurrenceId = recurrenceId;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param windowStart inclusive start of the window
+     * @param windowEnd exclusive end of the window
+     * @return true when the instance overlaps with the window, zero length instances match when they start inside it
+     */
+    public boolean overlaps(Instant windowStart, Instant windowEnd) {
+        if (!start.isBefore(windowEnd)) {
+            return false;
+        }
+        return end.isAfter(windowStart) || (end.equals(start) && !start.isBefore(windowStart));
+    }
+
+    public Long getComponentId() {
+        return componentId;
+    }
+
+    public Instant getRecurrenceId() {
+        return recurrenceId;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,268 @@
+package tr.edu.itu.cavabunga.server.ical.recurrence;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.server.ical.EventTimes;
+import tr.edu.itu.cavabunga.server.ical.IcalNames;
+import tr.edu.itu.cavabunga.server.ical.IcalTime;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Expands a recurring component (RRULE, RDATE, EXDATE) and its RECURRENCE-ID overrides into occurrences
+ */
+public class RecurrenceExpander {
+    private final Long componentId;
+
+    private final RecurrenceRule rule;
+
+    private final LocalDateTime localStart;
+
+    private final ZoneId zone;
+
+    private final Duration duration;
+
+    private final TreeSet<Instant> rdates = new TreeSet<>();
+
+    private final Set<Instant> exdates = new HashSet<>();
+
+    private final Map<Instant, Occurrence> overrides = new HashMap<>();
+
+    /**
+     * @param master recurring component
+     * @param overrideComponents components of the same series carrying a RECURRENCE-ID
+     * @throws IllegalArgumentException when master has no valid DTSTART or recurrence values are malformed
+     */
+    public RecurrenceExpander(Component master, Collection<Component> overrideComponents) {
+        EventTimes times = EventTimes.of(master);
+        Property dtstart = EventTimes.findProperty(master, "DTSTART");
+        if (times == null || dtstart == null) {
+            throw new IllegalArgumentException("Recurring component without a valid DTSTART");
+        }
+        String tzid = EventTimes.findParameterValue(dtstart, "TZID");
+        this.componentId = master.getId();
+        this.zone = IcalTime.zoneOf(dtstart.getValue(), tzid);
+        this.localStart = LocalDateTime.ofInstant(times.getStart(), zone);
+        this.duration = times.getDuration();
+
+        Property rrule = EventTimes.findProperty(master, "RRULE");
+        this.rule = rrule != null && rrule.getValue() != null ? RecurrenceRule.parse(rrule.getValue()) : null;
+        for (Property property : master.getProperties()) {
+            String name = IcalNames.of(property);
+            if ("RDATE".equals(name)) {
+                rdates.addAll(parseDateList(property));
+            } else if ("EXDATE".equals(name)) {
+                exdates.addAll(parseDateList(property));
+            }
+        }
+        for (Component overrideComponent : overrideComponents) {
+            Property recurrenceId = EventTimes.findProperty(overrideComponent, "RECURRENCE-ID");
+            EventTimes overrideTimes = EventTimes.of(overrideComponent);
+            if (recurrenceId == null || overrideTimes == null) {
+                continue;
+            }
+            Instant originalStart = IcalTime.parse(
+                    recurrenceId.getValue(),
+                    EventTimes.findParameterValue(recurrenceId, "TZID")
+            );
+            overrides.put(originalStart, new Occurrence(
+                    overrideComponent.getId(), originalStart, overrideTimes.getStart(), overrideTimes.getEnd()
+            ));
+        }
+    }
+
+    /**
+     * @param component component to check
+     * @return true when component defines a recurrence set
+     */
+    public static boolean isRecurring(Component component) {
+        return EventTimes.isSchedulable(component)
+                && EventTimes.findProperty(component, "RECURRENCE-ID") == null
+                && (EventTimes.findProperty(component, "RRULE") != null || EventTimes.findProperty(component, "RDATE") != null);
+    }
+
+    /**
+     * @param component component to check
+     * @return true when component overrides an instance of a recurring series
+     */
+    public static boolean isOverride(Component component) {
+        return EventTimes.findProperty(component, "RECURRENCE-ID") != null;
+    }
+
+    /**
+     * @return lazy iterator over all occurrences ordered by their recurrence id
+     */
+    public Iterator<Occurrence> iterator() {
+        return new OccurrenceIterator(null);
+    }
+
+    /**
+     * @param from instances starting before from may be skipped, the rule is not walked from DTSTART
+     * @return lazy iterator over the occurrences from about from on, ordered by their recurrence id
+     */
+    public Iterator<Occurrence> iterator(Instant from) {
+        return new OccurrenceIterator(from);
+    }
+
+    /**
+     * expands occurrences overlapping with [windowStart, windowEnd), the series is walked from the
+     * window on so the cost depends on the window and not on the age of the series
+     *
+     * @param windowStart inclusive start of the window
+     * @param windowEnd exclusive end of the window
+     * @param maxScanned upper bound of series instances walked, guards against pathological rules
+     * @return matching occurrences ordered by start
+     */
+    public List<Occurrence> expand(Instant windowStart, Instant windowEnd, int maxScanned) {
+        List<Occurrence> result = new ArrayList<>();
+        // an instance starting one duration before the window still overlaps it
+        Iterator<Occurrence> iterator = iterator(windowStart.minus(duration));
+        int scanned = 0;
+        while (iterator.hasNext() && scanned++ < maxScanned) {
+            Occurrence occurrence = iterator.next();
+            if (!occurrence.getRecurrenceId().isBefore(windowEnd)) {
+                break;
+            }
+            if (!overrides.containsKey(occurrence.getRecurrenceId()) && occurrence.overlaps(windowStart, windowEnd)) {
+                result.add(occurrence);
+            }
+        }
+        // overrides can move an instance into the window from anywhere in the series
+        for (Occurrence override : overrides.values()) {
+            if (override.overlaps(windowStart, windowEnd)) {
+                result.add(override);
+            }
+        }
+        result.sort(Comparator.comparing(Occurrence::getStart));
+        return result;
+    }
+
+    /**
+     * @param maxScanned upper bound of series instances walked
+     * @return end of the last occurrence or null when the series is unbounded or too long to walk
+     */
+    public Instant seriesEnd(int maxScanned) {
+        if (rule != null && !rule.isBounded()) {
+            return null;
+        }
+        Instant last = null;
+        Iterator<Occurrence> iterator = iterator();
+        int scanned = 0;
+        while (iterator.hasNext()) {
+            if (scanned++ >= maxScanned) {
+                return null;
+            }
+            Instant end = iterator.next().getEnd();
+            if (last == null || end.isAfter(last)) {
+                last = end;
+            }
+        }
+        for (Occurrence override : overrides.values()) {
+            if (last == null || override.getEnd().isAfter(last)) {
+                last = override.getEnd();
+            }
+        }
+        return last;
+    }
+
+    private List<Instant> parseDateList(Property property) {
+        if (property.getValue() == null) {
+            return Collections.emptyList();
+        }
+        String tzid = EventTimes.findParameterValue(property, "TZID");
+        List<Instant> result = new ArrayList<>();
+        for (String value : property.getValue().split(",")) {
+            // RDATE may carry PERIOD values, only their start matters for the instance
+            String start = value.contains("/") ? value.substring(0, value.indexOf('/')) : value;
+            if (!start.trim().isEmpty()) {
+                result.add(IcalTime.parse(start, tzid));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * merges rule instances with RDATEs, drops EXDATEs and replaces overridden instances
+     */
+    private class OccurrenceIterator implements Iterator<Occurrence> {
+        private final Iterator<LocalDateTime> ruleStarts;
+
+        private final Iterator<Instant> extraStarts;
+
+        private Instant nextRuleStart;
+
+        private Instant nextExtraStart;
+
+        private Occurrence next;
+
+        private OccurrenceIterator(Instant from) {
+            if (rule == null) {
+                ruleStarts = Collections.singletonList(localStart).iterator();
+            } else {
+                RecurrenceIterator starts = new RecurrenceIterator(rule, localStart, zone);
+                if (from != null) {
+                    starts.skipTo(LocalDateTime.ofInstant(from, zone));
+                }
+                ruleStarts = starts;
+            }
+            extraStarts = from != null ? rdates.tailSet(from, true).iterator() : rdates.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (nextRuleStart == null && ruleStarts.hasNext()) {
+                    nextRuleStart = ZonedDateTime.of(ruleStarts.next(), zone).toInstant();
+                }
+                if (nextExtraStart == null && extraStarts.hasNext()) {
+                    nextExtraStart = extraStarts.next();
+                }
+                Instant start;
+                if (nextRuleStart == null && nextExtraStart == null) {
+                    return false;
+                } else if (nextExtraStart == null || (nextRuleStart != null && !nextExtraStart.isBefore(nextRuleStart))) {
+                    start = nextRuleStart;
+                    if (nextExtraStart != null && nextExtraStart.equals(nextRuleStart)) {
+                        nextExtraStart = null;
+                    }
+                    nextRuleStart = null;
+                } else {
+                    start = nextExtraStart;
+                    nextExtraStart = null;
+                }
+                if (exdates.contains(start)) {
+                    continue;
+                }
+                Occurrence override = overrides.get(start);
+                next = override != null ? override : new Occurrence(componentId, start, start, start.plus(duration));
+            }
+            return true;
+        }
+
+        @Override
+        public Occurrence next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Occurrence result = next;
+            next = null;
+            return result;
+        }
+    }
+}
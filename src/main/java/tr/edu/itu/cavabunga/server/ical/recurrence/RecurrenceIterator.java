@@ -0,0 +1,313 @@
+package tr.edu.itu.cavabunga.server.ical.recurrence;
+
+import tr.edu.itu.cavabunga.server.ical.IcalTime;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Lazily generates local start times of a recurrence rule, DTSTART is always the first instance.
+ *
+ * Instances are produced one period (day, week, month ...) at a time, so iterating up to a
+ * window end never materializes more than one period ahead.
+ */
+public class RecurrenceIterator implements Iterator<LocalDateTime> {
+    /**
+     * periods without any candidate before giving up, guards rules like BYMONTHDAY=30;BYMONTH=2 while still reaching leap days
+     */
+    private static final int MAX_EMPTY_PERIODS = 10000;
+
+    private static final List<Integer> ALL_MONTHS = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+
+    private final RecurrenceRule rule;
+
+    private final LocalDateTime dtstart;
+
+    private final LocalDateTime until;
+
+    private final List<LocalDateTime> pending = new ArrayList<>();
+
+    private long periodIndex = 0;
+
+    private int produced = 0;
+
+    private boolean exhausted = false;
+
+    /**
+     * @param rule recurrence rule
+     * @param dtstart local start of the first instance
+     * @param zone zone of the series, used to resolve a UTC UNTIL
+     */
+    public RecurrenceIterator(RecurrenceRule rule, LocalDateTime dtstart, ZoneId zone) {
+        this.rule = rule;
+        this.dtstart = dtstart;
+        this.until = resolveUntil(rule.getUntil(), zone);
+        this.pending.add(dtstart);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (exhausted) {
+            return false;
+        }
+        if (rule.getCount() != null && produced >= rule.getCount()) {
+            exhausted = true;
+            return false;
+        }
+        int emptyPeriods = 0;
+        while (pending.isEmpty()) {
+            List<LocalDateTime> candidates = candidatesOf(periodIndex++);
+            for (LocalDateTime candidate : candidates) {
+                if (candidate.isAfter(dtstart)) {
+                    pending.add(candidate);
+                }
+            }
+            if (pending.isEmpty() && ++emptyPeriods > MAX_EMPTY_PERIODS) {
+                exhausted = true;
+                return false;
+            }
+        }
+        if (until != null && pending.get(0).isAfter(until)) {
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * skips the periods ending before target without generating their instances, instances before
+     * target may still follow. Has no effect once iteration started or when the rule has a COUNT,
+     * the count includes every instance from DTSTART on
+     *
+     * @param target local time the caller is interested in
+     */
+    public void skipTo(LocalDateTime target) {
+        if (produced > 0 || rule.getCount() != null || !target.isAfter(dtstart)) {
+            return;
+        }
+        // one period less, the period holding target may start before it
+        long index = periodsBetween(target) / rule.getInterval() - 1;
+        if (index > periodIndex) {
+            periodIndex = index;
+            pending.clear();
+        }
+    }
+
+    @Override
+    public LocalDateTime next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        produced++;
+        return pending.remove(0);
+    }
+
+    private List<LocalDateTime> candidatesOf(long index) {
+        long step = index * rule.getInterval();
+        LocalDate startDate = dtstart.toLocalDate();
+        LocalTime time = dtstart.toLocalTime();
+        TreeSet<LocalDateTime> result = new TreeSet<>();
+
+        switch (rule.getFrequency()) {
+            case SECONDLY:
+                addIfMatches(result, dtstart.plusSeconds(step));
+                break;
+            case MINUTELY:
+                addIfMatches(result, dtstart.plusMinutes(step));
+                break;
+            case HOURLY:
+                addIfMatches(result, dtstart.plusHours(step));
+                break;
+            case DAILY:
+                addIfMatches(result, dtstart.plusDays(step));
+                break;
+            case WEEKLY: {
+                LocalDate weekStart = startDate
+                        .with(TemporalAdjusters.previousOrSame(rule.getWeekStart()))
+                        .plusWeeks(step);
+                if (rule.getByDay().isEmpty()) {
+                    addIfMatches(result, weekStart.with(TemporalAdjusters.nextOrSame(startDate.getDayOfWeek())).atTime(time));
+                } else {
+                    for (RecurrenceRule.WeekdayNum day : rule.getByDay()) {
+                        addIfMatches(result, weekStart.with(TemporalAdjusters.nextOrSame(day.getDayOfWeek())).atTime(time));
+                    }
+                }
+                break;
+            }
+            case MONTHLY: {
+                LocalDate month = startDate.withDayOfMonth(1).plusMonths(step);
+                if (rule.getByMonth().isEmpty() || rule.getByMonth().contains(month.getMonthValue())) {
+                    for (LocalDate day : daysOfMonth(month, startDate.getDayOfMonth())) {
+                        result.add(day.atTime(time));
+                    }
+                }
+                break;
+            }
+            case YEARLY: {
+                LocalDate year = startDate.withDayOfYear(1).plusYears(step);
+                if (rule.getByMonth().isEmpty() && rule.getByMonthDay().isEmpty() && !rule.getByDay().isEmpty()) {
+                    for (LocalDate day : weekdaysIn(year, year.plusYears(1))) {
+                        result.add(day.atTime(time));
+                    }
+                } else {
+                    // without BYMONTH, BYMONTHDAY expands over every month of the year (RFC 5545 section 3.3.10)
+                    List<Integer> months = !rule.getByMonth().isEmpty()
+                            ? rule.getByMonth()
+                            : !rule.getByMonthDay().isEmpty() ? ALL_MONTHS : Collections.singletonList(startDate.getMonthValue());
+                    for (Integer month : months) {
+                        for (LocalDate day : daysOfMonth(year.withMonth(month), startDate.getDayOfMonth())) {
+                            result.add(day.atTime(time));
+                        }
+                    }
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        return applySetPos(new ArrayList<>(result));
+    }
+
+    /**
+     * whole periods of the rule's frequency from the period of DTSTART up to target
+     */
+    private long periodsBetween(LocalDateTime target) {
+        LocalDate startDate = dtstart.toLocalDate();
+        switch (rule.getFrequency()) {
+            case SECONDLY:
+                return ChronoUnit.SECONDS.between(dtstart, target);
+            case MINUTELY:
+                return ChronoUnit.MINUTES.between(dtstart, target);
+            case HOURLY:
+                return ChronoUnit.HOURS.between(dtstart, target);
+            case DAILY:
+                return ChronoUnit.DAYS.between(dtstart, target);
+            case WEEKLY:
+                return ChronoUnit.WEEKS.between(startDate.with(TemporalAdjusters.previousOrSame(rule.getWeekStart())), target.toLocalDate());
+            case MONTHLY:
+                return ChronoUnit.MONTHS.between(startDate.withDayOfMonth(1), target.toLocalDate());
+            case YEARLY:
+                return ChronoUnit.YEARS.between(startDate.withDayOfYear(1), target.toLocalDate());
+            default:
+                return 0;
+        }
+    }
+
+    private void addIfMatches(TreeSet<LocalDateTime> result, LocalDateTime candidate) {
+        LocalDate date = candidate.toLocalDate();
+        if (!rule.getByMonth().isEmpty() && !rule.getByMonth().contains(date.getMonthValue())) {
+            return;
+        }
+        if (!rule.getByMonthDay().isEmpty() && !matchesMonthDay(date)) {
+            return;
+        }
+        if (!rule.getByDay().isEmpty() && rule.getFrequency() != RecurrenceRule.Frequency.WEEKLY && !matchesWeekday(date.getDayOfWeek())) {
+            return;
+        }
+        result.add(candidate);
+    }
+
+    private List<LocalDate> daysOfMonth(LocalDate firstOfMonth, int defaultDay) {
+        List<LocalDate> days = new ArrayList<>();
+        int length = firstOfMonth.lengthOfMonth();
+        if (!rule.getByMonthDay().isEmpty()) {
+            for (Integer monthDay : rule.getByMonthDay()) {
+                int day = monthDay > 0 ? monthDay : length + monthDay + 1;
+                if (day >= 1 && day <= length) {
+                    LocalDate date = firstOfMonth.withDayOfMonth(day);
+                    if (rule.getByDay().isEmpty() || matchesWeekday(date.getDayOfWeek())) {
+                        days.add(date);
+                    }
+                }
+            }
+        } else if (!rule.getByDay().isEmpty()) {
+            days.addAll(weekdaysIn(firstOfMonth, firstOfMonth.plusMonths(1)));
+        } else if (defaultDay <= length) {
+            days.add(firstOfMonth.withDayOfMonth(defaultDay));
+        }
+        return days;
+    }
+
+    /**
+     * BYDAY matches within [from, to), ordinals count from the start (positive) or the end (negative) of the period
+     */
+    private List<LocalDate> weekdaysIn(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        for (RecurrenceRule.WeekdayNum weekday : rule.getByDay()) {
+            List<LocalDate> matches = new ArrayList<>();
+            for (LocalDate day = from.with(TemporalAdjusters.nextOrSame(weekday.getDayOfWeek()));
+                 day.isBefore(to); day = day.plusWeeks(1)) {
+                matches.add(day);
+            }
+            int ordinal = weekday.getOrdinal();
+            if (ordinal == 0) {
+                days.addAll(matches);
+            } else {
+                int position = ordinal > 0 ? ordinal - 1 : matches.size() + ordinal;
+                if (position >= 0 && position < matches.size()) {
+                    days.add(matches.get(position));
+                }
+            }
+        }
+        return days;
+    }
+
+    private boolean matchesWeekday(DayOfWeek dayOfWeek) {
+        for (RecurrenceRule.WeekdayNum weekday : rule.getByDay()) {
+            if (weekday.getDayOfWeek() == dayOfWeek) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesMonthDay(LocalDate date) {
+        int length = date.lengthOfMonth();
+        for (Integer monthDay : rule.getByMonthDay()) {
+            int day = monthDay > 0 ? monthDay : length + monthDay + 1;
+            if (day == date.getDayOfMonth()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<LocalDateTime> applySetPos(List<LocalDateTime> candidates) {
+        if (rule.getBySetPos().isEmpty() || candidates.isEmpty()) {
+            return candidates;
+        }
+        TreeSet<LocalDateTime> result = new TreeSet<>();
+        for (Integer setPos : rule.getBySetPos()) {
+            int position = setPos > 0 ? setPos - 1 : candidates.size() + setPos;
+            if (position >= 0 && position < candidates.size()) {
+                result.add(candidates.get(position));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static LocalDateTime resolveUntil(String until, ZoneId zone) {
+        if (until == null) {
+            return null;
+        }
+        if (IcalTime.isDate(until)) {
+            return IcalTime.parseLocal(until).toLocalDate().atTime(LocalTime.MAX);
+        }
+        if (until.trim().endsWith("Z")) {
+            return LocalDateTime.ofInstant(IcalTime.parse(until, null), zone);
+        }
+        return IcalTime.parseLocal(until);
+    }
+}
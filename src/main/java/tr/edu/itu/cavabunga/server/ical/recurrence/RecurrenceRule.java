@@ -0,0 +1,195 @@
+package tr.edu.itu.cavabunga.server.ical.recurrence;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed RRULE value (RFC 5545 section 3.3.10)
+ *
+ * Supported rule parts: FREQ, INTERVAL, COUNT, UNTIL, BYDAY, BYMONTHDAY, BYMONTH, BYSETPOS and WKST.
+ * Other BYxxx parts are ignored, the time of day always comes from DTSTART.
+ */
+public final class RecurrenceRule {
+    public enum Frequency { SECONDLY, MINUTELY, HOURLY, DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    /**
+     * BYDAY entry, ordinal is 0 when the entry matches every such weekday of the period
+     */
+    public static final class WeekdayNum {
+        private final int ordinal;
+
+        private final DayOfWeek dayOfWeek;
+
+        WeekdayNum(int ordinal, DayOfWeek dayOfWeek) {
+            this.ordinal = ordinal;
+            this.dayOfWeek = dayOfWeek;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public DayOfWeek getDayOfWeek() {
+            return dayOfWeek;
+        }
+    }
+
+    private Frequency frequency;
+
+    private int interval = 1;
+
+    private Integer count;
+
+    private String until;
+
+    private List<WeekdayNum> byDay = Collections.emptyList();
+
+    private List<Integer> byMonthDay = Collections.emptyList();
+
+    private List<Integer> byMonth = Collections.emptyList();
+
+    private List<Integer> bySetPos = Collections.emptyList();
+
+    private DayOfWeek weekStart = DayOfWeek.MONDAY;
+
+    private RecurrenceRule() {
+    }
+
+    /**
+     * @param value RRULE value, e.g. FREQ=WEEKLY;BYDAY=MO,WE;COUNT=10
+     * @return parsed rule
+     * @throws IllegalArgumentException when value is not a valid RRULE
+     */
+    public static RecurrenceRule parse(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("RRULE must not be null!");
+        }
+        RecurrenceRule rule = new RecurrenceRule();
+        try {
+            for (String part : value.trim().split(";")) {
+                int separator = part.indexOf('=');
+                if (separator < 0) {
+                    continue;
+                }
+                String name = part.substring(0, separator).trim().toUpperCase();
+                String partValue = part.substring(separator + 1).trim();
+                switch (name) {
+                    case "FREQ":
+                        rule.frequency = Frequency.valueOf(partValue.toUpperCase());
+                        break;
+                    case "INTERVAL":
+                        rule.interval = Math.max(1, Integer.parseInt(partValue));
+                        break;
+                    case "COUNT":
+                        rule.count = Integer.parseInt(partValue);
+                        break;
+                    case "UNTIL":
+                        rule.until = partValue;
+                        break;
+                    case "BYDAY":
+                        rule.byDay = parseByDay(partValue);
+                        break;
+                    case "BYMONTHDAY":
+                        rule.byMonthDay = parseIntegers(partValue);
+                        break;
+                    case "BYMONTH":
+                        rule.byMonth = parseIntegers(partValue);
+                        break;
+                    case "BYSETPOS":
+                        rule.bySetPos = parseIntegers(partValue);
+                        break;
+                    case "WKST":
+                        rule.weekStart = parseDayOfWeek(partValue);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid RRULE: " + value, e);
+        }
+        if (rule.frequency == null) {
+            throw new IllegalArgumentException("RRULE without FREQ: " + value);
+        }
+        return rule;
+    }
+
+    private static List<WeekdayNum> parseByDay(String value) {
+        List<WeekdayNum> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            String trimmed = item.trim().toUpperCase();
+            String ordinal = trimmed.substring(0, trimmed.length() - 2);
+            result.add(new WeekdayNum(
+                    ordinal.isEmpty() || "+".equals(ordinal) ? 0 : Integer.parseInt(ordinal.replace("+", "")),
+                    parseDayOfWeek(trimmed.substring(trimmed.length() - 2))
+            ));
+        }
+        return result;
+    }
+
+    private static List<Integer> parseIntegers(String value) {
+        List<Integer> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            result.add(Integer.parseInt(item.trim().replace("+", "")));
+        }
+        return result;
+    }
+
+    private static DayOfWeek parseDayOfWeek(String value) {
+        switch (value.toUpperCase()) {
+            case "MO": return DayOfWeek.MONDAY;
+            case "TU": return DayOfWeek.TUESDAY;
+            case "WE": return DayOfWeek.WEDNESDAY;
+            case "TH": return DayOfWeek.THURSDAY;
+            case "FR": return DayOfWeek.FRIDAY;
+            case "SA": return DayOfWeek.SATURDAY;
+            case "SU": return DayOfWeek.SUNDAY;
+            default: throw new IllegalArgumentException("Invalid weekday: " + value);
+        }
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public String getUntil() {
+        return until;
+    }
+
+    public List<WeekdayNum> getByDay() {
+        return byDay;
+    }
+
+    public List<Integer> getByMonthDay() {
+        return byMonthDay;
+    }
+
+    public List<Integer> getByMonth() {
+        return byMonth;
+    }
+
+    public List<Integer> getBySetPos() {
+        return bySetPos;
+    }
+
+    public DayOfWeek getWeekStart() {
+        return weekStart;
+    }
+
+    /**
+     * @return true when the rule generates a bounded number of instances
+     */
+    public boolean isBounded() {
+        return count != null || until != null;
+    }
+}
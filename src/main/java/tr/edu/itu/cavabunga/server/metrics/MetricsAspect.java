@@ -0,0 +1,64 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the business layer, IcalService and every repository method, tagged with class, method and
+ * the exception thrown (none on success). Endpoint latencies are recorded by micrometer as http.server.requests.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+    private MeterRegistry meterRegistry;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param meterRegistry to inject MeterRegistry
+     */
+    @Autowired
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * tr.edu.itu.cavabunga.server.business.CalendarManagerService+.*(..))")
+    public Object timeBusiness(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("cavabunga.business", "CalendarManagerService", joinPoint);
+    }
+
+    @Around("execution(public * tr.edu.itu.cavabunga.server.service.IcalService+.*(..))")
+    public Object timeIcalService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("cavabunga.service", "IcalService", joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // the proxy implements the declared repository interface, the target is the generic SimpleJpaRepository
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        return time("cavabunga.repository", interfaces.length > 0 ? interfaces[0].getSimpleName() : "unknown", joinPoint);
+    }
+
+    private Object time(String name, String className, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("class", className)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a request to the annotated handler may issue, handlers
+ * without it get cavabunga.sql.budget.default
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+    /**
+     * budget of handlers which legitimately issue statements proportional to their input, e.g. imports
+     */
+    int UNLIMITED = -1;
+
+    /**
+     * @return allowed statements per request or UNLIMITED
+     */
+    int value();
+}
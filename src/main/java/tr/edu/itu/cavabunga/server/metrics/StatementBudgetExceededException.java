@@ -0,0 +1,11 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+/**
+ * Thrown by the statement that exceeds a request's budget when cavabunga.sql.budget.fail is set,
+ * so that integration tests fail at the offending call instead of only logging it
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
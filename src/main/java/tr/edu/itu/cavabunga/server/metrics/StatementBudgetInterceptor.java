@@ -0,0 +1,86 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tracks the SQL statements of every handler call against its budget, taken from @StatementBudget
+ * or cavabunga.sql.budget.default. Requests over budget are logged with the call stack of the first
+ * statement over budget and their repeated query shapes. With cavabunga.sql.budget.fail=true the
+ * offending statement throws instead, meant for integration tests.
+ *
+ * Work of asynchronous handlers is tracked as well, the heavy request executor hands the tracker of the
+ * request to its threads and the budget is checked when the request completes.
+ */
+@Component
+public class StatementBudgetInterceptor extends HandlerInterceptorAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementBudgetInterceptor.class);
+
+    private static final int REPORTED_SHAPES = 5;
+
+    private int defaultBudget;
+
+    private boolean failOnExceed;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param defaultBudget statements allowed for handlers without @StatementBudget
+     * @param failOnExceed fail the offending statement instead of only logging the request
+     */
+    @Autowired
+    public StatementBudgetInterceptor(
+            @Value("${cavabunga.sql.budget.default:100}") int defaultBudget,
+            @Value("${cavabunga.sql.budget.fail:false}") boolean failOnExceed
+    ) {
+        this.defaultBudget = defaultBudget;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementTracker tracker = (StatementTracker) request.getAttribute(StatementTracker.ATTRIBUTE);
+        if (tracker != null) {
+            // dispatch of an asynchronous result, the statements of the executor are recorded already
+            StatementCounter.track(tracker);
+            return true;
+        }
+        int budget = defaultBudget;
+        if (handler instanceof HandlerMethod) {
+            StatementBudget annotation = ((HandlerMethod) handler).getMethodAnnotation(StatementBudget.class);
+            if (annotation != null) {
+                budget = annotation.value();
+            }
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String name = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        tracker = new StatementTracker(name, budget, failOnExceed);
+        request.setAttribute(StatementTracker.ATTRIBUTE, tracker);
+        StatementCounter.track(tracker);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        StatementTracker tracker = StatementCounter.untrack();
+        if (tracker != null && tracker.isExceeded()) {
+            LOGGER.warn(tracker.report(REPORTED_SHAPES), tracker.getExceededAt());
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the work continues on executor threads recording into the same tracker, which is checked
+        // once the asynchronous result has been dispatched and completed
+        StatementCounter.untrack();
+    }
+}
@@ -0,0 +1,81 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, registered through
+ * hibernate.session_factory.statement_inspector. Hibernate instantiates the inspector itself,
+ * so the count lives in a thread local instead of a bean. Statements are also recorded by the
+ * StatementTracker of the current thread, if one is tracked.
+ */
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final ThreadLocal<StatementTracker> TRACKER = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        StatementTracker tracker = TRACKER.get();
+        if (tracker != null) {
+            tracker.record(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * @return statements prepared on the current thread since the last reset
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * starts counting from zero on the current thread
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * records the statements of the current thread in tracker until untrack is called
+     *
+     * @param tracker tracker replacing the current one
+     */
+    public static void track(StatementTracker tracker) {
+        TRACKER.set(tracker);
+    }
+
+    /**
+     * @return tracker of the current thread or null, which is no longer recorded to
+     */
+    public static StatementTracker untrack() {
+        StatementTracker tracker = TRACKER.get();
+        TRACKER.remove();
+        return tracker;
+    }
+
+    /**
+     * task decorator recording the statements of the executing thread in the tracker of the submitting one
+     *
+     * @param task task submitted on behalf of a request
+     * @return task running with the submitter's tracker tracked
+     */
+    public static Runnable propagate(Runnable task) {
+        StatementTracker tracker = TRACKER.get();
+        return () -> {
+            StatementTracker previous = untrack();
+            if (tracker != null) {
+                track(tracker);
+            }
+            try {
+                task.run();
+            } finally {
+                untrack();
+                if (previous != null) {
+                    track(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records the number of SQL statements of every request as cavabunga.request.statements, tagged
+ * with the matched URI template so that endpoints with many queries per call stand out.
+ *
+ * Requests handled by the MVC are counted by their StatementTracker, which includes the statements
+ * of executor threads, and asynchronous requests are recorded once their result has been dispatched.
+ */
+@Component
+public class StatementMetricsFilter extends OncePerRequestFilter {
+    private MeterRegistry meterRegistry;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param meterRegistry to inject MeterRegistry
+     */
+    @Autowired
+    public StatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // an asynchronous request passes again once its result is dispatched
+            if (!request.isAsyncStarted()) {
+                record(request);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        StatementTracker tracker = (StatementTracker) request.getAttribute(StatementTracker.ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("cavabunga.request.statements")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(tracker != null ? tracker.getCount() : StatementCounter.current());
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+package tr.edu.itu.cavabunga.server.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Statements of one request checked against its budget. Statements are grouped by shape, the SQL
+ * with its IN lists collapsed, so that the same query issued for every row of a collection (N+1)
+ * shows up as a single shape with a high count.
+ *
+ * Asynchronous requests record from the servlet thread and the executor threads doing their work,
+ * so the tracker is synchronized and kept as request attribute ATTRIBUTE until the request completes.
+ */
+public class StatementTracker {
+    public static final String ATTRIBUTE = StatementTracker.class.getName();
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String name;
+
+    private final int budget;
+
+    private final boolean failOnExceed;
+
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    private long count = 0;
+
+    private Throwable exceededAt;
+
+    /**
+     * @param name request description used in reports, e.g. GET /participant/{user_name}
+     * @param budget allowed statements or StatementBudget.UNLIMITED
+     * @param failOnExceed throw StatementBudgetExceededException from the first statement over budget
+     */
+    public StatementTracker(String name, int budget, boolean failOnExceed) {
+        this.name = name;
+        this.budget = budget;
+        this.failOnExceed = failOnExceed;
+    }
+
+    /**
+     * @param sql statement about to be prepared
+     * @throws StatementBudgetExceededException when the statement exceeds the budget in fail mode
+     */
+    public synchronized void record(String sql) {
+        count++;
+        shapes.merge(shapeOf(sql), 1, Integer::sum);
+        if (budget != StatementBudget.UNLIMITED && count == budget + 1L) {
+            exceededAt = new Throwable("Statement " + count + " of " + name);
+            if (failOnExceed) {
+                throw new StatementBudgetExceededException(report(5));
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized boolean isExceeded() {
+        return exceededAt != null;
+    }
+
+    /**
+     * @return stack of the first statement over budget or null when within budget
+     */
+    public synchronized Throwable getExceededAt() {
+        return exceededAt;
+    }
+
+    /**
+     * @param limit maximum number of shapes returned
+     * @return shapes issued more than once with their counts, most frequent first
+     */
+    public synchronized List<Map.Entry<String, Integer>> getRepeatedShapes(int limit) {
+        return shapes.entrySet().stream()
+                .filter(shape -> shape.getValue() > 1)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * @param limit maximum number of repeated shapes listed
+     * @return one line summary followed by the repeated shapes
+     */
+    public synchronized String report(int limit) {
+        StringBuilder report = new StringBuilder()
+                .append(name).append(" issued ").append(count)
+                .append(" SQL statements, budget is ").append(budget);
+        for (Map.Entry<String, Integer> shape : getRepeatedShapes(limit)) {
+            report.append("\n  ").append(shape.getValue()).append("x ").append(shape.getKey());
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param sql statement as prepared by Hibernate
+     * @return statement with IN lists of any length collapsed and whitespace normalized
+     */
+    static String shapeOf(String sql) {
+        return IN_LIST.matcher(WHITESPACE.matcher(sql.trim()).replaceAll(" ")).replaceAll("(?...)");
+    }
+}
@@ -0,0 +1,66 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentAncestor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ComponentAncestorRepository extends JpaRepository<ComponentAncestor, ComponentAncestor.Key> {
+    /**
+     * descendants of the component ordered by depth, the component itself excluded
+     */
+    @Query("select a.descendantId from ComponentAncestor a where a.ancestorId = :id and a.depth > 0 order by a.depth, a.descendantId")
+    List<Long> findDescendantIds(@Param("id") Long id);
+
+    /**
+     * ancestors of the component, furthest first
+     */
+    @Query("select a.ancestorId from ComponentAncestor a where a.descendantId = :id and a.depth > 0 order by a.depth desc")
+    List<Long> findAncestorIds(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * the given components and all their ancestors
+     */
+    @Query("select distinct a.ancestorId from ComponentAncestor a where a.descendantId in :ids")
+    List<Long> findSelfAndAncestorIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select a.ancestorId from ComponentAncestor a where a.descendantId = :id and a.depth = 1")
+    Long findParentId(@Param("id") Long id);
+
+    @Query("select a.descendantId from ComponentAncestor a where a.descendantId in :ids and a.depth = 0")
+    List<Long> findIndexedIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * ancestor id and depth pairs of the component, including itself at depth 0
+     */
+    @Query("select a.ancestorId, a.depth from ComponentAncestor a where a.descendantId = :id")
+    List<Object[]> findAncestorRows(@Param("id") Long id);
+
+    /**
+     * links every row of the subtree of id below all ancestors of newParentId, the subtree must have been unlinked before
+     */
+    @Modifying
+    @Query(value = "insert into component_ancestor (ancestor_id, descendant_id, depth) " +
+            "select above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 " +
+            "from component_ancestor above, component_ancestor below " +
+            "where above.descendant_id = :newParentId and below.ancestor_id = :id", nativeQuery = true)
+    int linkSubtree(@Param("id") Long id, @Param("newParentId") Long newParentId);
+
+    /**
+     * removes the rows linking the subtree to ancestors outside of it
+     */
+    @Modifying
+    @Query("delete from ComponentAncestor a where a.descendantId in :subtreeIds and a.ancestorId not in :subtreeIds")
+    int unlinkSubtree(@Param("subtreeIds") Collection<Long> subtreeIds);
+
+    @Modifying
+    @Query("delete from ComponentAncestor a where a.descendantId in :ids")
+    int deleteByDescendantIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,24 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ComponentChangeRepository extends JpaRepository<ComponentChange, Long> {
+    /**
+     * journal of the owner after the given sequence, an index range scan on (owner_id, sequence_no)
+     */
+    @Query("select c from ComponentChange c where c.ownerId = :ownerId and c.sequence > :afterSequence order by c.sequence")
+    List<ComponentChange> findByOwnerAfter(@Param("ownerId") Long ownerId,
+                                           @Param("afterSequence") long afterSequence,
+                                           Pageable pageable);
+
+    @Query("select max(c.id) from ComponentChange c")
+    Long findLatestId();
+}
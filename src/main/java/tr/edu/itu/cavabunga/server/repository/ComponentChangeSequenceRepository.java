@@ -0,0 +1,22 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ComponentChangeSequenceRepository extends JpaRepository<ComponentChangeSequence, Long> {
+    /**
+     * reserves count sequences of the owner, the row stays locked until the transaction ends
+     */
+    @Modifying
+    @Query(value = "insert into component_change_sequence (owner_id, last_sequence) values (:ownerId, :count) " +
+            "on duplicate key update last_sequence = last_sequence + :count", nativeQuery = true)
+    void reserve(@Param("ownerId") Long ownerId, @Param("count") long count);
+
+    @Query("select s.lastSequence from ComponentChangeSequence s where s.ownerId = :ownerId")
+    Long findLastSequence(@Param("ownerId") Long ownerId);
+}
@@ -2,9 +2,14 @@ package tr.edu.itu.cavabunga.server.repository;
 
 import tr.edu.itu.cavabunga.lib.entity.Component;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,55 @@ import java.util.Optional;
 public interface ComponentRepository extends JpaRepository<Component, Long> {
     Optional<Component> findById(Long Id);
     List<Component> findByOwner(Participant owner);
+
+    @Query("select c from Component c where c.owner = :owner and c.id > :afterId order by c.id")
+    List<Component> findByOwnerAfter(@Param("owner") Participant owner, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select c.id from Component c where c.owner = :owner and c.parent is null order by c.id")
+    List<Long> findRootIdsByOwner(@Param("owner") Participant owner);
+
+    @Query("select c from Component c where c.parent.id = :parentId and c.id > :afterId order by c.id")
+    List<Component> findChildrenAfter(@Param("parentId") Long parentId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select c from Component c where c.parent.id in :parentIds order by c.id")
+    List<Component> findByParentIds(@Param("parentIds") Collection<Long> parentIds);
+
+    @Query("select distinct c from Component c left join fetch c.components where c.id in :ids")
+    List<Component> findWithComponentsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct c from Component c left join fetch c.properties where c.id in :ids")
+    List<Component> findWithPropertiesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.id, type(c), p.id, o.id, c.creationDate from Component c left join c.parent p left join c.owner o where c.id in :ids order by c.id")
+    List<Object[]> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.id, type(c), p.id, o.id, c.creationDate from Component c left join c.parent p left join c.owner o where o.userName = :owner and c.id > :afterId order by c.id")
+    List<Object[]> findSummariesByOwnerAfter(@Param("owner") String owner, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select c.id, type(c), p.id, o.id, c.creationDate from Component c left join c.parent p left join c.owner o where p.id in :parentIds order by c.id")
+    List<Object[]> findSummariesByParentIds(@Param("parentIds") Collection<Long> parentIds);
+
+    @Query("select c.id, type(c), p.id, o.id, c.creationDate from Component c left join c.parent p left join c.owner o where o.id in :ownerIds and p is null order by c.id")
+    List<Object[]> findRootSummariesByOwnerIds(@Param("ownerIds") Collection<Long> ownerIds);
+
+    /**
+     * ids of the components under the parent which carry a RECURRENCE-ID and the given UID, overrides of a series
+     */
+    @Query("select distinct r.component.id from Property r, Property u where r.component.parent.id = :parentId " +
+            "and type(r) = Recurid and u.component = r.component and type(u) = Uid and u.value = :uid")
+    List<Long> findOverrideIds(@Param("parentId") Long parentId, @Param("uid") String uid);
+
+    /**
+     * id, parent id, owner id and depth of the component and all its descendants, read through the closure table
+     */
+    @Query("select c.id, p.id, o.id, a.depth from ComponentAncestor a, Component c left join c.parent p left join c.owner o " +
+            "where a.ancestorId = :id and c.id = a.descendantId order by a.depth desc, c.id")
+    List<Object[]> findSubtreeRefsDeepestFirst(@Param("id") Long id);
+
+    /**
+     * bulk delete, children, properties and parameters of the components must be deleted before
+     */
+    @Modifying
+    @Query("delete from Component c where c.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentUid;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ComponentUidRepository extends JpaRepository<ComponentUid, Long> {
+    @Query("select u.componentId from ComponentUid u where u.ownerId = :ownerId and u.uid = :uid")
+    Optional<Long> findComponentId(@Param("ownerId") Long ownerId, @Param("uid") String uid);
+
+    @Modifying
+    @Query("delete from ComponentUid u where u.componentId in :componentIds")
+    void deleteByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+}
@@ -0,0 +1,26 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+
+@Repository
+public interface ComponentVersionRepository extends JpaRepository<ComponentVersion, Long> {
+    /**
+     * bumps the version in a single statement, creating the row at version 1 when the component has none
+     */
+    @Modifying
+    @Query(value = "insert into component_version (component_id, version, last_modified) values (:componentId, 1, :now) " +
+            "on duplicate key update version = version + 1, last_modified = :now", nativeQuery = true)
+    void increment(@Param("componentId") Long componentId, @Param("now") Date now);
+
+    @Modifying
+    @Query("delete from ComponentVersion v where v.componentId in :componentIds")
+    void deleteByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+}
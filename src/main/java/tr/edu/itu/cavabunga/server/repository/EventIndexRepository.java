@@ -0,0 +1,65 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.EventIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface EventIndexRepository extends JpaRepository<EventIndex, Long> {
+    /**
+     * finds short entries of the owner overlapping [start, end), zero length events match when they start inside the range.
+     * earliestStart is start minus EventIndex.MAX_SHORT_SPAN_MILLIS, it bounds the index range scan from below
+     */
+    @Query("select e from EventIndex e " +
+            "where e.ownerId = :ownerId and e.longSpan = false " +
+            "and e.startDate >= :earliestStart and e.startDate < :end " +
+            "and (e.endDate > :start or (e.endDate = e.startDate and e.startDate >= :start)) " +
+            "order by e.startDate, e.componentId")
+    List<EventIndex> findShortInRange(@Param("ownerId") Long ownerId,
+                                      @Param("earliestStart") Date earliestStart,
+                                      @Param("start") Date start,
+                                      @Param("end") Date end);
+
+    /**
+     * finds long entries of the owner overlapping [start, end)
+     */
+    @Query("select e from EventIndex e " +
+            "where e.ownerId = :ownerId and e.longSpan = true and e.startDate < :end and e.endDate > :start " +
+            "order by e.startDate, e.componentId")
+    List<EventIndex> findLongInRange(@Param("ownerId") Long ownerId,
+                                     @Param("start") Date start,
+                                     @Param("end") Date end);
+
+    /**
+     * finds short busy entries of the owners overlapping [start, end), same overlap rules as findShortInRange
+     */
+    @Query("select e from EventIndex e " +
+            "where e.ownerId in :ownerIds and e.longSpan = false and e.busy = true " +
+            "and e.startDate >= :earliestStart and e.startDate < :end " +
+            "and (e.endDate > :start or (e.endDate = e.startDate and e.startDate >= :start))")
+    List<EventIndex> findShortBusyInRange(@Param("ownerIds") Collection<Long> ownerIds,
+                                          @Param("earliestStart") Date earliestStart,
+                                          @Param("start") Date start,
+                                          @Param("end") Date end);
+
+    /**
+     * finds long busy entries of the owners overlapping [start, end)
+     */
+    @Query("select e from EventIndex e " +
+            "where e.ownerId in :ownerIds and e.longSpan = true and e.busy = true " +
+            "and e.startDate < :end and e.endDate > :start")
+    List<EventIndex> findLongBusyInRange(@Param("ownerIds") Collection<Long> ownerIds,
+                                         @Param("start") Date start,
+                                         @Param("end") Date end);
+
+    @Modifying
+    @Query("delete from EventIndex e where e.componentId in :componentIds")
+    void deleteByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+}
@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface OwnerVersionRepository extends JpaRepository<OwnerVersion, Long> {
+    /**
+     * bumps the version in a single statement, creating the row at version 1 when the owner has none
+     */
+    @Modifying
+    @Query(value = "insert into owner_version (owner_id, version, last_modified) values (:ownerId, 1, :now) " +
+            "on duplicate key update version = version + 1, last_modified = :now", nativeQuery = true)
+    void increment(@Param("ownerId") Long ownerId, @Param("now") Date now);
+}
@@ -2,11 +2,23 @@ package tr.edu.itu.cavabunga.server.repository;
 
 import tr.edu.itu.cavabunga.lib.entity.Parameter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ParameterRepository extends JpaRepository<Parameter, Long> {
     Optional<Parameter> findById(Long Id);
+
+    @Query("select p.id, type(p), p.property.id, p.value from Parameter p where p.property.id in :propertyIds order by p.id")
+    List<Object[]> findSummariesByPropertyIds(@Param("propertyIds") Collection<Long> propertyIds);
+
+    @Modifying
+    @Query("delete from Parameter p where p.property.id in (select pr.id from Property pr where pr.component.id in :componentIds)")
+    int deleteByComponentIds(@Param("componentIds") Collection<Long> componentIds);
 }
@@ -1,9 +1,14 @@
 package tr.edu.itu.cavabunga.server.repository;
 
 import tr.edu.itu.cavabunga.lib.entity.Participant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,16 @@ public interface ParticipantRepository extends JpaRepository<Participant, Long>
 
     Optional<Participant> findById(Long Id);
 
+    @Query("select p from Participant p where p.id > :afterId order by p.id")
+    List<Participant> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p.id, type(p), p.userName, p.creationDate from Participant p where p.id > :afterId order by p.id")
+    List<Object[]> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p.id, type(p), p.userName, p.creationDate from Participant p where p.userName = :userName")
+    List<Object[]> findSummariesByUserName(@Param("userName") String userName);
+
+    @Query("select p.id, type(p), p.userName, p.creationDate from Participant p where p.id in :ids order by p.id")
+    List<Object[]> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
 }
@@ -2,11 +2,35 @@ package tr.edu.itu.cavabunga.server.repository;
 
 import tr.edu.itu.cavabunga.lib.entity.Property;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PropertyRepository extends JpaRepository<Property, Long> {
     Optional<Property> findById(Long Id);
+
+    @Query("select distinct p from Property p left join fetch p.parameters where p.component.id in :componentIds order by p.id")
+    List<Property> findWithParametersByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+
+    @Query("select distinct p from Property p left join fetch p.parameters where p.id = :id")
+    Optional<Property> findWithParametersById(@Param("id") Long id);
+
+    @Query("select p.id, type(p), p.component.id, p.value from Property p where p.id in :ids order by p.id")
+    List<Object[]> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id, type(p), p.component.id, p.value from Property p where p.component.id in :componentIds order by p.id")
+    List<Object[]> findSummariesByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+
+    /**
+     * bulk delete, parameters of the properties must be deleted before
+     */
+    @Modifying
+    @Query("delete from Property p where p.component.id in :componentIds")
+    int deleteByComponentIds(@Param("componentIds") Collection<Long> componentIds);
 }
@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+
+import java.util.List;
+
+/**
+ * keeps an append-only journal of component changes per owner, used for incremental sync
+ */
+public interface ChangeLogService {
+    /**
+     * returns journal entries of the owner after the given sequence. Sequences of an owner commit in
+     * order, an entry committed later always has a greater sequence than every entry already visible
+     *
+     * @param ownerId id of the owner participant
+     * @param afterSequence sequence of the last entry seen, 0 for the whole journal
+     * @param limit maximum number of entries
+     * @return entries ordered by sequence
+     */
+    List<ComponentChange> getChangesAfter(Long ownerId, Long afterSequence, int limit);
+}
@@ -0,0 +1,131 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentChange;
+import tr.edu.itu.cavabunga.server.event.ChangeType;
+import tr.edu.itu.cavabunga.server.event.ComponentChangedEvent;
+import tr.edu.itu.cavabunga.server.repository.ComponentChangeRepository;
+import tr.edu.itu.cavabunga.server.repository.ComponentChangeSequenceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@inheritDoc}
+ *
+ * Entries are collected per transaction and appended right before commit, one per changed component,
+ * so a save touching a component's properties many times journals it once. Sequences are reserved per
+ * owner in the same transaction, owners in id order so concurrent writers can't deadlock on each other.
+ */
+@Service
+public class ChangeLogServiceImpl implements ChangeLogService {
+    private ComponentChangeRepository componentChangeRepository;
+
+    private ComponentChangeSequenceRepository componentChangeSequenceRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentChangeRepository to inject ComponentChangeRepository
+     * @param componentChangeSequenceRepository to inject ComponentChangeSequenceRepository
+     */
+    @Autowired
+    public ChangeLogServiceImpl(
+            ComponentChangeRepository componentChangeRepository,
+            ComponentChangeSequenceRepository componentChangeSequenceRepository
+    ) {
+        this.componentChangeRepository = componentChangeRepository;
+        this.componentChangeSequenceRepository = componentChangeSequenceRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ComponentChange> getChangesAfter(Long ownerId, Long afterSequence, int limit){
+        return componentChangeRepository.findByOwnerAfter(ownerId, afterSequence, new PageRequest(0, limit));
+    }
+
+    /**
+     * records the change, runs inside the writing transaction
+     *
+     * @param event component change
+     */
+    @EventListener
+    public void onComponentChanged(ComponentChangedEvent event) {
+        if (event.getOwnerId() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges changes = new PendingChanges();
+            changes.add(event);
+            append(changes);
+            return;
+        }
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            PendingChanges newChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, newChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    append(newChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLogServiceImpl.this);
+                }
+            });
+            changes = newChanges;
+        }
+        changes.add(event);
+    }
+
+    private void append(PendingChanges changes) {
+        Date now = new Date();
+        Map<Long, List<ComponentChangedEvent>> byOwner = new TreeMap<>();
+        for (ComponentChangedEvent event : changes.entries.values()) {
+            byOwner.computeIfAbsent(event.getOwnerId(), key -> new ArrayList<>()).add(event);
+        }
+        List<ComponentChange> entries = new ArrayList<>(changes.entries.size());
+        for (Map.Entry<Long, List<ComponentChangedEvent>> owner : byOwner.entrySet()) {
+            int count = owner.getValue().size();
+            componentChangeSequenceRepository.reserve(owner.getKey(), count);
+            long sequence = componentChangeSequenceRepository.findLastSequence(owner.getKey()) - count;
+            for (ComponentChangedEvent event : owner.getValue()) {
+                ComponentChange entry = new ComponentChange();
+                entry.setOwnerId(event.getOwnerId());
+                entry.setSequence(++sequence);
+                entry.setComponentId(event.getComponentId());
+                entry.setChangeType(event.getChangeType());
+                entry.setChangedAt(now);
+                entries.add(entry);
+            }
+        }
+        componentChangeRepository.save(entries);
+    }
+
+    private static class PendingChanges {
+        private final Map<Long, ComponentChangedEvent> entries = new LinkedHashMap<>();
+
+        void add(ComponentChangedEvent event) {
+            ComponentChangedEvent previous = entries.get(event.getComponentId());
+            // created or deleted within the transaction outweighs later modifications
+            if (previous == null || event.getChangeType() != ChangeType.MODIFIED) {
+                entries.put(event.getComponentId(), event);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * maintains the closure table of the component hierarchy and answers subtree and ancestor queries from it
+ */
+public interface ComponentHierarchyService {
+    /**
+     * links a newly saved component below its parent, parents created in the same transaction must be added before
+     *
+     * @param component saved component with id
+     */
+    void addComponent(Component component);
+
+    /**
+     * adds components of the loaded subtree which are not linked yet, e.g. children created by merging a detached graph
+     *
+     * @param component saved root component
+     */
+    void addMissing(Component component);
+
+    /**
+     * relinks the subtree of the component when its parent differs from the linked one
+     *
+     * @param component saved component
+     */
+    void updateParent(Component component);
+
+    /**
+     * removes rows of deleted components, their descendants must be removed before or together
+     *
+     * @param componentIds ids of the deleted components
+     */
+    void removeComponents(Collection<Long> componentIds);
+
+    /**
+     * @param id id of the component
+     * @return ids of all descendants ordered by depth, the component itself excluded
+     */
+    List<Long> getDescendantIds(Long id);
+
+    /**
+     * @param id id of the component
+     * @return id of the root component, the component itself when it is a root, empty when not linked
+     */
+    Optional<Long> getRootId(Long id);
+
+    /**
+     * @param ids ids of components
+     * @return the given linked components and all their ancestors
+     */
+    Set<Long> getSelfAndAncestorIds(Collection<Long> ids);
+}
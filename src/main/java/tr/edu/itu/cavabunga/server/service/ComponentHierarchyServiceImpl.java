@@ -0,0 +1,209 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.server.entity.ComponentAncestor;
+import tr.edu.itu.cavabunga.server.repository.ComponentAncestorRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@inheritDoc}
+ *
+ * Rows of a new component are derived from the rows of its parent and persisted as entities, so they
+ * are flushed in JDBC batches together with the components. Ancestor rows read or written within a
+ * transaction are remembered until it completes, siblings created together read their parent once.
+ */
+@Service
+public class ComponentHierarchyServiceImpl implements ComponentHierarchyService {
+    private ComponentAncestorRepository componentAncestorRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentAncestorRepository to inject ComponentAncestorRepository
+     */
+    @Autowired
+    public ComponentHierarchyServiceImpl(ComponentAncestorRepository componentAncestorRepository) {
+        this.componentAncestorRepository = componentAncestorRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addComponent(Component component){
+        Long parentId = component.getParent() != null ? component.getParent().getId() : null;
+        List<ComponentAncestor> rows = new ArrayList<>();
+        rows.add(new ComponentAncestor(component.getId(), component.getId(), 0));
+        if (parentId != null) {
+            for (ComponentAncestor parentRow : ancestorRowsOf(parentId)) {
+                rows.add(new ComponentAncestor(parentRow.getAncestorId(), component.getId(), parentRow.getDepth() + 1));
+            }
+        }
+        for (ComponentAncestor row : rows) {
+            entityManager.persist(row);
+        }
+        Map<Long, List<ComponentAncestor>> known = knownRows();
+        if (known != null) {
+            known.put(component.getId(), rows);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addMissing(Component component){
+        List<Component> subtree = new ArrayList<>();
+        collectLoaded(component, subtree);
+        List<Long> ids = new ArrayList<>(subtree.size());
+        for (Component member : subtree) {
+            ids.add(member.getId());
+        }
+        Set<Long> linked = new HashSet<>(componentAncestorRepository.findIndexedIds(ids));
+        for (Component member : subtree) {
+            if (!linked.contains(member.getId())) {
+                addComponent(member);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateParent(Component component){
+        Long parentId = component.getParent() != null ? component.getParent().getId() : null;
+        Long linkedParentId = componentAncestorRepository.findParentId(component.getId());
+        if (parentId == null ? linkedParentId == null : parentId.equals(linkedParentId)) {
+            return;
+        }
+        List<Long> subtreeIds = new ArrayList<>(componentAncestorRepository.findDescendantIds(component.getId()));
+        subtreeIds.add(component.getId());
+        componentAncestorRepository.unlinkSubtree(subtreeIds);
+        if (parentId != null) {
+            componentAncestorRepository.linkSubtree(component.getId(), parentId);
+        }
+        Map<Long, List<ComponentAncestor>> known = knownRows();
+        if (known != null) {
+            known.keySet().removeAll(subtreeIds);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeComponents(Collection<Long> componentIds){
+        if (componentIds.isEmpty()) {
+            return;
+        }
+        componentAncestorRepository.deleteByDescendantIds(componentIds);
+        Map<Long, List<ComponentAncestor>> known = knownRows();
+        if (known != null) {
+            known.keySet().removeAll(componentIds);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> getDescendantIds(Long id){
+        return componentAncestorRepository.findDescendantIds(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getRootId(Long id){
+        List<Long> furthest = componentAncestorRepository.findAncestorIds(id, new PageRequest(0, 1));
+        if (!furthest.isEmpty()) {
+            return Optional.of(furthest.get(0));
+        }
+        return componentAncestorRepository.exists(new ComponentAncestor.Key(id, id)) ? Optional.of(id) : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Long> getSelfAndAncestorIds(Collection<Long> ids){
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(componentAncestorRepository.findSelfAndAncestorIds(ids));
+    }
+
+    private List<ComponentAncestor> ancestorRowsOf(Long id) {
+        Map<Long, List<ComponentAncestor>> known = knownRows();
+        if (known != null && known.containsKey(id)) {
+            return known.get(id);
+        }
+        List<ComponentAncestor> rows = new ArrayList<>();
+        for (Object[] row : componentAncestorRepository.findAncestorRows(id)) {
+            rows.add(new ComponentAncestor((Long) row[0], id, (Integer) row[1]));
+        }
+        if (known != null) {
+            known.put(id, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * @return rows known in the current transaction, null without transaction synchronization
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<ComponentAncestor>> knownRows() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<Long, List<ComponentAncestor>> known = (Map<Long, List<ComponentAncestor>>) TransactionSynchronizationManager.getResource(this);
+        if (known == null) {
+            known = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, known);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ComponentHierarchyServiceImpl.this);
+                }
+            });
+        }
+        return known;
+    }
+
+    private void collectLoaded(Component component, List<Component> subtree) {
+        if (component.getId() == null) {
+            return;
+        }
+        subtree.add(component);
+        if (component.getComponents() != null && Hibernate.isInitialized(component.getComponents())) {
+            for (Component child : component.getComponents()) {
+                collectLoaded(child, subtree);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import java.util.Optional;
+
+/**
+ * keeps serialized component subtrees in memory, invalidated whenever a component of the subtree is written
+ */
+public interface ComponentTreeCacheService {
+    /**
+     * returns the component with its whole subtree serialized as ComponentResponse JSON,
+     * loading and caching it on a miss or when the cached tree is older than the stored subtree version
+     *
+     * @param id id of the component
+     * @return serialized response or empty when component not found
+     */
+    Optional<String> getSerializedTree(Long id);
+
+    /**
+     * drops every cached subtree that contains one of the given components, i.e. the components and all their cached ancestors
+     *
+     * @param componentId changed component
+     * @param parentId parent of the changed component, may be null
+     */
+    void invalidate(Long componentId, Long parentId);
+}
@@ -0,0 +1,223 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.http.ComponentResponse;
+import tr.edu.itu.cavabunga.server.cache.CacheRegistry;
+import tr.edu.itu.cavabunga.server.cache.NearCache;
+import tr.edu.itu.cavabunga.server.event.ComponentChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@inheritDoc}
+ *
+ * Besides the serialized text every entry remembers the ids of its subtree. A reverse index from
+ * component id to the cached trees containing it makes an invalidation walk only the ancestors that
+ * are actually cached, instead of loading the parent chain from the database.
+ *
+ * Entries also remember the subtree version they were loaded at and are only served while the
+ * version in the database is unchanged, so a body never lags behind the ETag derived from that
+ * version, even when the invalidation of another instance never reached this one. The version is read
+ * in the transaction loading the tree, a tree loaded from a lagging replica carries the older version
+ * and is neither served to readers seeing a newer one nor allowed to replace a newer entry.
+ *
+ * The cache is only touched while holding the index lock, the removal listener takes the same lock
+ * so both are always acquired in the same order.
+ *
+ * Trees vary from a handful of properties to whole calendars, so the cache is bounded by the total
+ * length of the serialized text (cavabunga.cache.component-tree.max-chars) besides the number of trees.
+ * A tree longer than a tenth of that bound is served without being cached, one huge calendar would
+ * otherwise push out everything else.
+ */
+@Service
+public class ComponentTreeCacheServiceImpl implements ComponentTreeCacheService {
+    private IcalService icalService;
+
+    private VersionService versionService;
+
+    private ObjectMapper objectMapper;
+
+    private final NearCache<Long, CachedTree> cache;
+
+    private final long maxTreeChars;
+
+    private final Map<Long, Set<Long>> treesByMember = new HashMap<>();
+
+    /**
+     * bumped by every invalidation, a tree loaded while it changed is not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param icalService to inject IcalService
+     * @param versionService to inject VersionService
+     * @param objectMapper to serialize trees like the web layer does
+     * @param cacheRegistry to create the tree cache
+     * @param cacheSize maximum number of cached trees
+     * @param ttlSeconds time to live of a cached tree, bounds staleness caused by other instances
+     * @param maxChars maximum total length of the cached serialized trees, 0 or less bounds the number of trees only
+     */
+    @Autowired
+    public ComponentTreeCacheServiceImpl(
+            IcalService icalService,
+            VersionService versionService,
+            ObjectMapper objectMapper,
+            CacheRegistry cacheRegistry,
+            @Value("${cavabunga.cache.component-tree.max-size:1000}") int cacheSize,
+            @Value("${cavabunga.cache.component-tree.ttl-seconds:600}") long ttlSeconds,
+            @Value("${cavabunga.cache.component-tree.max-chars:50000000}") long maxChars
+    ) {
+        this.icalService = icalService;
+        this.versionService = versionService;
+        this.objectMapper = objectMapper;
+        this.cache = cacheRegistry.create("component.tree", cacheSize, ttlSeconds * 1000, maxChars, tree -> tree.json.length());
+        this.maxTreeChars = maxChars > 0 ? maxChars / 10 : Long.MAX_VALUE;
+        this.cache.setRemovalListener(this::unindex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getSerializedTree(Long id){
+        // read before the tree, a write committing in between makes the entry look older than it is, never newer
+        long version = versionService.getComponentVersion(id).getVersion();
+        CachedTree cached;
+        synchronized (treesByMember) {
+            cached = cache.get(id);
+        }
+        if (cached != null && cached.version == version) {
+            return Optional.of(cached.json);
+        }
+
+        long loadedAt = generation.get();
+        Optional<Component> tree = icalService.getComponentTreeById(id);
+        if (!tree.isPresent()) {
+            return Optional.empty();
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(new ComponentResponse(0, null, tree.get()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Component " + id + " could not be serialized", e);
+        }
+        if (json.length() > maxTreeChars) {
+            synchronized (treesByMember) {
+                // an older version of the tree is never served again, it would only take up room
+                cache.invalidate(id);
+            }
+            return Optional.of(json);
+        }
+
+        Set<Long> members = new HashSet<>();
+        collectIds(tree.get(), members);
+        synchronized (treesByMember) {
+            // an entry of a newer version was loaded from the primary, this reader is on a lagging replica
+            if (loadedAt == generation.get() && (cached == null || cached.version < version)) {
+                // a replaced entry is unindexed by the removal listener, so index only afterwards
+                cache.put(id, new CachedTree(json, version, members));
+                index(id, members);
+            }
+        }
+        return Optional.of(json);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(Long componentId, Long parentId){
+        synchronized (treesByMember) {
+            generation.incrementAndGet();
+            List<Long> trees = new ArrayList<>(treesByMember.getOrDefault(componentId, Collections.emptySet()));
+            if (parentId != null) {
+                trees.addAll(treesByMember.getOrDefault(parentId, Collections.emptySet()));
+            }
+            for (Long tree : trees) {
+                cache.invalidate(tree);
+            }
+        }
+    }
+
+    /**
+     * evicts as soon as the write happens
+     *
+     * @param event component change
+     */
+    @EventListener
+    public void onComponentChanged(ComponentChangedEvent event) {
+        invalidate(event.getComponentId(), event.getParentId());
+    }
+
+    /**
+     * evicts again after commit, a concurrent reader may have cached the state before the write became visible
+     *
+     * @param event component change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void afterComponentChanged(ComponentChangedEvent event) {
+        invalidate(event.getComponentId(), event.getParentId());
+    }
+
+    private void index(Long treeId, Set<Long> members) {
+        for (Long member : members) {
+            treesByMember.computeIfAbsent(member, key -> new HashSet<>()).add(treeId);
+        }
+    }
+
+    private void unindex(Long treeId, CachedTree tree) {
+        synchronized (treesByMember) {
+            for (Long member : tree.members) {
+                Set<Long> trees = treesByMember.get(member);
+                if (trees != null) {
+                    trees.remove(treeId);
+                    if (trees.isEmpty()) {
+                        treesByMember.remove(member);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void collectIds(Component component, Set<Long> ids) {
+        ids.add(component.getId());
+        if (component.getComponents() != null) {
+            for (Component child : component.getComponents()) {
+                collectIds(child, ids);
+            }
+        }
+    }
+
+    private static final class CachedTree {
+        private final String json;
+
+        private final long version;
+
+        private final Set<Long> members;
+
+        private CachedTree(String json, long version, Set<Long> members) {
+            this.json = json;
+            this.version = version;
+            this.members = members;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * maintains the UID index of components for lookups by iCalendar UID
+ */
+public interface ComponentUidService {
+    /**
+     * re-reads UID of the given component, removes its index entry when it doesn't own a UID
+     *
+     * @param component saved component
+     * @throws Conflict when another component of the same owner already has the UID
+     */
+    void indexComponent(Component component);
+
+    /**
+     * indexes given component and its already loaded descendants
+     *
+     * @param component saved root component
+     * @throws Conflict when another component of the same owner already has one of the UIDs
+     */
+    void indexSubtree(Component component);
+
+    /**
+     * removes index entries of the given components
+     *
+     * @param componentIds ids of the deleted components
+     */
+    void removeComponents(Collection<Long> componentIds);
+
+    /**
+     * @param ownerId id of the owner participant
+     * @param uid iCalendar UID
+     * @return id of the component with the given UID
+     */
+    Optional<Long> findComponentId(Long ownerId, String uid);
+}
@@ -0,0 +1,108 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+import tr.edu.itu.cavabunga.server.entity.ComponentUid;
+import tr.edu.itu.cavabunga.server.ical.ComponentUids;
+import tr.edu.itu.cavabunga.server.repository.ComponentUidRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * {@inheritDoc}
+ */
+@Service
+public class ComponentUidServiceImpl implements ComponentUidService {
+    private ComponentUidRepository componentUidRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentUidRepository to inject ComponentUidRepository
+     */
+    @Autowired
+    public ComponentUidServiceImpl(ComponentUidRepository componentUidRepository) {
+        this.componentUidRepository = componentUidRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void indexComponent(Component component){
+        if (component.getId() == null) {
+            return;
+        }
+
+        String uid = ComponentUids.of(component);
+        Participant owner = findOwner(component);
+        if (uid == null || owner == null) {
+            if (componentUidRepository.exists(component.getId())) {
+                componentUidRepository.delete(component.getId());
+            }
+            return;
+        }
+
+        Optional<Long> current = componentUidRepository.findComponentId(owner.getId(), uid);
+        if (current.isPresent()) {
+            if (!current.get().equals(component.getId())) {
+                throw new Conflict("UID: " + uid + " is already used by component with ID: " + current.get());
+            }
+            return;
+        }
+
+        ComponentUid index = new ComponentUid();
+        index.setComponentId(component.getId());
+        index.setOwnerId(owner.getId());
+        index.setUid(uid);
+        componentUidRepository.save(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void indexSubtree(Component component){
+        indexComponent(component);
+        // only walk children that are already in memory, untouched lazy subtrees did not change
+        if (component.getComponents() != null && Hibernate.isInitialized(component.getComponents())) {
+            for (Component child : component.getComponents()) {
+                indexSubtree(child);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeComponents(Collection<Long> componentIds){
+        if (!componentIds.isEmpty()) {
+            componentUidRepository.deleteByComponentIds(componentIds);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Long> findComponentId(Long ownerId, String uid){
+        return componentUidRepository.findComponentId(ownerId, uid);
+    }
+
+    private Participant findOwner(Component component) {
+        Component current = component;
+        while (current != null) {
+            if (current.getOwner() != null) {
+                return current.getOwner();
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+}
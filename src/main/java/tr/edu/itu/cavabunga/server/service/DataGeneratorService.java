@@ -0,0 +1,22 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+import tr.edu.itu.cavabunga.server.ical.GenerationResult;
+import tr.edu.itu.cavabunga.server.ical.GenerationSpec;
+
+/**
+ * generates synthetic participants, calendars and events for load tests and capacity planning
+ */
+public interface DataGeneratorService {
+    /**
+     * generates the dataset described by spec, events are committed in chunks so that a run of
+     * millions of rows never holds more than one chunk in memory
+     *
+     * @param spec shape of the dataset
+     * @return counters of the run
+     * @throws IllegalArgumentException when a count of spec is negative | recurrence ratio is outside of [0, 1] |
+     *                                  the spec has more events in total than cavabunga.generator.max-events
+     * @throws Conflict when a participant of the spec already exists, e.g. the spec was generated before
+     */
+    GenerationResult generate(GenerationSpec spec);
+}
@@ -0,0 +1,311 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.ical.GenerationResult;
+import tr.edu.itu.cavabunga.server.ical.GenerationSpec;
+import tr.edu.itu.cavabunga.server.ical.IcalNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@inheritDoc}
+ *
+ * Events are written through IcalService like REST writes, so every index stays consistent, in
+ * chunks of cavabunga.generator.chunk-size events per transaction. Each chunk is flushed and
+ * detached before the next one is built. Writes cost what they cost for an import, one INSERT per
+ * generated element, see IcalImportServiceImpl.
+ * Participants are added through CalendarManagerService like REST creation, so they are assigned to
+ * a shard, and their calendars are written with that shard bound.
+ */
+@Service
+public class DataGeneratorServiceImpl implements DataGeneratorService {
+    private static final Instant RANGE_START = Instant.parse("2016-01-01T00:00:00Z");
+
+    private static final int RANGE_HOURS = 365 * 24;
+
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final String[] RULES = {
+            "FREQ=DAILY;COUNT=10",
+            "FREQ=WEEKLY;COUNT=20",
+            "FREQ=WEEKLY;BYDAY=MO,WE,FR",
+            "FREQ=MONTHLY;BYMONTHDAY=1;COUNT=12",
+            "FREQ=YEARLY"
+    };
+
+    private static final String[] ROLES = {"REQ-PARTICIPANT", "OPT-PARTICIPANT", "CHAIR"};
+
+    private static final String[] PARTSTATS = {"NEEDS-ACTION", "ACCEPTED", "DECLINED", "TENTATIVE"};
+
+    private final Map<String, PropertyType> propertyTypes = new HashMap<>();
+
+    private final Map<String, ParameterType> parameterTypes = new HashMap<>();
+
+    private IcalService icalService;
+
+    private ParticipantService participantService;
+
+    private CalendarManagerService calendarManagerService;
+
+    private ShardMapService shardMapService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private int chunkSize;
+
+    private long maxEvents;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param icalService to inject IcalService
+     * @param participantService to inject ParticipantService
+     * @param calendarManagerService to inject CalendarManagerService, participants are added through it
+     * @param shardMapService to inject ShardMapService
+     * @param transactionManager to run each chunk in its own transaction
+     * @param chunkSize number of events committed per transaction
+     * @param maxEvents upper bound of participants x calendars x events of a single run
+     */
+    @Autowired
+    public DataGeneratorServiceImpl(
+            IcalService icalService,
+            ParticipantService participantService,
+            CalendarManagerService calendarManagerService,
+            ShardMapService shardMapService,
+            PlatformTransactionManager transactionManager,
+            @Value("${cavabunga.generator.chunk-size:500}") int chunkSize,
+            @Value("${cavabunga.generator.max-events:1000000}") long maxEvents
+    ) {
+        this.icalService = icalService;
+        this.participantService = participantService;
+        this.calendarManagerService = calendarManagerService;
+        this.shardMapService = shardMapService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.maxEvents = maxEvents;
+
+        // resolved by iCal name, types the entity library doesn't map are left out of the events
+        for (PropertyType type : PropertyType.values()) {
+            propertyTypes.put(IcalNames.elementName(type.name()), type);
+        }
+        for (ParameterType type : ParameterType.values()) {
+            parameterTypes.put(IcalNames.elementName(type.name()), type);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GenerationResult generate(GenerationSpec spec){
+        Assert.notNull(spec, "Spec must not be null!");
+        Assert.hasText(spec.getUserNamePrefix(), "Username prefix must not be empty!");
+        Assert.isTrue(spec.getParticipants() >= 0 && spec.getCalendarsPerParticipant() >= 0
+                && spec.getEventsPerCalendar() >= 0 && spec.getPropertiesPerEvent() >= 0
+                && spec.getParametersPerProperty() >= 0 && spec.getAttendeesPerEvent() >= 0, "Counts must not be negative!");
+        Assert.isTrue(spec.getRecurrenceRatio() >= 0 && spec.getRecurrenceRatio() <= 1, "Recurrence ratio must be between 0 and 1!");
+        // counts are ints, their product fits into a long
+        long events = (long) spec.getParticipants() * spec.getCalendarsPerParticipant() * spec.getEventsPerCalendar();
+        Assert.isTrue(events <= maxEvents, "Spec has " + events + " events, at most " + maxEvents + " are generated per run!");
+
+        GenerationResult result = new GenerationResult(spec);
+        Random random = new Random(spec.getSeed());
+        for (int p = 0; p < spec.getParticipants(); p++) {
+            String userName = spec.getUserNamePrefix() + "-" + spec.getSeed() + "-" + p;
+            Long ownerId = saveParticipant(userName);
+            result.participantCreated();
+            String previous = ShardContext.bind(shardMapService.getShardOfParticipant(ownerId));
+            try {
+                for (int c = 0; c < spec.getCalendarsPerParticipant(); c++) {
+                    new CalendarGeneration(spec, random, result, ownerId, userName + "-" + c).run();
+                }
+            } finally {
+                ShardContext.bind(previous);
+            }
+        }
+        result.completed();
+        return result;
+    }
+
+    private Long saveParticipant(String userName) {
+        Participant participant = participantService.createParticipant(userName, ParticipantType.User);
+        calendarManagerService.addParticipant(participant);
+        return participant.getId();
+    }
+
+    /**
+     * state of one generated calendar
+     */
+    private class CalendarGeneration {
+        private final GenerationSpec spec;
+
+        private final Random random;
+
+        private final GenerationResult result;
+
+        private final Long ownerId;
+
+        private final String uidPrefix;
+
+        private final List<Component> chunk = new ArrayList<>();
+
+        private Long calendarId;
+
+        private long chunkProperties = 0;
+
+        private long chunkParameters = 0;
+
+        CalendarGeneration(GenerationSpec spec, Random random, GenerationResult result, Long ownerId, String uidPrefix) {
+            this.spec = spec;
+            this.random = random;
+            this.result = result;
+            this.ownerId = ownerId;
+            this.uidPrefix = uidPrefix;
+        }
+
+        void run() {
+            Component calendar = icalService.createComponent(ComponentType.Calendar);
+            addProperty(calendar, "PRODID", "-//Cavabunga//Data Generator//EN");
+            addProperty(calendar, "CALSCALE", "GREGORIAN");
+            transactionTemplate.execute(status -> {
+                calendar.setOwner(ownerReference());
+                icalService.saveComponent(calendar);
+                detach();
+                return null;
+            });
+            calendarId = calendar.getId();
+            commit(1);
+
+            for (int e = 0; e < spec.getEventsPerCalendar(); e++) {
+                chunk.add(event(uidPrefix + "-" + e + "@generated.cavabunga"));
+                if (chunk.size() >= chunkSize) {
+                    flushChunk();
+                }
+            }
+            flushChunk();
+        }
+
+        private Component event(String uid) {
+            Component event = icalService.createComponent(ComponentType.Event);
+            Instant start = RANGE_START.plus(Duration.ofHours(random.nextInt(RANGE_HOURS)));
+            Instant end = start.plus(Duration.ofMinutes(30 * (1 + random.nextInt(6))));
+            addProperty(event, "DTSTART", UTC_DATE_TIME.format(start));
+            addProperty(event, "DTEND", UTC_DATE_TIME.format(end));
+            addProperty(event, "DTSTAMP", UTC_DATE_TIME.format(RANGE_START));
+            addProperty(event, "UID", uid);
+            addProperty(event, "SUMMARY", "Generated event " + uid);
+            if (random.nextDouble() < spec.getRecurrenceRatio()) {
+                addProperty(event, "RRULE", RULES[random.nextInt(RULES.length)]);
+            }
+            for (int a = 0; a < spec.getAttendeesPerEvent(); a++) {
+                // the attendee type is not mapped by every library version, SeederController uses the same fallback
+                Property attendee = icalService.createProperty(propertyTypes.getOrDefault("ATTENDEE", PropertyType.Acknowledged));
+                attendee.setValue("mailto:attendee" + random.nextInt(10000) + "@generated.cavabunga");
+                addParameter(attendee, "CN", "Attendee " + a);
+                addParameter(attendee, "CUTYPE", "INDIVIDUAL");
+                addParameter(attendee, "ROLE", ROLES[random.nextInt(ROLES.length)]);
+                addParameter(attendee, "PARTSTAT", PARTSTATS[random.nextInt(PARTSTATS.length)]);
+                event.addProperty(attendee);
+                chunkProperties++;
+            }
+            for (int i = event.getProperties().size(); i < spec.getPropertiesPerEvent(); i++) {
+                Property description = addProperty(event, "DESCRIPTION", "Generated description " + i);
+                for (int j = 0; description != null && j < spec.getParametersPerProperty(); j++) {
+                    addParameter(description, "LANGUAGE", "en");
+                }
+            }
+            return event;
+        }
+
+        private Property addProperty(Component component, String name, String value) {
+            PropertyType type = propertyTypes.get(name);
+            if (type == null) {
+                return null;
+            }
+            Property property = icalService.createProperty(type);
+            property.setValue(value);
+            component.addProperty(property);
+            chunkProperties++;
+            return property;
+        }
+
+        private void addParameter(Property property, String name, String value) {
+            ParameterType type = parameterTypes.get(name);
+            if (type == null) {
+                return;
+            }
+            Parameter parameter = icalService.createParameter(type);
+            parameter.setValue(value);
+            property.addParameter(parameter);
+            chunkParameters++;
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            transactionTemplate.execute(status -> {
+                Component calendar = entityManager.getReference(Component.class, calendarId);
+                Participant owner = ownerReference();
+                for (Component event : chunk) {
+                    event.setOwner(owner);
+                    event.setParent(calendar);
+                    icalService.saveComponent(event);
+                }
+                detach();
+                return null;
+            });
+            long components = chunk.size();
+            chunk.clear();
+            commit(components);
+        }
+
+        /**
+         * the persistence context is cleared after every chunk, so the owner is re-attached per transaction
+         */
+        private Participant ownerReference() {
+            return entityManager.getReference(Participant.class, ownerId);
+        }
+
+        private void detach() {
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        private void commit(long components) {
+            result.chunkCommitted(components, chunkProperties, chunkParameters);
+            chunkProperties = 0;
+            chunkParameters = 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.server.entity.EventIndex;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * maintains denormalized start/end instants of schedulable components for time range queries
+ */
+public interface EventIndexService {
+    /**
+     * re-extracts time range of the given component, removes its index entry when it has no valid DTSTART
+     *
+     * @param component saved component
+     */
+    void indexComponent(Component component);
+
+    /**
+     * indexes given component and its already loaded descendants
+     *
+     * @param component saved root component
+     */
+    void indexSubtree(Component component);
+
+    /**
+     * removes index entries of the given components
+     *
+     * @param componentIds ids of the deleted components
+     */
+    void removeComponents(Collection<Long> componentIds);
+
+    /**
+     * finds index entries of components owned by participant which overlap with [start, end),
+     * recurring entries span their whole series and still need to be expanded
+     *
+     * @param owner owner participant
+     * @param start inclusive start of the range
+     * @param end exclusive end of the range
+     * @return matching index entries ordered by their start
+     */
+    List<EventIndex> findInRange(Participant owner, Date start, Date end);
+
+    /**
+     * finds index entries of busy components owned by one of the participants which overlap with [start, end),
+     * recurring entries span their whole series and still need to be expanded
+     *
+     * @param ownerIds ids of the owner participants
+     * @param start inclusive start of the range
+     * @param end exclusive end of the range
+     * @return matching index entries in no particular order
+     */
+    List<EventIndex> findBusyInRange(Collection<Long> ownerIds, Date start, Date end);
+}
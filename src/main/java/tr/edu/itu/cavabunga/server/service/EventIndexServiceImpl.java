@@ -0,0 +1,157 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.server.entity.EventIndex;
+import tr.edu.itu.cavabunga.server.ical.EventTimes;
+import tr.edu.itu.cavabunga.server.ical.recurrence.RecurrenceExpander;
+import tr.edu.itu.cavabunga.server.repository.EventIndexRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@inheritDoc}
+ *
+ * Range queries run separately for short and long entries, see EventIndex, and are merged here.
+ */
+@Service
+public class EventIndexServiceImpl implements EventIndexService {
+    /**
+     * end of unbounded series, kept well inside the DATETIME range
+     */
+    private static final Instant UNBOUNDED_END = LocalDate.of(9000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+    private static final int MAX_SCANNED_INSTANCES = 10000;
+
+    private static final Comparator<EventIndex> BY_START = Comparator.comparing(EventIndex::getStartDate)
+            .thenComparing(EventIndex::getComponentId);
+
+    private EventIndexRepository eventIndexRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param eventIndexRepository to inject EventIndexRepository
+     */
+    @Autowired
+    public EventIndexServiceImpl(EventIndexRepository eventIndexRepository) {
+        this.eventIndexRepository = eventIndexRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void indexComponent(Component component){
+        if (component.getId() == null) {
+            return;
+        }
+
+        EventTimes times = EventTimes.of(component);
+        Participant owner = findOwner(component);
+        if (times == null || owner == null) {
+            if (eventIndexRepository.exists(component.getId())) {
+                eventIndexRepository.delete(component.getId());
+            }
+            return;
+        }
+
+        EventIndex index = new EventIndex();
+        index.setComponentId(component.getId());
+        index.setOwnerId(owner.getId());
+        index.setStartDate(Date.from(times.getStart()));
+        index.setEndDate(Date.from(times.getEnd()));
+        index.setBusy(EventTimes.isBusy(component));
+        if (RecurrenceExpander.isRecurring(component)) {
+            index.setRecurring(true);
+            index.setEndDate(Date.from(seriesEnd(component)));
+        }
+        index.setLongSpan(index.getEndDate().getTime() - index.getStartDate().getTime() > EventIndex.MAX_SHORT_SPAN_MILLIS);
+        eventIndexRepository.save(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void indexSubtree(Component component){
+        if (EventTimes.isSchedulable(component)) {
+            indexComponent(component);
+        }
+        // only walk children that are already in memory, untouched lazy subtrees did not change
+        if (component.getComponents() != null && Hibernate.isInitialized(component.getComponents())) {
+            for (Component child : component.getComponents()) {
+                indexSubtree(child);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeComponents(Collection<Long> componentIds){
+        if (!componentIds.isEmpty()) {
+            eventIndexRepository.deleteByComponentIds(componentIds);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<EventIndex> findInRange(Participant owner, Date start, Date end){
+        List<EventIndex> entries = new ArrayList<>(eventIndexRepository.findShortInRange(owner.getId(), earliestStart(start), start, end));
+        entries.addAll(eventIndexRepository.findLongInRange(owner.getId(), start, end));
+        entries.sort(BY_START);
+        return entries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<EventIndex> findBusyInRange(Collection<Long> ownerIds, Date start, Date end){
+        if (ownerIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<EventIndex> entries = new ArrayList<>(eventIndexRepository.findShortBusyInRange(ownerIds, earliestStart(start), start, end));
+        entries.addAll(eventIndexRepository.findLongBusyInRange(ownerIds, start, end));
+        return entries;
+    }
+
+    private static Date earliestStart(Date start) {
+        return new Date(start.getTime() - EventIndex.MAX_SHORT_SPAN_MILLIS);
+    }
+
+    private Instant seriesEnd(Component component) {
+        try {
+            Instant end = new RecurrenceExpander(component, Collections.emptyList()).seriesEnd(MAX_SCANNED_INSTANCES);
+            return end != null ? end : UNBOUNDED_END;
+        } catch (IllegalArgumentException e) {
+            return UNBOUNDED_END;
+        }
+    }
+
+    private Participant findOwner(Component component) {
+        Component current = component;
+        while (current != null) {
+            if (current.getOwner() != null) {
+                return current.getOwner();
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+}
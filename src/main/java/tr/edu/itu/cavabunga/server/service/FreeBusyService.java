@@ -0,0 +1,22 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.ical.BusyPeriod;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * computes merged busy time of a group of participants from the event index
+ */
+public interface FreeBusyService {
+    int MAX_PARTICIPANTS = 200;
+
+    /**
+     * @param ownerIds ids of the participants
+     * @param start inclusive start of the window
+     * @param end exclusive end of the window
+     * @return disjoint busy periods clipped to the window, ordered by start
+     */
+    List<BusyPeriod> getBusyPeriods(Collection<Long> ownerIds, Date start, Date end);
+}
@@ -0,0 +1,75 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.server.entity.EventIndex;
+import tr.edu.itu.cavabunga.server.ical.BusyPeriod;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+import tr.edu.itu.cavabunga.server.repository.ComponentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@inheritDoc}
+ *
+ * Single events are answered from the index rows alone, only recurring series are loaded and expanded.
+ */
+@Service
+public class FreeBusyServiceImpl implements FreeBusyService {
+    private EventIndexService eventIndexService;
+
+    private RecurrenceService recurrenceService;
+
+    private ComponentRepository componentRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param eventIndexService to inject EventIndexService
+     * @param recurrenceService to inject RecurrenceService
+     * @param componentRepository to inject ComponentRepository
+     */
+    @Autowired
+    public FreeBusyServiceImpl(
+            EventIndexService eventIndexService,
+            RecurrenceService recurrenceService,
+            ComponentRepository componentRepository
+    ) {
+        this.eventIndexService = eventIndexService;
+        this.recurrenceService = recurrenceService;
+        this.componentRepository = componentRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BusyPeriod> getBusyPeriods(Collection<Long> ownerIds, Date start, Date end){
+        Instant windowStart = start.toInstant();
+        Instant windowEnd = end.toInstant();
+        List<BusyPeriod> periods = new ArrayList<>();
+        List<Long> recurringIds = new ArrayList<>();
+        for (EventIndex entry : eventIndexService.findBusyInRange(ownerIds, start, end)) {
+            if (entry.isRecurring()) {
+                recurringIds.add(entry.getComponentId());
+            } else {
+                periods.add(new BusyPeriod(entry.getStartDate().toInstant(), entry.getEndDate().toInstant()));
+            }
+        }
+        if (!recurringIds.isEmpty()) {
+            for (Component component : componentRepository.findAll(recurringIds)) {
+                for (Occurrence occurrence : recurrenceService.getOccurrences(component, windowStart, windowEnd)) {
+                    periods.add(new BusyPeriod(occurrence.getStart(), occurrence.getEnd()));
+                }
+            }
+        }
+        return BusyPeriod.merge(periods, windowStart, windowEnd);
+    }
+}
@@ -0,0 +1,48 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the work of expensive endpoints (full trees, bulk deletes, imports, exports) on the bounded
+ * heavy request executor instead of a servlet thread, so that cheap requests keep their threads.
+ *
+ * Each endpoint may have at most cavabunga.heavy.{endpoint}.max-concurrent requests running or
+ * queued (default cavabunga.heavy.max-concurrent), further requests are rejected right away.
+ */
+public interface HeavyRequestService {
+    /**
+     * @param endpoint name of the endpoint the limit applies to, e.g. import
+     * @param task work producing the response
+     * @param <T> type of the response
+     * @return result completed with the value or the exception of task
+     * @throws java.util.concurrent.RejectedExecutionException when the endpoint is at its limit or the executor queue is full
+     */
+    <T> DeferredResult<T> submit(String endpoint, Supplier<T> task);
+
+    /**
+     * like submit, but also serializes the value to JSON on the executor. The value is serialized
+     * after the transactions of task have ended, it must not rely on lazy loading, e.g. views or
+     * entities initialized by the business layer
+     *
+     * @param endpoint name of the endpoint the limit applies to
+     * @param task work producing the response body
+     * @return result completed with the serialized body or the exception of task
+     * @throws java.util.concurrent.RejectedExecutionException when the endpoint is at its limit or the executor queue is full
+     */
+    DeferredResult<ResponseEntity<String>> submitJson(String endpoint, Supplier<?> task);
+
+    /**
+     * holds a slot of the endpoint until body has been written, streaming bodies are written on
+     * the MVC async executor which is the heavy request executor as well
+     *
+     * @param endpoint name of the endpoint the limit applies to
+     * @param body body to write
+     * @return body releasing the slot once written
+     * @throws java.util.concurrent.RejectedExecutionException when the endpoint is at its limit or the executor queue is full
+     */
+    StreamingResponseBody stream(String endpoint, StreamingResponseBody body);
+}
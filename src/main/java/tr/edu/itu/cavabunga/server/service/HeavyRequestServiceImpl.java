@@ -0,0 +1,166 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@inheritDoc}
+ *
+ * Slots are taken before the work is queued, so a request is either rejected with 503 while it is
+ * still cheap or is guaranteed a place in the executor queue. Per endpoint cavabunga.heavy.in.flight
+ * shows the taken slots, cavabunga.heavy.queue.wait the time spent in the queue and
+ * cavabunga.heavy.rejected the turned away requests; the executor itself is exposed as executor.*
+ * with name heavy-request.
+ */
+@Service
+public class HeavyRequestServiceImpl implements HeavyRequestService {
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskExecutor executor;
+
+    private ObjectMapper objectMapper;
+
+    private MeterRegistry meterRegistry;
+
+    private Environment environment;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param executor to inject the heavy request executor
+     * @param objectMapper to inject ObjectMapper
+     * @param meterRegistry to inject MeterRegistry
+     * @param environment to resolve the limits of endpoints as they are first used
+     */
+    @Autowired
+    public HeavyRequestServiceImpl(
+            @Qualifier("heavyRequestExecutor") ThreadPoolTaskExecutor executor,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            Environment environment
+    ) {
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> DeferredResult<T> submit(String endpoint, Supplier<T> task) {
+        Endpoint slots = acquire(endpoint);
+        DeferredResult<T> result = new DeferredResult<>();
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                slots.queueWait.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                try {
+                    result.setResult(task.get());
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                } finally {
+                    slots.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.permits.release();
+            slots.rejected.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeferredResult<ResponseEntity<String>> submitJson(String endpoint, Supplier<?> task) {
+        return submit(endpoint, () -> {
+            try {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .body(objectMapper.writeValueAsString(task.get()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Response of " + endpoint + " couldn't be serialized", e);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingResponseBody stream(String endpoint, StreamingResponseBody body) {
+        if (executor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+            // the body is only handed to the executor after the handler returned, a slot taken now would leak
+            endpoint(endpoint).rejected.increment();
+            throw new RejectedExecutionException(endpoint + " is busy, please retry later");
+        }
+        Endpoint slots = acquire(endpoint);
+        return outputStream -> {
+            try {
+                body.writeTo(outputStream);
+            } finally {
+                slots.permits.release();
+            }
+        };
+    }
+
+    private Endpoint acquire(String endpoint) {
+        Endpoint slots = endpoint(endpoint);
+        if (!slots.permits.tryAcquire()) {
+            slots.rejected.increment();
+            throw new RejectedExecutionException(endpoint + " is busy, please retry later");
+        }
+        return slots;
+    }
+
+    private Endpoint endpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, name -> {
+            int defaultLimit = environment.getProperty("cavabunga.heavy.max-concurrent", Integer.class, 4);
+            return new Endpoint(name, environment.getProperty("cavabunga.heavy." + name + ".max-concurrent", Integer.class, defaultLimit));
+        });
+    }
+
+    /**
+     * slots and meters of one endpoint
+     */
+    private class Endpoint {
+        private final Semaphore permits;
+
+        private final Timer queueWait;
+
+        private final Counter rejected;
+
+        Endpoint(String name, int limit) {
+            this.permits = new Semaphore(limit);
+            Gauge.builder("cavabunga.heavy.in.flight", permits, p -> limit - p.availablePermits())
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            this.queueWait = Timer.builder("cavabunga.heavy.queue.wait").tag("endpoint", name).register(meterRegistry);
+            this.rejected = Counter.builder("cavabunga.heavy.rejected").tag("endpoint", name).register(meterRegistry);
+        }
+    }
+}
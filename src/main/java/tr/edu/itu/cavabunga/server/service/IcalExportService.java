@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * renders stored calendars as RFC 5545 text
+ */
+public interface IcalExportService {
+    /**
+     * streams every root calendar of the participant as VCALENDAR objects,
+     * components are read page by page so memory use does not grow with calendar size
+     *
+     * @param owner participant whose calendars are exported
+     * @param outputStream stream to write UTF-8 encoded iCalendar text to
+     * @throws IOException when output stream fails
+     */
+    void exportCalendars(Participant owner, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,180 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.server.ical.IcalNames;
+import tr.edu.itu.cavabunga.server.ical.IcalWriter;
+import tr.edu.itu.cavabunga.server.repository.ComponentRepository;
+import tr.edu.itu.cavabunga.server.repository.PropertyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@inheritDoc}
+ *
+ * Top level components of a calendar are walked with a keyset cursor. For each page the
+ * properties (with their parameters) and the nested components are fetched with one query per
+ * tree level, written out, and the persistence context is cleared before the next page.
+ */
+@Service
+public class IcalExportServiceImpl implements IcalExportService {
+    private static final String DEFAULT_PRODID = "-//ITU//Cavabunga Calendar//EN";
+
+    private ComponentRepository componentRepository;
+
+    private PropertyRepository propertyRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private int pageSize;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentRepository to inject ComponentRepository
+     * @param propertyRepository to inject PropertyRepository
+     * @param pageSize number of top level components written per page
+     */
+    @Autowired
+    public IcalExportServiceImpl(
+            ComponentRepository componentRepository,
+            PropertyRepository propertyRepository,
+            @Value("${cavabunga.export.page-size:500}") int pageSize
+    ) {
+        this.componentRepository = componentRepository;
+        this.propertyRepository = propertyRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCalendars(Participant owner, OutputStream outputStream) throws IOException {
+        IcalWriter writer = new IcalWriter(outputStream);
+        for (Long rootId : componentRepository.findRootIdsByOwner(owner)) {
+            Component root = componentRepository.findOne(rootId);
+            if (root == null) {
+                continue;
+            }
+            String name = IcalNames.of(root);
+            if (!"VCALENDAR".equals(name)) {
+                // a stray root component still has to be wrapped to form a valid iCalendar object
+                writer.begin("VCALENDAR");
+                writeCalendarDefaults(writer, Collections.emptyList());
+                writeComponents(writer, Collections.singletonList(root));
+                writer.end("VCALENDAR");
+                entityManager.clear();
+                continue;
+            }
+
+            List<Property> properties = propertyRepository.findWithParametersByComponentIds(Collections.singleton(rootId));
+            writer.begin(name);
+            writeCalendarDefaults(writer, properties);
+            writeProperties(writer, properties);
+            entityManager.clear();
+
+            Long afterId = 0L;
+            List<Component> page = componentRepository.findChildrenAfter(rootId, afterId, new PageRequest(0, pageSize));
+            while (!page.isEmpty()) {
+                writeComponents(writer, page);
+                afterId = page.get(page.size() - 1).getId();
+                writer.flush();
+                entityManager.clear();
+                page = componentRepository.findChildrenAfter(rootId, afterId, new PageRequest(0, pageSize));
+            }
+            writer.end(name);
+        }
+        writer.flush();
+    }
+
+    /**
+     * writes given sibling components and their subtrees, loading each tree level with a single query
+     */
+    private void writeComponents(IcalWriter writer, List<Component> components) throws IOException {
+        Map<Long, List<Property>> properties = new HashMap<>();
+        Map<Long, List<Component>> children = new HashMap<>();
+
+        List<Long> levelIds = idsOf(components);
+        while (!levelIds.isEmpty()) {
+            for (Property property : propertyRepository.findWithParametersByComponentIds(levelIds)) {
+                properties.computeIfAbsent(property.getComponent().getId(), id -> new ArrayList<>()).add(property);
+            }
+            List<Component> nextLevel = componentRepository.findByParentIds(levelIds);
+            for (Component child : nextLevel) {
+                children.computeIfAbsent(child.getParent().getId(), id -> new ArrayList<>()).add(child);
+            }
+            levelIds = idsOf(nextLevel);
+        }
+
+        for (Component component : components) {
+            writeComponent(writer, component, properties, children);
+        }
+    }
+
+    private void writeComponent(IcalWriter writer,
+                                Component component,
+                                Map<Long, List<Property>> properties,
+                                Map<Long, List<Component>> children) throws IOException {
+        String name = IcalNames.of(component);
+        writer.begin(name);
+        writeProperties(writer, properties.getOrDefault(component.getId(), Collections.emptyList()));
+        for (Component child : children.getOrDefault(component.getId(), Collections.emptyList())) {
+            writeComponent(writer, child, properties, children);
+        }
+        writer.end(name);
+    }
+
+    private void writeProperties(IcalWriter writer, List<Property> properties) throws IOException {
+        for (Property property : properties) {
+            List<String[]> parameters = new ArrayList<>();
+            if (property.getParameters() != null) {
+                for (Parameter parameter : property.getParameters()) {
+                    parameters.add(new String[]{IcalNames.of(parameter), parameter.getValue()});
+                }
+            }
+            writer.property(IcalNames.of(property), parameters, property.getValue());
+        }
+    }
+
+    private void writeCalendarDefaults(IcalWriter writer, List<Property> properties) throws IOException {
+        boolean hasVersion = false;
+        boolean hasProdid = false;
+        for (Property property : properties) {
+            String name = IcalNames.of(property);
+            hasVersion |= "VERSION".equals(name);
+            hasProdid |= "PRODID".equals(name);
+        }
+        if (!hasVersion) {
+            writer.property("VERSION", Collections.emptyList(), "2.0");
+        }
+        if (!hasProdid) {
+            writer.property("PRODID", Collections.emptyList(), DEFAULT_PRODID);
+        }
+    }
+
+    private static List<Long> idsOf(List<Component> components) {
+        List<Long> ids = new ArrayList<>(components.size());
+        for (Component component : components) {
+            ids.add(component.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,32 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * imports RFC 5545 text as calendars of a participant
+ */
+public interface IcalImportService {
+    /**
+     * parses the input incrementally and stores every VCALENDAR in it as a new calendar of the owner.
+     * Components are persisted in chunks, each chunk in its own transaction, so chunks committed
+     * before a failure stay in place.
+     *
+     * @param owner participant the calendars are imported for
+     * @param inputStream UTF-8 encoded iCalendar input
+     * @return final progress of the import
+     * @throws IllegalArgumentException when the input is not valid iCalendar
+     * @throws IOException when input stream fails
+     */
+    ImportProgress importCalendars(Participant owner, InputStream inputStream) throws IOException;
+
+    /**
+     * @param owner username of a participant
+     * @return running and recently finished imports of the participant
+     */
+    List<ImportProgress> getImports(String owner);
+}
@@ -0,0 +1,376 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.ical.IcalNames;
+import tr.edu.itu.cavabunga.server.ical.IcalReader;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * {@inheritDoc}
+ *
+ * Top level components of a calendar (events, todos, timezones ...) are collected with their
+ * subtrees and written in chunks of cavabunga.import.chunk-size through IcalService, so indexes
+ * and change listeners stay consistent with REST writes. Each chunk is flushed and detached
+ * before the next one is parsed, so memory and lock time are bound by the chunk size.
+ *
+ * Components, properties, parameters and change journal entries get IDENTITY ids, Hibernate inserts
+ * them one statement at a time to read the generated key and doesn't batch them. An import costs
+ * about one round trip per element plus the closure, index and version rows of each component;
+ * hibernate.jdbc.batch_size only groups the rows with assigned keys and the updates.
+ */
+@Service
+public class IcalImportServiceImpl implements IcalImportService {
+    private static final int MAX_REMEMBERED_IMPORTS = 100;
+
+    private final Map<String, ComponentType> componentTypes = new HashMap<>();
+
+    private final Map<String, PropertyType> propertyTypes = new HashMap<>();
+
+    private final Map<String, ParameterType> parameterTypes = new HashMap<>();
+
+    private final Deque<ImportProgress> imports = new ConcurrentLinkedDeque<>();
+
+    private IcalService icalService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private int chunkSize;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param icalService to inject IcalService
+     * @param transactionManager to run each chunk in its own transaction
+     * @param chunkSize number of top level components committed per transaction
+     */
+    @Autowired
+    public IcalImportServiceImpl(
+            IcalService icalService,
+            PlatformTransactionManager transactionManager,
+            @Value("${cavabunga.import.chunk-size:500}") int chunkSize
+    ) {
+        this.icalService = icalService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+
+        for (ComponentType type : ComponentType.values()) {
+            componentTypes.put(IcalNames.componentName(type.name()), type);
+        }
+        for (PropertyType type : PropertyType.values()) {
+            propertyTypes.put(IcalNames.elementName(type.name()), type);
+        }
+        for (ParameterType type : ParameterType.values()) {
+            parameterTypes.put(IcalNames.elementName(type.name()), type);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImportProgress importCalendars(Participant owner, InputStream inputStream) throws IOException {
+        ImportProgress progress = new ImportProgress(owner.getUserName());
+        remember(progress);
+        try {
+            new CalendarImport(owner, progress).run(new CountingInputStream(inputStream, progress));
+            progress.completed();
+            return progress;
+        } catch (IOException | RuntimeException e) {
+            progress.failed(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ImportProgress> getImports(String owner) {
+        List<ImportProgress> result = new ArrayList<>();
+        for (ImportProgress progress : imports) {
+            if (progress.getOwner().equals(owner)) {
+                result.add(progress);
+            }
+        }
+        return result;
+    }
+
+    private void remember(ImportProgress progress) {
+        imports.addFirst(progress);
+        Iterator<ImportProgress> oldest = imports.descendingIterator();
+        int excess = imports.size() - MAX_REMEMBERED_IMPORTS;
+        while (excess > 0 && oldest.hasNext()) {
+            if (oldest.next().getState() != ImportProgress.State.RUNNING) {
+                oldest.remove();
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * state of one import run
+     */
+    private class CalendarImport {
+        private final Participant owner;
+
+        private final ImportProgress progress;
+
+        private final Deque<Component> stack = new ArrayDeque<>();
+
+        private final List<Component> chunk = new ArrayList<>();
+
+        private final List<Property> lateCalendarProperties = new ArrayList<>();
+
+        private Long calendarId;
+
+        private int skippedDepth = 0;
+
+        private long chunkProperties = 0;
+
+        private long chunkParameters = 0;
+
+        CalendarImport(Participant owner, ImportProgress progress) {
+            this.owner = owner;
+            this.progress = progress;
+        }
+
+        void run(InputStream inputStream) throws IOException {
+            try (IcalReader reader = new IcalReader(inputStream)) {
+                IcalReader.ContentLine line;
+                while ((line = reader.next()) != null) {
+                    if ("BEGIN".equals(line.getName())) {
+                        begin(line.getValue().trim().toUpperCase());
+                    } else if ("END".equals(line.getName())) {
+                        end(line.getValue().trim().toUpperCase());
+                    } else if (skippedDepth == 0) {
+                        property(line);
+                    }
+                }
+            }
+            if (!stack.isEmpty() || skippedDepth > 0) {
+                throw new IllegalArgumentException("Unexpected end of iCalendar input, missing END lines");
+            }
+        }
+
+        private void begin(String name) {
+            ComponentType type = componentTypes.get(name);
+            if (skippedDepth > 0 || type == null) {
+                skippedDepth++;
+                progress.elementSkipped();
+                return;
+            }
+            if (stack.isEmpty() && !"VCALENDAR".equals(name)) {
+                throw new IllegalArgumentException("iCalendar input must start with BEGIN:VCALENDAR, found " + name);
+            }
+
+            Component component = icalService.createComponent(type);
+            if (stack.isEmpty()) {
+                progress.calendarStarted();
+            } else if (stack.size() == 1) {
+                persistCalendar();
+            } else {
+                stack.peek().addComponent(component);
+            }
+            stack.push(component);
+        }
+
+        private void end(String name) {
+            if (skippedDepth > 0) {
+                skippedDepth--;
+                return;
+            }
+            if (stack.isEmpty()) {
+                throw new IllegalArgumentException("Unexpected END:" + name);
+            }
+            Component component = stack.pop();
+            if (!name.equals(IcalNames.of(component))) {
+                throw new IllegalArgumentException("END:" + name + " does not match BEGIN:" + IcalNames.of(component));
+            }
+            if (stack.isEmpty()) {
+                persistCalendar();
+                flushChunk();
+                calendarId = null;
+            } else if (stack.size() == 1) {
+                chunk.add(component);
+                if (chunk.size() >= chunkSize) {
+                    flushChunk();
+                }
+            }
+        }
+
+        private void property(IcalReader.ContentLine line) {
+            if (stack.isEmpty()) {
+                throw new IllegalArgumentException("Property " + line.getName() + " outside of VCALENDAR");
+            }
+            PropertyType type = propertyTypes.get(line.getName());
+            if (type == null) {
+                progress.elementSkipped();
+                return;
+            }
+            Property property = icalService.createProperty(type);
+            property.setValue(line.getValue());
+            for (String[] parameterLine : line.getParameters()) {
+                ParameterType parameterType = parameterTypes.get(parameterLine[0]);
+                if (parameterType == null) {
+                    progress.elementSkipped();
+                    continue;
+                }
+                Parameter parameter = icalService.createParameter(parameterType);
+                parameter.setValue(parameterLine[1]);
+                property.addParameter(parameter);
+                chunkParameters++;
+            }
+            chunkProperties++;
+
+            if (stack.size() == 1 && calendarId != null) {
+                // calendar properties after the first component, the calendar itself is already stored
+                lateCalendarProperties.add(property);
+            } else {
+                stack.peek().addProperty(property);
+            }
+        }
+
+        private void persistCalendar() {
+            if (calendarId != null) {
+                return;
+            }
+            Component calendar = stack.peekLast();
+            transactionTemplate.execute(status -> {
+                assignOwner(calendar, ownerReference());
+                icalService.saveComponent(calendar);
+                detach();
+                return null;
+            });
+            calendarId = calendar.getId();
+            commitCounters(1);
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty() && lateCalendarProperties.isEmpty()) {
+                return;
+            }
+            transactionTemplate.execute(status -> {
+                Component calendar = entityManager.getReference(Component.class, calendarId);
+                Participant participant = ownerReference();
+                for (Component component : chunk) {
+                    assignOwner(component, participant);
+                    component.setParent(calendar);
+                    icalService.saveComponent(component);
+                }
+                for (Property property : lateCalendarProperties) {
+                    property.setComponent(calendar);
+                    icalService.saveProperty(property);
+                }
+                detach();
+                return null;
+            });
+            long components = 0;
+            for (Component component : chunk) {
+                components += countComponents(component);
+            }
+            chunk.clear();
+            lateCalendarProperties.clear();
+            commitCounters(components);
+        }
+
+        /**
+         * the persistence context is cleared after every chunk, so the owner is re-attached per transaction
+         */
+        private Participant ownerReference() {
+            return entityManager.getReference(Participant.class, owner.getId());
+        }
+
+        private void assignOwner(Component component, Participant participant) {
+            component.setOwner(participant);
+            if (component.getComponents() != null) {
+                for (Component child : component.getComponents()) {
+                    assignOwner(child, participant);
+                }
+            }
+        }
+
+        private void detach() {
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        private void commitCounters(long components) {
+            progress.chunkCommitted(components, chunkProperties, chunkParameters);
+            chunkProperties = 0;
+            chunkParameters = 0;
+        }
+
+        private long countComponents(Component component) {
+            long count = 1;
+            if (component.getComponents() != null) {
+                for (Component child : component.getComponents()) {
+                    count += countComponents(child);
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * reports consumed bytes to the import progress
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final ImportProgress progress;
+
+        private long count = 0;
+
+        CountingInputStream(InputStream in, ImportProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                progress.setBytesRead(++count);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                count += result;
+                progress.setBytesRead(count);
+            }
+            return result;
+        }
+    }
+}
@@ -7,7 +7,9 @@ import tr.edu.itu.cavabunga.lib.entity.Property;
 import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
 import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
 import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.ical.ComponentRef;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,31 @@ public interface IcalService {
      */
     Optional<Component> getComponentById(Long id);
 
+    /**
+     * It returns related component with its whole subtree (child components, properties and parameters)
+     * initialized, loading one tree level at a time with a query per collection kind
+     *
+     * @param id id of the component
+     * @return related component record or null
+     */
+    Optional<Component> getComponentTreeById(Long id);
+
+    /**
+     * initializes the whole subtrees (child components, properties and parameters) of components loaded
+     * in the current transaction, one tree level at a time with a query per collection kind
+     *
+     * @param roots components whose subtrees are initialized
+     */
+    void initializeTrees(List<Component> roots);
+
+    /**
+     * It returns related component with its properties and their parameters initialized
+     *
+     * @param id id of the component
+     * @return related component record or null
+     */
+    Optional<Component> getComponentWithPropertiesById(Long id);
+
     /**
      * find component which owned by a participant
      *
@@ -34,6 +61,26 @@ public interface IcalService {
      */
     List<Component> getComponentByOwner(Participant owner);
 
+    /**
+     * find components owned by a participant ordered by id, starting after the given id
+     *
+     * @param owner participant to find component which owned by
+     * @param afterId id of the last component of the previous page, 0 for the first page
+     * @param limit maximum number of components to return
+     * @return list of the components
+     */
+    List<Component> getComponentByOwnerAfter(Participant owner, Long afterId, int limit);
+
+    /**
+     * find schedulable components owned by a participant which overlap with [start, end)
+     *
+     * @param owner participant to find component which owned by
+     * @param start inclusive start of the time range
+     * @param end exclusive end of the time range
+     * @return matching components ordered by their start
+     */
+    List<Component> getComponentByOwnerInTimeRange(Participant owner, Date start, Date end);
+
     /**
      * saves given component
      *
@@ -42,11 +89,39 @@ public interface IcalService {
     void saveComponent(Component component);
 
     /**
-     * It deletes record of the given component id
+     * It deletes record of the given component id together with its subtree, set based without loading the subtree
      *
      * @param id component id to delete
+     * @return false when the component does not exist, its closure table rows are the only lookup
+     * @throws IllegalStateException when the component exists but has no closure table rows
      */
-    void deleteComponentById(Long id);
+    boolean deleteComponentById(Long id);
+
+    /**
+     * checks the existence of the component without loading it
+     *
+     * @param id id of the component
+     * @return true when the component exists
+     */
+    boolean componentExists(Long id);
+
+    /**
+     * splits the subtree of the given component into chunks that can be deleted one after another,
+     * deepest level first and every chunk within a single level
+     *
+     * @param id root of the subtree
+     * @param chunkSize maximum number of components in a chunk
+     * @return chunks in deletion order, empty when component not found
+     * @throws IllegalStateException when the component exists but has no closure table rows
+     */
+    List<List<ComponentRef>> getSubtreeDeleteChunks(Long id, int chunkSize);
+
+    /**
+     * bulk deletes the components with their properties and parameters, children must be deleted before
+     *
+     * @param components chunk returned by getSubtreeDeleteChunks
+     */
+    void deleteComponents(List<ComponentRef> components);
 
     Property createProperty(PropertyType propertyType);
 
@@ -58,6 +133,14 @@ public interface IcalService {
      */
     Optional<Property>  getPropertyById(Long id);
 
+    /**
+     * It returns related property with its parameters initialized
+     *
+     * @param id id of the property
+     * @return related property record or null
+     */
+    Optional<Property> getPropertyWithParametersById(Long id);
+
     /**
      * saves given property
      *
@@ -72,6 +155,13 @@ public interface IcalService {
      */
     void deletePropertyById(Long id);
 
+    /**
+     * deletes the given property, which was loaded in the current transaction
+     *
+     * @param property property record to delete
+     */
+    void deleteProperty(Property property);
+
     /**
      *
      * @param parameterType type of parameter to be created
@@ -100,4 +190,11 @@ public interface IcalService {
      * @param id parameter id to delete
      */
     void deleteParameterById(Long id);
+
+    /**
+     * deletes the given parameter, which was loaded in the current transaction
+     *
+     * @param parameter parameter record to delete
+     */
+    void deleteParameter(Parameter parameter);
 }
\ No newline at end of file
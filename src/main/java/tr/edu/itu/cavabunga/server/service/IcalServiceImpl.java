@@ -1,5 +1,10 @@
 package tr.edu.itu.cavabunga.server.service;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import tr.edu.itu.cavabunga.lib.entity.Component;
 import tr.edu.itu.cavabunga.lib.entity.Parameter;
@@ -11,17 +16,37 @@ import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
 import tr.edu.itu.cavabunga.lib.factory.ComponentFactory;
 import tr.edu.itu.cavabunga.lib.factory.ParameterFactory;
 import tr.edu.itu.cavabunga.lib.factory.PropertyFactory;
+import tr.edu.itu.cavabunga.server.entity.EventIndex;
+import tr.edu.itu.cavabunga.server.event.ChangeType;
+import tr.edu.itu.cavabunga.server.event.ComponentChangedEvent;
+import tr.edu.itu.cavabunga.server.ical.ComponentRef;
+import tr.edu.itu.cavabunga.server.ical.ComponentUids;
+import tr.edu.itu.cavabunga.server.ical.EventTimes;
 import tr.edu.itu.cavabunga.server.repository.ComponentRepository;
 import tr.edu.itu.cavabunga.server.repository.ParameterRepository;
 import tr.edu.itu.cavabunga.server.repository.PropertyRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 /**
  * {@inheritDoc}
  */
 @Service
 public class IcalServiceImpl implements IcalService {
+    /**
+     * upper bound of ids bound to a single IN clause while loading a subtree level
+     */
+    private static final int MAX_IN_CLAUSE = 1000;
+
     private ComponentFactory componentFactory;
 
     private ComponentRepository componentRepository;
@@ -34,6 +59,19 @@ public class IcalServiceImpl implements IcalService {
 
     private ParameterRepository parameterRepository;
 
+    private EventIndexService eventIndexService;
+
+    private RecurrenceService recurrenceService;
+
+    private ComponentHierarchyService componentHierarchyService;
+
+    private ComponentUidService componentUidService;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * constructor for dependency injection
      *
@@ -43,6 +81,11 @@ public class IcalServiceImpl implements IcalService {
      * @param propertyRepository to inject PropertyRepository
      * @param parameterFactory to inject ParameterFactory
      * @param parameterRepository to inject ParameterRepository
+     * @param eventIndexService to inject EventIndexService
+     * @param recurrenceService to inject RecurrenceService
+     * @param componentHierarchyService to inject ComponentHierarchyService
+     * @param componentUidService to inject ComponentUidService
+     * @param eventPublisher to inject ApplicationEventPublisher
      */
     @Autowired
     public IcalServiceImpl(
@@ -51,7 +94,12 @@ public class IcalServiceImpl implements IcalService {
             PropertyFactory propertyFactory,
             PropertyRepository propertyRepository,
             ParameterFactory parameterFactory,
-            ParameterRepository parameterRepository
+            ParameterRepository parameterRepository,
+            EventIndexService eventIndexService,
+            RecurrenceService recurrenceService,
+            ComponentHierarchyService componentHierarchyService,
+            ComponentUidService componentUidService,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.componentFactory = componentFactory;
         this.componentRepository = componentRepository;
@@ -59,6 +107,11 @@ public class IcalServiceImpl implements IcalService {
         this.propertyRepository = propertyRepository;
         this.parameterFactory = parameterFactory;
         this.parameterRepository = parameterRepository;
+        this.eventIndexService = eventIndexService;
+        this.recurrenceService = recurrenceService;
+        this.componentHierarchyService = componentHierarchyService;
+        this.componentUidService = componentUidService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -84,7 +137,78 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public Optional<Component> getComponentById(Long id){
-        return componentRepository.findById(id);
+        // findOne goes through the persistence context, repeated lookups in a transaction cost no query
+        return Optional.ofNullable(componentRepository.findOne(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Component> getComponentTreeById(Long id){
+        List<Component> level = componentRepository.findWithComponentsByIds(Collections.singleton(id));
+        if (level.isEmpty()) {
+            return Optional.empty();
+        }
+        initializeLevels(level);
+        return Optional.of(level.get(0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void initializeTrees(List<Component> roots){
+        List<Long> rootIds = new ArrayList<>(roots.size());
+        for (Component root : roots) {
+            rootIds.add(root.getId());
+        }
+        List<Component> level = new ArrayList<>(roots.size());
+        for (List<Long> ids : partition(rootIds)) {
+            level.addAll(componentRepository.findWithComponentsByIds(ids));
+        }
+        initializeLevels(level);
+    }
+
+    /**
+     * @param level components with their child components initialized
+     */
+    private void initializeLevels(List<Component> level) {
+        while (!level.isEmpty()) {
+            // every query initializes one collection kind on instances already in the persistence context
+            List<Long> levelIds = new ArrayList<>(level.size());
+            List<Long> childIds = new ArrayList<>();
+            for (Component component : level) {
+                levelIds.add(component.getId());
+                for (Component child : component.getComponents()) {
+                    childIds.add(child.getId());
+                }
+            }
+            for (List<Long> ids : partition(levelIds)) {
+                componentRepository.findWithPropertiesByIds(ids);
+                propertyRepository.findWithParametersByComponentIds(ids);
+            }
+            level = new ArrayList<>(childIds.size());
+            for (List<Long> ids : partition(childIds)) {
+                level.addAll(componentRepository.findWithComponentsByIds(ids));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Component> getComponentWithPropertiesById(Long id){
+        List<Component> components = componentRepository.findWithPropertiesByIds(Collections.singleton(id));
+        if (components.isEmpty()) {
+            return Optional.empty();
+        }
+        propertyRepository.findWithParametersByComponentIds(Collections.singleton(id));
+        return Optional.of(components.get(0));
     }
 
     /**
@@ -95,20 +219,172 @@ public class IcalServiceImpl implements IcalService {
         return componentRepository.findByOwner(owner);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Component> getComponentByOwnerAfter(Participant owner, Long afterId, int limit){
+        return componentRepository.findByOwnerAfter(owner, afterId, new PageRequest(0, limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Component> getComponentByOwnerInTimeRange(Participant owner, Date start, Date end){
+        List<EventIndex> entries = eventIndexService.findInRange(owner, start, end);
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (EventIndex entry : entries) {
+            ids.add(entry.getComponentId());
+        }
+        Map<Long, Component> byId = new HashMap<>();
+        for (Component component : componentRepository.findAll(ids)) {
+            byId.put(component.getId(), component);
+        }
+        List<Component> result = new ArrayList<>(ids.size());
+        for (EventIndex entry : entries) {
+            Component component = byId.get(entry.getComponentId());
+            if (component == null) {
+                continue;
+            }
+            // recurring entries span the whole series, keep them only when an instance falls into the range
+            if (entry.isRecurring()
+                    && recurrenceService.getOccurrences(component, start.toInstant(), end.toInstant()).isEmpty()) {
+                continue;
+            }
+            result.add(component);
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void saveComponent(Component component){
-        componentRepository.save(component);
+        boolean isNew = component.getId() == null;
+        // pre-order, every parent is linked in the hierarchy before its children
+        List<Component> created = new ArrayList<>();
+        collectNewComponents(component, created);
+
+        Component saved = componentRepository.save(component);
+        eventIndexService.indexSubtree(saved);
+        componentUidService.indexSubtree(saved);
+
+        boolean mergedCopies = false;
+        for (Component newComponent : created) {
+            // children merged into a detached graph get their ids on the merged copies only
+            if (newComponent.getId() != null) {
+                componentHierarchyService.addComponent(newComponent);
+            } else {
+                mergedCopies = true;
+            }
+        }
+        if (!isNew) {
+            componentHierarchyService.updateParent(saved);
+            if (mergedCopies) {
+                componentHierarchyService.addMissing(saved);
+            }
+            publish(saved, ChangeType.MODIFIED);
+        }
+        for (Component newComponent : created) {
+            if (newComponent.getId() != null) {
+                publish(newComponent, ChangeType.CREATED);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteComponentById(Long id){
+        List<List<ComponentRef>> chunks = getSubtreeDeleteChunks(id, MAX_IN_CLAUSE);
+        if (chunks.isEmpty()) {
+            return false;
+        }
+        // bulk statements bypass the persistence context, write pending changes before and forget stale entities after
+        entityManager.flush();
+        for (List<ComponentRef> chunk : chunks) {
+            deleteComponents(chunk);
+        }
+        entityManager.clear();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean componentExists(Long id){
+        return componentRepository.exists(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<List<ComponentRef>> getSubtreeDeleteChunks(Long id, int chunkSize){
+        List<List<ComponentRef>> chunks = new ArrayList<>();
+        List<ComponentRef> chunk = new ArrayList<>();
+        int chunkDepth = -1;
+        List<Object[]> rows = componentRepository.findSubtreeRefsDeepestFirst(id);
+        // every component has a row of its own at depth 0, without it the subtree can't be found
+        Assert.state(
+                !rows.isEmpty() || !componentRepository.exists(id),
+                "Component with ID: " + id + " is missing from component_ancestor, its subtree can't be deleted"
+        );
+        // the whole subtree has one owner, components created as children of a tree may not carry it
+        Long ownerId = null;
+        for (Object[] row : rows) {
+            if (row[2] != null) {
+                ownerId = (Long) row[2];
+            }
+        }
+        if (ownerId == null && !rows.isEmpty()) {
+            Participant owner = findOwner(componentRepository.findOne(id));
+            ownerId = owner != null ? owner.getId() : null;
+        }
+        // deepest first, a chunk never mixes levels so parents are always deleted after their children
+        for (Object[] row : rows) {
+            int depth = (Integer) row[3];
+            if (!chunk.isEmpty() && (depth != chunkDepth || chunk.size() >= chunkSize)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunkDepth = depth;
+            chunk.add(new ComponentRef((Long) row[0], (Long) row[1], row[2] != null ? (Long) row[2] : ownerId));
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void deleteComponentById(Long id){
-        componentRepository.delete(id);
+    public void deleteComponents(List<ComponentRef> components){
+        List<Long> ids = new ArrayList<>(components.size());
+        for (ComponentRef ref : components) {
+            ids.add(ref.getId());
+        }
+        for (List<Long> partition : partition(ids)) {
+            eventIndexService.removeComponents(partition);
+            componentHierarchyService.removeComponents(partition);
+            componentUidService.removeComponents(partition);
+            parameterRepository.deleteByComponentIds(partition);
+            propertyRepository.deleteByComponentIds(partition);
+            componentRepository.deleteByIds(partition);
+        }
+        for (ComponentRef ref : components) {
+            eventPublisher.publishEvent(new ComponentChangedEvent(ref.getId(), ref.getParentId(), ref.getOwnerId(), ChangeType.DELETED));
+        }
     }
 
     /**
@@ -124,7 +400,15 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public Optional<Property> getPropertyById(Long id){
-        return propertyRepository.findById(id);
+        return Optional.ofNullable(propertyRepository.findOne(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Property> getPropertyWithParametersById(Long id){
+        return propertyRepository.findWithParametersById(id);
     }
 
     /**
@@ -132,7 +416,16 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public void saveProperty(Property property){
-        propertyRepository.save(property);
+        Property saved = propertyRepository.save(property);
+        if (saved.getComponent() != null) {
+            if (EventTimes.isIndexedProperty(saved)) {
+                eventIndexService.indexComponent(saved.getComponent());
+            }
+            if (ComponentUids.isUidProperty(saved)) {
+                componentUidService.indexComponent(saved.getComponent());
+            }
+            publish(saved.getComponent(), ChangeType.MODIFIED);
+        }
     }
 
     /**
@@ -140,7 +433,32 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public void deletePropertyById(Long id){
-        propertyRepository.delete(id);
+        Property property = propertyRepository.findOne(id);
+        if (property == null) {
+            throw new EmptyResultDataAccessException("No property with id " + id + " exists", 1);
+        }
+        deleteProperty(property);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteProperty(Property property){
+        Component component = property.getComponent();
+        if (component != null) {
+            component.getProperties().removeIf(candidate -> candidate == property);
+        }
+        propertyRepository.delete(property);
+        if (component != null) {
+            if (EventTimes.isIndexedProperty(property)) {
+                eventIndexService.indexComponent(component);
+            }
+            if (ComponentUids.isUidProperty(property)) {
+                componentUidService.indexComponent(component);
+            }
+            publish(component, ChangeType.MODIFIED);
+        }
     }
 
     /**
@@ -156,7 +474,7 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public Optional<Parameter> getParameterById(Long id){
-        return parameterRepository.findById(id);
+        return Optional.ofNullable(parameterRepository.findOne(id));
     }
 
     /**
@@ -164,7 +482,14 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public void saveParameter(Parameter parameter){
-        parameterRepository.save(parameter);
+        Parameter saved = parameterRepository.save(parameter);
+        Property property = saved.getProperty();
+        if (property != null && property.getComponent() != null) {
+            if (EventTimes.isIndexedProperty(property)) {
+                eventIndexService.indexComponent(property.getComponent());
+            }
+            publish(property.getComponent(), ChangeType.MODIFIED);
+        }
     }
 
     /**
@@ -172,6 +497,78 @@ public class IcalServiceImpl implements IcalService {
      */
     @Override
     public void deleteParameterById(Long id){
-        parameterRepository.delete(id);
+        Parameter parameter = parameterRepository.findOne(id);
+        if (parameter == null) {
+            throw new EmptyResultDataAccessException("No parameter with id " + id + " exists", 1);
+        }
+        deleteParameter(parameter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteParameter(Parameter parameter){
+        Property property = parameter.getProperty();
+        if (property != null) {
+            property.getParameters().removeIf(candidate -> candidate == parameter);
+        }
+        parameterRepository.delete(parameter);
+        if (property != null && property.getComponent() != null) {
+            if (EventTimes.isIndexedProperty(property)) {
+                eventIndexService.indexComponent(property.getComponent());
+            }
+            publish(property.getComponent(), ChangeType.MODIFIED);
+        }
+    }
+
+    private static List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> partitions = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_CLAUSE) {
+            partitions.add(ids.subList(from, Math.min(ids.size(), from + MAX_IN_CLAUSE)));
+        }
+        return partitions;
+    }
+
+    private void publish(Component component, ChangeType changeType) {
+        Participant owner = findOwner(component);
+        eventPublisher.publishEvent(new ComponentChangedEvent(
+                component.getId(),
+                component.getParent() != null ? component.getParent().getId() : null,
+                owner != null ? owner.getId() : null,
+                changeType,
+                findUid(component)
+        ));
+    }
+
+    private static String findUid(Component component) {
+        // a write of UID or RECURRENCE-ID has loaded the properties for indexing, other writes don't need the UID
+        if (component.getProperties() == null || !Hibernate.isInitialized(component.getProperties())) {
+            return null;
+        }
+        Property uid = EventTimes.findProperty(component, "UID");
+        return uid != null ? uid.getValue() : null;
+    }
+
+    private static Participant findOwner(Component component) {
+        Component current = component;
+        while (current != null) {
+            if (current.getOwner() != null) {
+                return current.getOwner();
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+
+    private void collectNewComponents(Component component, List<Component> created) {
+        if (component.getId() == null) {
+            created.add(component);
+        }
+        if (component.getComponents() != null && Hibernate.isInitialized(component.getComponents())) {
+            for (Component child : component.getComponents()) {
+                collectNewComponents(child, created);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package tr.edu.itu.cavabunga.server.service;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
 import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +21,8 @@ public interface ParticipantService {
     void saveParticipant(Participant participant);
 
     /**
-     * It returns related participant if given username exist
+     * It returns related participant if given username exist, served from the participant cache when possible.
+     * The participant is a detached copy of its own fields, its calendars are not included
      *
      * @param user_name user name of the participant
      * @return related participant record or null
@@ -28,7 +30,19 @@ public interface ParticipantService {
     Optional<Participant> getParticipantByUserName(String user_name);
 
     /**
-     * It returns related participant if given id exist
+     * It returns a reference to the participant with given username, resolved through the
+     * participant cache when possible, then only the existence of the row is checked by id.
+     * The reference is meant for associations and query parameters, reading other fields than id
+     * initializes it from the database.
+     *
+     * @param user_name user name of the participant
+     * @return reference to the participant or empty when it does not exist
+     */
+    Optional<Participant> getParticipantReferenceByUserName(String user_name);
+
+    /**
+     * It returns related participant if given id exist, served from the participant cache when possible.
+     * The participant is a detached copy of its own fields, its calendars are not included
      *
      * @param id id of the participant
      * @return related participant record or null
@@ -42,6 +56,23 @@ public interface ParticipantService {
      */
     List<Participant> getAllParticipant();
 
+    /**
+     * Returns participants ordered by id, starting after the given id
+     *
+     * @param afterId id of the last participant of the previous page, 0 for the first page
+     * @param limit maximum number of participants to return
+     * @return list of the participants
+     */
+    List<Participant> getParticipantsAfter(Long afterId, int limit);
+
+    /**
+     * Returns the participants with given ids, ids without a participant are skipped
+     *
+     * @param ids ids of the participants
+     * @return list of the participants in no particular order
+     */
+    List<Participant> getParticipantsByIds(Collection<Long> ids);
+
     /**
      * It deletes record of the given participant id
      *
@@ -3,16 +3,30 @@ package tr.edu.itu.cavabunga.server.service;
 import tr.edu.itu.cavabunga.lib.entity.Participant;
 import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
 import tr.edu.itu.cavabunga.lib.factory.ParticipantFactory;
+import tr.edu.itu.cavabunga.server.cache.CacheRegistry;
+import tr.edu.itu.cavabunga.server.cache.NearCache;
+import tr.edu.itu.cavabunga.server.datasource.ReplicaLagGuard;
 import tr.edu.itu.cavabunga.server.repository.ParticipantRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * {@inheritDoc}
+ *
+ * Participants rarely change, a detached copy of each looked up participant is kept in a near cache by
+ * id, next to the username to id mapping. Callers always get a copy of their own, so the cached one is
+ * never changed. Entries expire after cavabunga.cache.participant.ttl-seconds so that changes made
+ * by other instances are picked up, changes made through this service invalidate them immediately.
+ * Lookups served by a replica shortly after such a change are not cached, see ReplicaLagGuard.
  */
 @Service
 public class ParticipantServiceImpl implements ParticipantService {
@@ -21,19 +35,36 @@ public class ParticipantServiceImpl implements ParticipantService {
 
     private ParticipantRepository participantRepository;
 
+    private NearCache<String, Long> idsByUserName;
+
+    private NearCache<Long, Participant> participantsById;
+
+    private ReplicaLagGuard replicaLagGuard;
+
     /**
      * constructor for dependency injection
      *
      * @param participantFactory to inject ParticipantFactory
      * @param participantRepository to inject ParticipantRepository
+     * @param cacheRegistry to create the participant caches
+     * @param cacheSize maximum number of cached participants
+     * @param ttlSeconds time to live of a cached participant
+     * @param replicationLagMillis upper bound of the replication lag
      */
     @Autowired
     public ParticipantServiceImpl(
             ParticipantFactory participantFactory,
-            ParticipantRepository participantRepository
+            ParticipantRepository participantRepository,
+            CacheRegistry cacheRegistry,
+            @Value("${cavabunga.cache.participant.max-size:10000}") int cacheSize,
+            @Value("${cavabunga.cache.participant.ttl-seconds:300}") long ttlSeconds,
+            @Value("${cavabunga.datasource.read-your-writes-millis:5000}") long replicationLagMillis
     ) {
         this.participantFactory = participantFactory;
         this.participantRepository = participantRepository;
+        this.idsByUserName = cacheRegistry.create("participant.userName", cacheSize, ttlSeconds * 1000);
+        this.participantsById = cacheRegistry.create("participant.id", cacheSize, ttlSeconds * 1000);
+        this.replicaLagGuard = new ReplicaLagGuard(replicationLagMillis);
     }
 
     /**
@@ -53,6 +84,7 @@ public class ParticipantServiceImpl implements ParticipantService {
     @Override
     @Transactional
     public void saveParticipant(Participant participant){
+        evict(participant.getId(), participant.getUserName());
         participantRepository.save(participant);
     }
 
@@ -61,7 +93,30 @@ public class ParticipantServiceImpl implements ParticipantService {
      */
     @Override
     public Optional<Participant> getParticipantByUserName(String user_name){
-        return participantRepository.findByUserName(user_name);
+        Long id = idsByUserName.get(user_name);
+        Participant cached = id != null ? participantsById.get(id) : null;
+        if (cached != null && user_name.equals(cached.getUserName())) {
+            return Optional.of(copy(cached));
+        }
+        return participantRepository.findByUserName(user_name).map(this::remember);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Participant> getParticipantReferenceByUserName(String user_name){
+        Long id = idsByUserName.get(user_name);
+        if (id == null) {
+            return getParticipantByUserName(user_name);
+        }
+        // the participant may have been deleted by another instance, a reference to it would only fail on flush
+        if (!participantRepository.exists(id)) {
+            participantsById.invalidate(id);
+            idsByUserName.invalidate(user_name);
+            return Optional.empty();
+        }
+        return Optional.of(participantRepository.getOne(id));
     }
 
     /**
@@ -69,7 +124,11 @@ public class ParticipantServiceImpl implements ParticipantService {
      */
     @Override
     public Optional<Participant> getParticipantById(Long id){
-        return participantRepository.findById(id);
+        Participant cached = participantsById.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        return Optional.ofNullable(participantRepository.findOne(id)).map(this::remember);
     }
 
     /**
@@ -80,11 +139,69 @@ public class ParticipantServiceImpl implements ParticipantService {
         return participantRepository.findAll();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Participant> getParticipantsAfter(Long afterId, int limit){
+        return participantRepository.findAfter(afterId, new PageRequest(0, limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Participant> getParticipantsByIds(Collection<Long> ids){
+        return participantRepository.findAll(ids);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void deleteParticipantById(Long id){
+        evict(id, null);
         participantRepository.delete(id);
     }
+
+    /**
+     * @return copy of the loaded participant, cached unless it may come from a lagging replica
+     */
+    private Participant remember(Participant participant) {
+        Participant copy = copy(participant);
+        if (replicaLagGuard.isCacheable()) {
+            participantsById.put(copy.getId(), copy);
+            idsByUserName.put(copy.getUserName(), copy.getId());
+        }
+        return copy(copy);
+    }
+
+    /**
+     * copies the participant's own fields into a new instance of its class, its calendars are left out
+     */
+    private static Participant copy(Participant participant) {
+        Participant copy = (Participant) BeanUtils.instantiateClass(Hibernate.getClass(participant));
+        BeanUtils.copyProperties(participant, copy, "components");
+        return copy;
+    }
+
+    /**
+     * removes the participant under its cached and its given username, a rename leaves no stale entry
+     */
+    private void evict(Long id, String userName) {
+        replicaLagGuard.written();
+        if (id != null) {
+            Participant cached = participantsById.invalidate(id);
+            if (cached != null) {
+                idsByUserName.invalidate(cached.getUserName());
+            }
+            idsByUserName.invalidateIf((key, value) -> id.equals(value));
+        }
+        if (userName != null) {
+            Long cachedId = idsByUserName.invalidate(userName);
+            if (cachedId != null) {
+                participantsById.invalidate(cachedId);
+            }
+        }
+    }
 }
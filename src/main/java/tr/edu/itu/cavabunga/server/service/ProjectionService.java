@@ -0,0 +1,77 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * builds shallow views of calendar elements with scalar queries instead of walking the entity graph.
+ *
+ * A view is a map of summary fields (id, type, ...). Depth 0 returns summaries only, every further
+ * level adds the nested collections (components, properties, parameters) of the previous one, each
+ * level costs one query per element kind no matter how many elements it contains. When fields is
+ * not empty every view keeps only id and the listed keys.
+ */
+public interface ProjectionService {
+    int MAX_DEPTH = 5;
+
+    /**
+     * @param afterId id of the last participant of the previous page, 0 for the first page
+     * @param limit maximum number of participants to return
+     * @param depth nesting depth, 1 adds root components
+     * @param fields keys to keep, empty for all
+     * @return participant views ordered by id
+     */
+    List<Map<String, Object>> getParticipants(Long afterId, int limit, int depth, Set<String> fields);
+
+    /**
+     * @param ids participant ids
+     * @param depth nesting depth, 1 adds root components
+     * @param fields keys to keep, empty for all
+     * @return views of the existing participants ordered by id
+     */
+    List<Map<String, Object>> getParticipants(Collection<Long> ids, int depth, Set<String> fields);
+
+    /**
+     * @param userName username of the participant
+     * @param depth nesting depth, 1 adds root components
+     * @param fields keys to keep, empty for all
+     * @return view of the participant, empty when not found
+     */
+    List<Map<String, Object>> getParticipant(String userName, int depth, Set<String> fields);
+
+    /**
+     * @param owner username of the owner participant
+     * @param afterId id of the last component of the previous page, 0 for the first page
+     * @param limit maximum number of components to return
+     * @param depth nesting depth, 1 adds properties and child components
+     * @param fields keys to keep, empty for all
+     * @return component views ordered by id
+     */
+    List<Map<String, Object>> getComponentsOfOwner(String owner, Long afterId, int limit, int depth, Set<String> fields);
+
+    /**
+     * @param ids component ids
+     * @param depth nesting depth, 1 adds properties and child components
+     * @param fields keys to keep, empty for all
+     * @return views of the existing components ordered by id
+     */
+    List<Map<String, Object>> getComponents(Collection<Long> ids, int depth, Set<String> fields);
+
+    /**
+     * @param ids property ids
+     * @param depth nesting depth, 1 adds parameters
+     * @param fields keys to keep, empty for all
+     * @return views of the existing properties ordered by id
+     */
+    List<Map<String, Object>> getProperties(Collection<Long> ids, int depth, Set<String> fields);
+
+    /**
+     * @param componentId id of the component
+     * @param depth nesting depth, 1 adds parameters
+     * @param fields keys to keep, empty for all
+     * @return views of the component's properties ordered by id
+     */
+    List<Map<String, Object>> getPropertiesOfComponent(Long componentId, int depth, Set<String> fields);
+}
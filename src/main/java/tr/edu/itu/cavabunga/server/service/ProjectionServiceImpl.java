@@ -0,0 +1,255 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.ical.IcalNames;
+import tr.edu.itu.cavabunga.server.repository.ComponentRepository;
+import tr.edu.itu.cavabunga.server.repository.ParameterRepository;
+import tr.edu.itu.cavabunga.server.repository.ParticipantRepository;
+import tr.edu.itu.cavabunga.server.repository.PropertyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@inheritDoc}
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProjectionServiceImpl implements ProjectionService {
+    private ParticipantRepository participantRepository;
+
+    private ComponentRepository componentRepository;
+
+    private PropertyRepository propertyRepository;
+
+    private ParameterRepository parameterRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param participantRepository to inject ParticipantRepository
+     * @param componentRepository to inject ComponentRepository
+     * @param propertyRepository to inject PropertyRepository
+     * @param parameterRepository to inject ParameterRepository
+     */
+    @Autowired
+    public ProjectionServiceImpl(
+            ParticipantRepository participantRepository,
+            ComponentRepository componentRepository,
+            PropertyRepository propertyRepository,
+            ParameterRepository parameterRepository
+    ) {
+        this.participantRepository = participantRepository;
+        this.componentRepository = componentRepository;
+        this.propertyRepository = propertyRepository;
+        this.parameterRepository = parameterRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getParticipants(Long afterId, int limit, int depth, Set<String> fields) {
+        return participants(participantRepository.findSummariesAfter(afterId, new PageRequest(0, limit)), depth, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getParticipants(Collection<Long> ids, int depth, Set<String> fields) {
+        return participants(participantRepository.findSummariesByIds(ids), depth, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getParticipant(String userName, int depth, Set<String> fields) {
+        return participants(participantRepository.findSummariesByUserName(userName), depth, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getComponentsOfOwner(String owner, Long afterId, int limit, int depth, Set<String> fields) {
+        List<Map<String, Object>> views = componentViews(
+                componentRepository.findSummariesByOwnerAfter(owner, afterId, new PageRequest(0, limit))
+        );
+        attachComponentChildren(views, depth);
+        return retain(views, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getComponents(Collection<Long> ids, int depth, Set<String> fields) {
+        List<Map<String, Object>> views = componentViews(componentRepository.findSummariesByIds(ids));
+        attachComponentChildren(views, depth);
+        return retain(views, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getProperties(Collection<Long> ids, int depth, Set<String> fields) {
+        List<Map<String, Object>> views = propertyViews(propertyRepository.findSummariesByIds(ids));
+        attachParameters(views, depth);
+        return retain(views, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Map<String, Object>> getPropertiesOfComponent(Long componentId, int depth, Set<String> fields) {
+        List<Map<String, Object>> views = propertyViews(
+                propertyRepository.findSummariesByComponentIds(Collections.singleton(componentId))
+        );
+        attachParameters(views, depth);
+        return retain(views, fields);
+    }
+
+    private List<Map<String, Object>> participants(List<Object[]> rows, int depth, Set<String> fields) {
+        List<Map<String, Object>> views = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", row[0]);
+            view.put("type", simpleName(row[1]));
+            view.put("userName", row[2]);
+            view.put("creationDate", row[3]);
+            views.add(view);
+        }
+        if (depth > 0 && !views.isEmpty()) {
+            List<Map<String, Object>> roots = componentViews(componentRepository.findRootSummariesByOwnerIds(idsOf(views)));
+            attachComponentChildren(roots, depth - 1);
+            attach(views, "components", roots, "ownerId");
+        }
+        return retain(views, fields);
+    }
+
+    private List<Map<String, Object>> componentViews(List<Object[]> rows) {
+        List<Map<String, Object>> views = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", row[0]);
+            view.put("type", IcalNames.componentName(simpleName(row[1])));
+            view.put("parentId", row[2]);
+            view.put("ownerId", row[3]);
+            view.put("creationDate", row[4]);
+            views.add(view);
+        }
+        return views;
+    }
+
+    private List<Map<String, Object>> propertyViews(List<Object[]> rows) {
+        List<Map<String, Object>> views = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", row[0]);
+            view.put("type", IcalNames.elementName(simpleName(row[1])));
+            view.put("componentId", row[2]);
+            view.put("value", row[3]);
+            views.add(view);
+        }
+        return views;
+    }
+
+    private List<Map<String, Object>> parameterViews(List<Object[]> rows) {
+        List<Map<String, Object>> views = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", row[0]);
+            view.put("type", IcalNames.elementName(simpleName(row[1])));
+            view.put("propertyId", row[2]);
+            view.put("value", row[3]);
+            views.add(view);
+        }
+        return views;
+    }
+
+    /**
+     * loads properties and child components of a whole level at once, then recurses into the next level
+     */
+    private void attachComponentChildren(List<Map<String, Object>> components, int depth) {
+        if (depth <= 0 || components.isEmpty()) {
+            return;
+        }
+        List<Long> ids = idsOf(components);
+
+        List<Map<String, Object>> properties = propertyViews(propertyRepository.findSummariesByComponentIds(ids));
+        attachParameters(properties, depth - 1);
+        attach(components, "properties", properties, "componentId");
+
+        List<Map<String, Object>> children = componentViews(componentRepository.findSummariesByParentIds(ids));
+        attachComponentChildren(children, depth - 1);
+        attach(components, "components", children, "parentId");
+    }
+
+    private void attachParameters(List<Map<String, Object>> properties, int depth) {
+        if (depth <= 0 || properties.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> parameters = parameterViews(parameterRepository.findSummariesByPropertyIds(idsOf(properties)));
+        attach(properties, "parameters", parameters, "propertyId");
+    }
+
+    private static void attach(List<Map<String, Object>> parents, String key,
+                               List<Map<String, Object>> children, String parentKey) {
+        Map<Object, List<Map<String, Object>>> byParent = new LinkedHashMap<>();
+        for (Map<String, Object> parent : parents) {
+            List<Map<String, Object>> list = new ArrayList<>();
+            byParent.put(parent.get("id"), list);
+            parent.put(key, list);
+        }
+        for (Map<String, Object> child : children) {
+            List<Map<String, Object>> list = byParent.get(child.get(parentKey));
+            if (list != null) {
+                list.add(child);
+            }
+        }
+    }
+
+    private static List<Long> idsOf(List<Map<String, Object>> views) {
+        List<Long> ids = new ArrayList<>(views.size());
+        for (Map<String, Object> view : views) {
+            ids.add((Long) view.get("id"));
+        }
+        return ids;
+    }
+
+    private static List<Map<String, Object>> retain(List<Map<String, Object>> views, Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return views;
+        }
+        for (Map<String, Object> view : views) {
+            view.keySet().removeIf(key -> !"id".equals(key) && !fields.contains(key));
+            for (Object value : view.values()) {
+                if (value instanceof List) {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> nested = (List<Map<String, Object>>) value;
+                    retain(nested, fields);
+                }
+            }
+        }
+        return views;
+    }
+
+    /**
+     * TYPE() selects the entity class, fall back to the raw discriminator otherwise
+     */
+    private static String simpleName(Object type) {
+        return type instanceof Class ? ((Class<?>) type).getSimpleName() : String.valueOf(type);
+    }
+}
@@ -0,0 +1,33 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * expands recurring components (RRULE, RDATE, EXDATE, RECURRENCE-ID) into occurrences
+ */
+public interface RecurrenceService {
+    /**
+     * expands occurrences of the component overlapping with [start, end),
+     * a non recurring component yields its single instance
+     *
+     * @param component schedulable component
+     * @param start inclusive start of the window
+     * @param end exclusive end of the window
+     * @return occurrences ordered by their start
+     * @throws IllegalArgumentException when recurrence values of the component are malformed
+     */
+    List<Occurrence> getOccurrences(Component component, Instant start, Instant end);
+
+    /**
+     * drops cached occurrences which depend on the given component
+     *
+     * @param componentId id of the changed component
+     * @param parentId parent id of the changed component, siblings may be overrides of a cached series
+     * @param uid UID of the changed component, may be null when its UID did not change
+     */
+    void invalidate(Long componentId, Long parentId, String uid);
+}
@@ -0,0 +1,261 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.server.cache.CacheRegistry;
+import tr.edu.itu.cavabunga.server.cache.NearCache;
+import tr.edu.itu.cavabunga.server.datasource.ReplicaLagGuard;
+import tr.edu.itu.cavabunga.server.event.ComponentChangedEvent;
+import tr.edu.itu.cavabunga.server.ical.EventTimes;
+import tr.edu.itu.cavabunga.server.ical.recurrence.Occurrence;
+import tr.edu.itu.cavabunga.server.ical.recurrence.RecurrenceExpander;
+import tr.edu.itu.cavabunga.server.repository.ComponentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@inheritDoc}
+ *
+ * Expanded series are kept in the recurrence.series near cache, each entry materializes a series for one
+ * horizon from the start of the window that missed, so that repeated and following window requests are
+ * answered by slicing. Expansion always starts at the window, never at the start of the series.
+ * Series expanded from a replica shortly after a component changed are not cached, see ReplicaLagGuard.
+ *
+ * A change evicts the series of the changed component, the series it is a known override of and the
+ * series of its parent and UID, which it may have just become an override of. Both lookups go through
+ * indexes kept in step with the cache by its removal listener, other series under the same parent stay.
+ */
+@Service
+public class RecurrenceServiceImpl implements RecurrenceService {
+    private final NearCache<Long, MaterializedSeries> cache;
+
+    // guarded by the cache, whose removal listener runs with its lock held
+    private final Map<Long, Long> mastersByOverride = new HashMap<>();
+
+    private final Map<String, Long> mastersByUid = new HashMap<>();
+
+    private final ComponentRepository componentRepository;
+
+    private final int maxOccurrences;
+
+    private final int maxScanned;
+
+    private final Duration horizon;
+
+    private final ReplicaLagGuard replicaLagGuard;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentRepository to inject ComponentRepository, overrides of a series are looked up through it
+     * @param cacheRegistry to create the series cache
+     * @param cacheSize maximum number of cached series
+     * @param ttlSeconds time to live of a cached series, bounds staleness caused by other instances
+     * @param maxOccurrences series with more occurrences within the horizon are expanded on every request
+     * @param maxScanned upper bound of instances walked by a single uncached expansion
+     * @param horizonDays length of the window a cached series is materialized for
+     * @param replicationLagMillis upper bound of the replication lag
+     */
+    @Autowired
+    public RecurrenceServiceImpl(
+            ComponentRepository componentRepository,
+            CacheRegistry cacheRegistry,
+            @Value("${cavabunga.recurrence.cache-size:10000}") int cacheSize,
+            @Value("${cavabunga.recurrence.ttl-seconds:600}") long ttlSeconds,
+            @Value("${cavabunga.recurrence.max-occurrences:5000}") int maxOccurrences,
+            @Value("${cavabunga.recurrence.max-scanned:100000}") int maxScanned,
+            @Value("${cavabunga.recurrence.horizon-days:730}") int horizonDays,
+            @Value("${cavabunga.datasource.read-your-writes-millis:5000}") long replicationLagMillis
+    ) {
+        this.componentRepository = componentRepository;
+        this.cache = cacheRegistry.create("recurrence.series", cacheSize, ttlSeconds * 1000);
+        this.cache.setRemovalListener(this::unindex);
+        this.maxOccurrences = maxOccurrences;
+        this.maxScanned = maxScanned;
+        this.horizon = Duration.ofDays(horizonDays);
+        this.replicaLagGuard = new ReplicaLagGuard(replicationLagMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Occurrence> getOccurrences(Component component, Instant start, Instant end){
+        if (!RecurrenceExpander.isRecurring(component)) {
+            EventTimes times = EventTimes.of(component);
+            if (times == null) {
+                return Collections.emptyList();
+            }
+            Occurrence single = new Occurrence(component.getId(), times.getStart(), times.getStart(), times.getEnd());
+            return single.overlaps(start, end) ? Collections.singletonList(single) : Collections.emptyList();
+        }
+
+        MaterializedSeries series;
+        synchronized (cache) {
+            series = cache.get(component.getId());
+        }
+        if (series != null && !start.isBefore(series.coveredFrom) && !end.isAfter(series.coveredUntil)) {
+            return series.slice(start, end);
+        }
+
+        List<Component> overrides = findOverrides(component);
+        RecurrenceExpander expander = new RecurrenceExpander(component, overrides);
+        Instant coveredUntil = start.plus(horizon);
+        if (component.getId() == null || end.isAfter(coveredUntil)) {
+            return expander.expand(start, end, maxScanned);
+        }
+        List<Occurrence> occurrences = expander.expand(start, coveredUntil, maxOccurrences + 1);
+        if (occurrences.size() > maxOccurrences) {
+            return expander.expand(start, end, maxScanned);
+        }
+
+        Set<Long> overrideIds = new HashSet<>();
+        for (Component override : overrides) {
+            overrideIds.add(override.getId());
+        }
+        Property uid = EventTimes.findProperty(component, "UID");
+        series = new MaterializedSeries(
+                occurrences,
+                start,
+                coveredUntil,
+                seriesKey(component.getParent() != null ? component.getParent().getId() : null, uid != null ? uid.getValue() : null),
+                overrideIds
+        );
+        if (replicaLagGuard.isCacheable()) {
+            synchronized (cache) {
+                // a replaced entry is unindexed by the removal listener, so index only afterwards
+                cache.put(component.getId(), series);
+                index(component.getId(), series);
+            }
+        }
+        return series.slice(start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(Long componentId, Long parentId, String uid){
+        synchronized (cache) {
+            cache.invalidate(componentId);
+            Long master = mastersByOverride.get(componentId);
+            if (master != null) {
+                cache.invalidate(master);
+            }
+            String key = seriesKey(parentId, uid);
+            master = key != null ? mastersByUid.get(key) : null;
+            if (master != null) {
+                cache.invalidate(master);
+            }
+        }
+    }
+
+    /**
+     * evicts as soon as the write happens
+     *
+     * @param event component change
+     */
+    @EventListener
+    public void onComponentChanged(ComponentChangedEvent event) {
+        evict(event);
+    }
+
+    /**
+     * evicts again after commit, a concurrent reader may have cached the state before the write became visible
+     *
+     * @param event component change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void afterComponentChanged(ComponentChangedEvent event) {
+        evict(event);
+    }
+
+    private void evict(ComponentChangedEvent event) {
+        replicaLagGuard.written();
+        // a created or modified sibling with the UID of a series may have become one of its overrides
+        invalidate(event.getComponentId(), event.getParentId(), event.getUid());
+    }
+
+    private void index(Long masterId, MaterializedSeries series) {
+        for (Long overrideId : series.overrideIds) {
+            mastersByOverride.put(overrideId, masterId);
+        }
+        if (series.key != null) {
+            mastersByUid.put(series.key, masterId);
+        }
+    }
+
+    private void unindex(Long masterId, MaterializedSeries series) {
+        for (Long overrideId : series.overrideIds) {
+            mastersByOverride.remove(overrideId, masterId);
+        }
+        if (series.key != null) {
+            mastersByUid.remove(series.key, masterId);
+        }
+    }
+
+    private static String seriesKey(Long parentId, String uid) {
+        return parentId != null && uid != null ? parentId + ":" + uid : null;
+    }
+
+    private List<Component> findOverrides(Component master) {
+        Component parent = master.getParent();
+        Property uid = EventTimes.findProperty(master, "UID");
+        if (parent == null || parent.getId() == null || uid == null || uid.getValue() == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = componentRepository.findOverrideIds(parent.getId(), uid.getValue());
+        ids.remove(master.getId());
+        return ids.isEmpty() ? Collections.emptyList() : componentRepository.findWithPropertiesByIds(ids);
+    }
+
+    /**
+     * occurrences of a series overlapping [coveredFrom, coveredUntil)
+     */
+    private static final class MaterializedSeries {
+        private final List<Occurrence> occurrences;
+
+        private final Instant coveredFrom;
+
+        private final Instant coveredUntil;
+
+        private final String key;
+
+        private final Set<Long> overrideIds;
+
+        private MaterializedSeries(List<Occurrence> occurrences, Instant coveredFrom, Instant coveredUntil,
+                                   String key, Set<Long> overrideIds) {
+            this.occurrences = occurrences;
+            this.coveredFrom = coveredFrom;
+            this.coveredUntil = coveredUntil;
+            this.key = key;
+            this.overrideIds = overrideIds;
+        }
+
+        private List<Occurrence> slice(Instant start, Instant end) {
+            List<Occurrence> result = new ArrayList<>();
+            for (Occurrence occurrence : occurrences) {
+                if (!occurrence.getStart().isBefore(end)) {
+                    break;
+                }
+                if (occurrence.overlaps(start, end)) {
+                    result.add(occurrence);
+                }
+            }
+            return result;
+        }
+    }
+}
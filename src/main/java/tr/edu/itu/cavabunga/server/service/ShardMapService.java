@@ -0,0 +1,87 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+import tr.edu.itu.cavabunga.server.shard.ShardKey;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard map: which shard holds the calendars of a participant.
+ *
+ * The directory of all participants and their shard assignment lives on the default shard, calendar
+ * data (components, properties, parameters and their indexes) lives on the participant's shard next
+ * to a copy of the participant row. Participants without an assignment live on the default shard.
+ */
+public interface ShardMapService {
+    /**
+     * @return names of all shards, the default shard first
+     */
+    List<String> getShards();
+
+    /**
+     * @param participantId participant id
+     * @return shard holding the participant's calendars
+     */
+    String getShardOfParticipant(Long participantId);
+
+    /**
+     * @param userName participant username
+     * @return shard holding the participant's calendars, the default shard when participant not found
+     */
+    String getShardOfParticipant(String userName);
+
+    /**
+     * @param kind what key identifies
+     * @param key username, participant id or id of a component, property or parameter
+     * @return shard holding the element, the default shard when key is null or the element not found
+     * @throws Conflict when the participant owning the element is being moved to another shard
+     */
+    String locate(ShardKey.Kind kind, Object key);
+
+    /**
+     * @return number of participants assigned to every shard, unassigned participants count for the default shard
+     */
+    Map<String, Long> countParticipants();
+
+    /**
+     * assigns a participant added in the current transaction to a shard, chosen by a hash of the username.
+     * The participant row is copied to the shard once the transaction commits
+     *
+     * @param participant saved participant
+     */
+    void participantAdded(Participant participant);
+
+    /**
+     * copies a participant changed in the current transaction to its shard once the transaction commits
+     *
+     * @param participant saved participant
+     */
+    void participantUpdated(Participant participant);
+
+    /**
+     * removes a participant deleted from its shard in the current transaction from the directory
+     * once the transaction commits
+     *
+     * @param participantId deleted participant id
+     */
+    void participantDeleted(Long participantId);
+
+    /**
+     * marks a participant as being moved, calls routed to the participant fail with Conflict until
+     * the move finishes
+     *
+     * @param participantId participant id
+     * @param moving true when a move starts, false when it ends
+     * @throws Conflict when a move starts while another one is running
+     */
+    void setMoving(Long participantId, boolean moving);
+
+    /**
+     * @param participantId participant id
+     * @param shard shard now holding the participant's calendars
+     * @throws IllegalArgumentException when shard is unknown
+     */
+    void assign(Long participantId, String shard);
+}
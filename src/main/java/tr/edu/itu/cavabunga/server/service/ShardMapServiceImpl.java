@@ -0,0 +1,360 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+import tr.edu.itu.cavabunga.server.cache.CacheRegistry;
+import tr.edu.itu.cavabunga.server.cache.NearCache;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.datasource.ShardRoutingDataSource;
+import tr.edu.itu.cavabunga.server.shard.RowCopier;
+import tr.edu.itu.cavabunga.server.shard.ShardKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@inheritDoc}
+ *
+ * The directory is the participant_shard table of the default shard, read with plain JDBC from the
+ * primary so that it is reachable whichever shard the calling thread is bound to and never cached
+ * from a lagging replica. Assignments are kept in a near cache for
+ * cavabunga.shards.map.ttl-seconds, changes made by other instances show up once they expire.
+ *
+ * Components, properties and parameters are located by asking every shard for the owner of the id,
+ * read through the closure table from the nearest ancestor carrying one. Only the shard the owner is
+ * assigned to counts, so rows left on another shard by a move are ignored. Owners are cached per id,
+ * ids must not overlap between shards, e.g. auto_increment_offset and auto_increment_increment set
+ * per MySQL shard.
+ */
+@Service
+public class ShardMapServiceImpl implements ShardMapService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardMapServiceImpl.class);
+
+    private static final Map<ShardKey.Kind, String> OWNER_QUERIES = new EnumMap<>(ShardKey.Kind.class);
+
+    static {
+        // components created as children of a tree may not carry an owner, the nearest ancestor that does owns them
+        OWNER_QUERIES.put(ShardKey.Kind.COMPONENT, "select c.owner_id from component_ancestor t join component c on c.id = t.ancestor_id "
+                + "where t.descendant_id = ? and c.owner_id is not null order by t.depth");
+        OWNER_QUERIES.put(ShardKey.Kind.PROPERTY, "select c.owner_id from property p join component_ancestor t on t.descendant_id = p.component_id "
+                + "join component c on c.id = t.ancestor_id where p.id = ? and c.owner_id is not null order by t.depth");
+        OWNER_QUERIES.put(ShardKey.Kind.PARAMETER, "select c.owner_id from parameter a join property p on p.id = a.property_id "
+                + "join component_ancestor t on t.descendant_id = p.component_id join component c on c.id = t.ancestor_id "
+                + "where a.id = ? and c.owner_id is not null order by t.depth");
+    }
+
+    private final Map<String, JdbcTemplate> shards = new LinkedHashMap<>();
+
+    private final List<String> assignable = new ArrayList<>();
+
+    private JdbcTemplate directory;
+
+    private JdbcTemplate transactional;
+
+    private NearCache<Long, Assignment> assignments;
+
+    private NearCache<String, Long> idsByUserName;
+
+    private NearCache<String, Long> owners;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param shardRoutingDataSource to inject ShardRoutingDataSource, the primaries of the shards are read directly
+     * @param dataSource to inject the application DataSource, directory writes join the running transaction through it
+     * @param cacheRegistry to create the shard map caches
+     * @param assignTo shards new participants are spread over, all shards when empty
+     * @param cacheSize maximum number of cached participants and element owners
+     * @param ttlSeconds time to live of a cached assignment
+     */
+    @Autowired
+    public ShardMapServiceImpl(
+            ShardRoutingDataSource shardRoutingDataSource,
+            DataSource dataSource,
+            CacheRegistry cacheRegistry,
+            @Value("${cavabunga.shards.assign:}") String[] assignTo,
+            @Value("${cavabunga.shards.map.max-size:100000}") int cacheSize,
+            @Value("${cavabunga.shards.map.ttl-seconds:30}") long ttlSeconds
+    ) {
+        for (String name : shardRoutingDataSource.getShardNames()) {
+            // read-only transactions of the caller would send reads to a replica, the cached map must not lag
+            shards.put(name, new JdbcTemplate(shardRoutingDataSource.getShard(name).getPrimary()));
+        }
+        for (String name : assignTo) {
+            if (!name.trim().isEmpty()) {
+                Assert.isTrue(shards.containsKey(name.trim()), "Unknown shard: " + name);
+                assignable.add(name.trim());
+            }
+        }
+        if (assignable.isEmpty()) {
+            assignable.addAll(shards.keySet());
+        }
+        this.directory = shards.get(ShardContext.DEFAULT);
+        this.transactional = new JdbcTemplate(dataSource);
+        this.assignments = cacheRegistry.create("shard.participant", cacheSize, ttlSeconds * 1000);
+        this.idsByUserName = cacheRegistry.create("shard.userName", cacheSize, ttlSeconds * 1000);
+        this.owners = cacheRegistry.create("shard.owner", cacheSize, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getShards(){
+        return new ArrayList<>(shards.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShardOfParticipant(Long participantId){
+        Assert.notNull(participantId, "Participant id must not be null!");
+
+        return assignment(participantId).shard;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getShardOfParticipant(String userName){
+        Assert.notNull(userName, "Username must not be null!");
+
+        Long id = participantId(userName);
+        return id == null ? ShardContext.DEFAULT : getShardOfParticipant(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String locate(ShardKey.Kind kind, Object key){
+        Assert.notNull(kind, "Kind must not be null!");
+        if (key == null || shards.size() == 1) {
+            return ShardContext.DEFAULT;
+        }
+
+        switch (kind) {
+            case PARTICIPANT_NAME:
+                return routable(participantId((String) key));
+            case PARTICIPANT_ID:
+                return routable((Long) key);
+            case COMPONENT:
+            case PROPERTY:
+            case PARAMETER:
+                return routable(owner(kind, (Long) key));
+            default:
+                throw new IllegalArgumentException("Kind can't be located: " + kind);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> countParticipants(){
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String name : shards.keySet()) {
+            counts.put(name, 0L);
+        }
+        long assigned = 0;
+        for (Map<String, Object> row : directory.queryForList(
+                "select shard, count(*) as participants from participant_shard where shard <> ? group by shard", ShardContext.DEFAULT)) {
+            long participants = ((Number) row.get("participants")).longValue();
+            counts.put((String) row.get("shard"), participants);
+            assigned += participants;
+        }
+        counts.put(ShardContext.DEFAULT, directory.queryForObject("select count(*) from participant", Long.class) - assigned);
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void participantAdded(Participant participant){
+        Assert.notNull(participant.getId(), "Participant must be saved!");
+        String shard = assignable.get(Math.floorMod(participant.getUserName().hashCode(), assignable.size()));
+        if (ShardContext.DEFAULT.equals(shard)) {
+            return;
+        }
+
+        transactional.update("insert into participant_shard (participant_id, shard, moving) values (?, ?, ?)",
+                participant.getId(), shard, false);
+        Long id = participant.getId();
+        afterCommit(() -> {
+            try {
+                new RowCopier(directory, shards.get(shard)).upsert("participant", "id", id);
+            } catch (RuntimeException e) {
+                // the participant row exists on the default shard only, its calendars stay there
+                LOGGER.warn("Participant {} couldn't be copied to shard {}, keeping it on the default shard", id, shard, e);
+                directory.update("delete from participant_shard where participant_id = ?", id);
+            }
+            assignments.invalidate(id);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void participantUpdated(Participant participant){
+        Long id = participant.getId();
+        String shard = getShardOfParticipant(id);
+        if (ShardContext.DEFAULT.equals(shard)) {
+            return;
+        }
+
+        idsByUserName.invalidateIf((userName, cachedId) -> id.equals(cachedId));
+        afterCommit(() -> new RowCopier(directory, shards.get(shard)).upsert("participant", "id", id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void participantDeleted(Long participantId){
+        String shard = ShardContext.current();
+        idsByUserName.invalidateIf((userName, cachedId) -> participantId.equals(cachedId));
+        if (ShardContext.DEFAULT.equals(shard)) {
+            return;
+        }
+
+        afterCommit(() -> {
+            directory.update("delete from participant_shard where participant_id = ?", participantId);
+            directory.update("delete from participant where id = ?", participantId);
+            assignments.invalidate(participantId);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMoving(Long participantId, boolean moving){
+        Assert.notNull(participantId, "Participant id must not be null!");
+
+        try {
+            if (directory.update("update participant_shard set moving = ? where participant_id = ? and moving = ?",
+                    moving, participantId, !moving) == 0 && moving) {
+                directory.update("insert into participant_shard (participant_id, shard, moving) values (?, ?, ?)",
+                        participantId, ShardContext.DEFAULT, true);
+            }
+        } catch (DuplicateKeyException e) {
+            throw new Conflict("Participant with id: " + participantId + " is already being moved");
+        } finally {
+            assignments.invalidate(participantId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void assign(Long participantId, String shard){
+        Assert.notNull(participantId, "Participant id must not be null!");
+        Assert.isTrue(shards.containsKey(shard), "Unknown shard: " + shard);
+
+        if (directory.update("update participant_shard set shard = ? where participant_id = ?", shard, participantId) == 0) {
+            directory.update("insert into participant_shard (participant_id, shard, moving) values (?, ?, ?)",
+                    participantId, shard, false);
+        }
+        assignments.invalidate(participantId);
+    }
+
+    private String routable(Long participantId) {
+        if (participantId == null) {
+            return ShardContext.DEFAULT;
+        }
+        Assignment assignment = assignment(participantId);
+        if (assignment.moving) {
+            throw new Conflict("Participant with id: " + participantId + " is being moved to another shard, please retry later");
+        }
+        return assignment.shard;
+    }
+
+    private Assignment assignment(Long participantId) {
+        Assignment assignment = assignments.get(participantId);
+        if (assignment == null) {
+            List<Map<String, Object>> rows = directory.queryForList(
+                    "select shard, moving from participant_shard where participant_id = ?", participantId);
+            assignment = rows.isEmpty()
+                    ? new Assignment(ShardContext.DEFAULT, false)
+                    : new Assignment((String) rows.get(0).get("shard"), Boolean.TRUE.equals(rows.get(0).get("moving")));
+            assignments.put(participantId, assignment);
+        }
+        return assignment;
+    }
+
+    private Long participantId(String userName) {
+        Long id = idsByUserName.get(userName);
+        if (id == null) {
+            List<Long> ids = directory.queryForList("select id from participant where user_name = ?", Long.class, userName);
+            if (ids.isEmpty()) {
+                return null;
+            }
+            id = ids.get(0);
+            idsByUserName.put(userName, id);
+        }
+        return id;
+    }
+
+    private Long owner(ShardKey.Kind kind, Long id) {
+        String key = kind + ":" + id;
+        Long owner = owners.get(key);
+        if (owner != null) {
+            return owner;
+        }
+        for (Map.Entry<String, JdbcTemplate> shard : shards.entrySet()) {
+            for (Long candidate : shard.getValue().queryForList(OWNER_QUERIES.get(kind), Long.class, id)) {
+                if (shard.getKey().equals(assignment(candidate).shard)) {
+                    owners.put(key, candidate);
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * shard assignment of one participant
+     */
+    private static final class Assignment {
+        private final String shard;
+
+        private final boolean moving;
+
+        Assignment(String shard, boolean moving) {
+            this.shard = shard;
+            this.moving = moving;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.exception.Conflict;
+import tr.edu.itu.cavabunga.lib.exception.NotFound;
+
+import java.util.Map;
+
+/**
+ * moves the calendars of a single participant between shards, for rebalancing
+ */
+public interface ShardMoveService {
+    /**
+     * moves all calendar data of the participant to the target shard. Calls for the participant fail with
+     * Conflict while the move runs, the data is copied in one transaction of the target shard, the shard map
+     * is switched and the rows are removed from the source shard afterwards
+     *
+     * @param userName username of the participant
+     * @param targetShard name of the shard to move to
+     * @return number of rows copied per table
+     * @throws IllegalArgumentException when any input is null | target shard is unknown | participant is on the target shard already
+     * @throws NotFound when participant with given username not found
+     * @throws Conflict when the participant is being moved already
+     */
+    Map<String, Integer> move(String userName, String targetShard);
+}
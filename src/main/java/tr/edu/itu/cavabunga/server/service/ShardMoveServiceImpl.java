@@ -0,0 +1,197 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.exception.NotFound;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.datasource.ShardRoutingDataSource;
+import tr.edu.itu.cavabunga.server.shard.RowCopier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@inheritDoc}
+ *
+ * Rows are copied with plain JDBC and keep their ids. Before the copy the move waits for
+ * cavabunga.shards.map.ttl-seconds, so that every instance has seen the participant being moved and
+ * no write can reach the source shard during the copy. Rows left on the source by a failed cleanup
+ * are ignored, only the shard the participant is assigned to is read.
+ */
+@Service
+public class ShardMoveServiceImpl implements ShardMoveService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardMoveServiceImpl.class);
+
+    /**
+     * components of the owner, children created inside a tree may not carry the owner themselves
+     */
+    private static final String COMPONENTS = "(select t.descendant_id from component_ancestor t "
+            + "join component o on o.id = t.ancestor_id where o.owner_id = ?)";
+
+    /**
+     * calendar tables in insert order, parents before children. Components are created before their
+     * children, so id order inserts every parent first
+     */
+    private static final List<Table> TABLES = Collections.unmodifiableList(Arrays.asList(
+            new Table("component", "id in " + COMPONENTS, "id"),
+            new Table("property", "component_id in " + COMPONENTS, "id"),
+            new Table("parameter", "property_id in (select p.id from property p where p.component_id in " + COMPONENTS + ")", "id"),
+            new Table("event_index", "owner_id = ?", null),
+            new Table("component_uid", "owner_id = ?", null),
+            new Table("component_ancestor", "descendant_id in " + COMPONENTS, null),
+            new Table("component_version", "component_id in " + COMPONENTS, null),
+            new Table("owner_version", "owner_id = ?", null),
+            new Table("component_change", "owner_id = ?", "id"),
+            new Table("component_change_sequence", "owner_id = ?", null)
+    ));
+
+    private ShardMapService shardMapService;
+
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private long settleMillis;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param shardMapService to inject ShardMapService
+     * @param shardRoutingDataSource to inject ShardRoutingDataSource, the shards are written directly
+     * @param ttlSeconds time to live of cached shard assignments, waited for before copying
+     */
+    @Autowired
+    public ShardMoveServiceImpl(
+            ShardMapService shardMapService,
+            ShardRoutingDataSource shardRoutingDataSource,
+            @Value("${cavabunga.shards.map.ttl-seconds:30}") long ttlSeconds
+    ) {
+        this.shardMapService = shardMapService;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        this.settleMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Integer> move(String userName, String targetShard){
+        Assert.notNull(userName, "Username must not be null!");
+        Assert.notNull(targetShard, "Target shard must not be null!");
+        Assert.isTrue(shardMapService.getShards().contains(targetShard), "Unknown shard: " + targetShard);
+
+        JdbcTemplate directory = new JdbcTemplate(shardRoutingDataSource.getShard(ShardContext.DEFAULT));
+        List<Long> ids = directory.queryForList("select id from participant where user_name = ?", Long.class, userName);
+        if (ids.isEmpty()) {
+            throw new NotFound("Participant with username: " + userName + " couldn't found");
+        }
+        Long id = ids.get(0);
+        String sourceShard = shardMapService.getShardOfParticipant(id);
+        Assert.isTrue(!sourceShard.equals(targetShard), "Participant is on shard " + targetShard + " already");
+
+        DataSource source = shardRoutingDataSource.getShard(sourceShard);
+        DataSource target = shardRoutingDataSource.getShard(targetShard);
+        shardMapService.setMoving(id, true);
+        Map<String, Integer> moved;
+        try {
+            settle();
+            moved = new TransactionTemplate(new DataSourceTransactionManager(target)).execute(status -> {
+                JdbcTemplate targetTemplate = new JdbcTemplate(target);
+                // leftovers of an earlier move that failed to clean up
+                delete(targetTemplate, id, !ShardContext.DEFAULT.equals(targetShard));
+                return copy(new RowCopier(new JdbcTemplate(source), targetTemplate), id, !ShardContext.DEFAULT.equals(targetShard));
+            });
+            shardMapService.assign(id, targetShard);
+        } finally {
+            shardMapService.setMoving(id, false);
+        }
+
+        try {
+            new TransactionTemplate(new DataSourceTransactionManager(source)).execute(status -> {
+                delete(new JdbcTemplate(source), id, !ShardContext.DEFAULT.equals(sourceShard));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Participant {} moved to shard {}, but its rows couldn't be removed from shard {}",
+                    userName, targetShard, sourceShard, e);
+        }
+        LOGGER.info("Participant {} moved from shard {} to shard {}: {}", userName, sourceShard, targetShard, moved);
+        return moved;
+    }
+
+    private void settle() {
+        try {
+            Thread.sleep(settleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shard map to settle", e);
+        }
+    }
+
+    private static Map<String, Integer> copy(RowCopier copier, Long id, boolean participant) {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        if (participant) {
+            copier.upsert("participant", "id", id);
+        }
+        for (Table table : TABLES) {
+            moved.put(table.name, copier.copy(table.name, table.condition + (table.order != null ? " order by " + table.order : ""), id));
+        }
+        return moved;
+    }
+
+    private static void delete(JdbcTemplate template, Long id, boolean participant) {
+        // read before the closure rows the other conditions depend on are gone, children first,
+        // a component's parent always has the lower id
+        List<Object[]> components = new ArrayList<>();
+        for (Long componentId : template.queryForList("select distinct t.descendant_id from component_ancestor t "
+                + "join component o on o.id = t.ancestor_id where o.owner_id = ? order by t.descendant_id desc", Long.class, id)) {
+            components.add(new Object[]{componentId});
+        }
+        List<Table> tables = new ArrayList<>(TABLES);
+        Collections.reverse(tables);
+        for (Table table : tables) {
+            if (table.name.equals("component_ancestor")) {
+                // deleted with the components, the remaining conditions read through it
+                continue;
+            }
+            if (table.name.equals("component")) {
+                if (!components.isEmpty()) {
+                    template.batchUpdate("delete from component_ancestor where descendant_id = ?", components);
+                    template.batchUpdate("delete from component where id = ?", components);
+                }
+            } else {
+                template.update("delete from " + table.name + " where " + table.condition, id);
+            }
+        }
+        if (participant) {
+            template.update("delete from participant where id = ?", id);
+        }
+    }
+
+    /**
+     * calendar table with the rows of one owner
+     */
+    private static final class Table {
+        private final String name;
+
+        private final String condition;
+
+        private final String order;
+
+        Table(String name, String condition, String order) {
+            this.name = name;
+            this.condition = condition;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package tr.edu.itu.cavabunga.server.service;
+
+/**
+ * deletes large component subtrees in the background
+ */
+public interface SubtreeDeleteService {
+    /**
+     * deletes the component and its subtree asynchronously, deepest level first in a separate transaction per chunk.
+     * The tree shrinks from the leaves while the delete is running, the component itself goes last
+     *
+     * @param id component id to delete
+     */
+    void deleteAsync(Long id);
+}
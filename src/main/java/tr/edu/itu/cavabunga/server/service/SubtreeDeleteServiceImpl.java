@@ -0,0 +1,71 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.ical.ComponentRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * {@inheritDoc}
+ *
+ * Each chunk commits on its own so row locks are held for one chunk only, a failed chunk leaves
+ * the remaining subtree in place and can be deleted again.
+ */
+@Service
+public class SubtreeDeleteServiceImpl implements SubtreeDeleteService {
+    private static final Logger logger = LoggerFactory.getLogger(SubtreeDeleteServiceImpl.class);
+
+    private IcalService icalService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int chunkSize;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param icalService to inject IcalService
+     * @param transactionManager to run every chunk in its own transaction
+     * @param chunkSize number of components deleted per transaction
+     */
+    @Autowired
+    public SubtreeDeleteServiceImpl(
+            IcalService icalService,
+            PlatformTransactionManager transactionManager,
+            @Value("${cavabunga.delete.chunk-size:500}") int chunkSize
+    ) {
+        this.icalService = icalService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Async("subtreeDeleteExecutor")
+    public void deleteAsync(Long id){
+        List<List<ComponentRef>> chunks = transactionTemplate.execute(status -> icalService.getSubtreeDeleteChunks(id, chunkSize));
+        int deleted = 0;
+        try {
+            for (List<ComponentRef> chunk : chunks) {
+                transactionTemplate.execute(status -> {
+                    icalService.deleteComponents(chunk);
+                    return null;
+                });
+                deleted += chunk.size();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Deleting subtree of component {} failed after {} components", id, deleted, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+
+/**
+ * keeps cheap change counters of component subtrees and owner calendars, used as HTTP validators
+ */
+public interface VersionService {
+    /**
+     * @param componentId id of the component
+     * @return current version of the component subtree, version 0 without last modified date when never written
+     */
+    ComponentVersion getComponentVersion(Long componentId);
+
+    /**
+     * @param ownerId id of the owner participant
+     * @return current version of all components of the owner, version 0 without last modified date when never written
+     */
+    OwnerVersion getOwnerVersion(Long ownerId);
+}
@@ -0,0 +1,145 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.server.entity.ComponentVersion;
+import tr.edu.itu.cavabunga.server.entity.OwnerVersion;
+import tr.edu.itu.cavabunga.server.event.ChangeType;
+import tr.edu.itu.cavabunga.server.event.ComponentChangedEvent;
+import tr.edu.itu.cavabunga.server.repository.ComponentVersionRepository;
+import tr.edu.itu.cavabunga.server.repository.OwnerVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * {@inheritDoc}
+ *
+ * Changes are collected per transaction and written once right before commit, so a write touching
+ * many components of the same tree bumps every ancestor only once and the counters commit
+ * atomically with the data they describe. Every counter is bumped by a single upsert statement, in
+ * id order, so concurrent writers neither lose increments nor fail on each other's inserts.
+ */
+@Service
+public class VersionServiceImpl implements VersionService {
+    private ComponentHierarchyService componentHierarchyService;
+
+    private ComponentVersionRepository componentVersionRepository;
+
+    private OwnerVersionRepository ownerVersionRepository;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param componentHierarchyService to inject ComponentHierarchyService
+     * @param componentVersionRepository to inject ComponentVersionRepository
+     * @param ownerVersionRepository to inject OwnerVersionRepository
+     */
+    @Autowired
+    public VersionServiceImpl(
+            ComponentHierarchyService componentHierarchyService,
+            ComponentVersionRepository componentVersionRepository,
+            OwnerVersionRepository ownerVersionRepository
+    ) {
+        this.componentHierarchyService = componentHierarchyService;
+        this.componentVersionRepository = componentVersionRepository;
+        this.ownerVersionRepository = ownerVersionRepository;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ComponentVersion getComponentVersion(Long componentId){
+        ComponentVersion version = componentVersionRepository.findOne(componentId);
+        return version != null ? version : new ComponentVersion(componentId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OwnerVersion getOwnerVersion(Long ownerId){
+        OwnerVersion version = ownerVersionRepository.findOne(ownerId);
+        return version != null ? version : new OwnerVersion(ownerId);
+    }
+
+    /**
+     * records the changed component and its ancestors, runs inside the writing transaction
+     *
+     * @param event component change
+     */
+    @EventListener
+    public void onComponentChanged(ComponentChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges changes = new PendingChanges();
+            changes.add(event);
+            bump(changes);
+            return;
+        }
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            PendingChanges newChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, newChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    bump(newChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(VersionServiceImpl.this);
+                }
+            });
+            changes = newChanges;
+        }
+        changes.add(event);
+    }
+
+    private void bump(PendingChanges changes) {
+        Set<Long> componentIds = new HashSet<>(componentHierarchyService.getSelfAndAncestorIds(changes.componentIds));
+        componentIds.removeAll(changes.deletedIds);
+        if (!changes.deletedIds.isEmpty()) {
+            componentVersionRepository.deleteByComponentIds(changes.deletedIds);
+        }
+        Date now = new Date();
+
+        for (Long id : new TreeSet<>(componentIds)) {
+            componentVersionRepository.increment(id, now);
+        }
+        for (Long ownerId : new TreeSet<>(changes.ownerIds)) {
+            ownerVersionRepository.increment(ownerId, now);
+        }
+    }
+
+    private static class PendingChanges {
+        private final Set<Long> componentIds = new HashSet<>();
+
+        private final Set<Long> ownerIds = new HashSet<>();
+
+        private final Set<Long> deletedIds = new HashSet<>();
+
+        void add(ComponentChangedEvent event) {
+            if (event.getChangeType() == ChangeType.DELETED) {
+                deletedIds.add(event.getComponentId());
+            } else {
+                componentIds.add(event.getComponentId());
+            }
+            if (event.getParentId() != null) {
+                componentIds.add(event.getParentId());
+            }
+            if (event.getOwnerId() != null) {
+                ownerIds.add(event.getOwnerId());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package tr.edu.itu.cavabunga.server.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies rows between shards with plain JDBC. Columns are taken from the result set, so tables mapped
+ * by cavabunga-lib are copied without knowing their mapping, rows keep their ids.
+ */
+public class RowCopier {
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate source;
+
+    private final JdbcTemplate target;
+
+    /**
+     * @param source template of the shard rows are read from
+     * @param target template of the shard rows are written to
+     */
+    public RowCopier(JdbcTemplate source, JdbcTemplate target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * inserts the selected rows of table into the target, in batches of 500 rows
+     *
+     * @param table table name
+     * @param condition where clause selecting the rows, may end with an order by clause
+     * @param args arguments of the condition
+     * @return number of rows copied
+     */
+    public int copy(String table, String condition, Object... args) {
+        return source.query("select * from " + table + " where " + condition, args, (ResultSet resultSet) -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columns = metaData.getColumnCount();
+            List<String> names = new ArrayList<>(columns);
+            for (int i = 1; i <= columns; i++) {
+                names.add(metaData.getColumnLabel(i));
+            }
+            String insert = "insert into " + table + " (" + String.join(", ", names) + ") values ("
+                    + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            int copied = 0;
+            while (resultSet.next()) {
+                Object[] row = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    copied += flush(insert, batch);
+                }
+            }
+            return copied + flush(insert, batch);
+        });
+    }
+
+    /**
+     * writes the row of table with given key to the target, updating it when it exists there already
+     *
+     * @param table table name
+     * @param keyColumn primary key column
+     * @param key primary key value
+     * @return false when the row doesn't exist on the source
+     */
+    public boolean upsert(String table, String keyColumn, Object key) {
+        List<Map<String, Object>> rows = source.queryForList("select * from " + table + " where " + keyColumn + " = ?", key);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Map<String, Object> row = rows.get(0);
+        List<String> assignments = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            if (!column.getKey().equalsIgnoreCase(keyColumn)) {
+                assignments.add(column.getKey() + " = ?");
+                values.add(column.getValue());
+            }
+        }
+        values.add(key);
+        if (target.update("update " + table + " set " + String.join(", ", assignments) + " where " + keyColumn + " = ?", values.toArray()) == 0) {
+            target.update("insert into " + table + " (" + String.join(", ", row.keySet()) + ") values ("
+                    + String.join(", ", Collections.nCopies(row.size(), "?")) + ")", row.values().toArray());
+        }
+        return true;
+    }
+
+    private int flush(String insert, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        target.batchUpdate(insert, batch);
+        batch.clear();
+        return size;
+    }
+}
@@ -0,0 +1,29 @@
+package tr.edu.itu.cavabunga.server.shard;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter of a CalendarManagerService method which decides the shard the call runs on,
+ * methods without it run on the default shard. See ShardRoutingAspect.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+    /**
+     * what the parameter identifies, calendar data lives on the shard of the participant owning it
+     */
+    enum Kind {
+        PARTICIPANT_NAME,
+        PARTICIPANT_ID,
+        COMPONENT,
+        PROPERTY,
+        PARAMETER
+    }
+
+    Kind value();
+}
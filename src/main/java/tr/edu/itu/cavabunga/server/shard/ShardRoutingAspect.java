@@ -0,0 +1,88 @@
+package tr.edu.itu.cavabunga.server.shard;
+
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.service.ShardMapService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds the shard of the participant a CalendarManagerService call works on, located from the
+ * parameter marked with ShardKey, for the duration of the call. Runs before the transaction starts,
+ * so the whole transaction, including the repositories and the change listeners, uses that shard.
+ * Nested calls keep the shard of the outermost one. Within a request the shard is retained once the
+ * call returned, see ShardContext, lazy associations of the returned entities are loaded from it.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+    private final Map<Method, Integer> keyIndexes = new ConcurrentHashMap<>();
+
+    private final Map<Method, ShardKey.Kind> keyKinds = new ConcurrentHashMap<>();
+
+    private ShardMapService shardMapService;
+
+    /**
+     * constructor for dependency injection
+     *
+     * @param shardMapService to inject ShardMapService
+     */
+    @Autowired
+    public ShardRoutingAspect(ShardMapService shardMapService) {
+        this.shardMapService = shardMapService;
+    }
+
+    @Around("execution(public * tr.edu.itu.cavabunga.server.business.CalendarManagerService+.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ShardContext.isBound()) {
+            return joinPoint.proceed();
+        }
+
+        Method method = declared(((MethodSignature) joinPoint.getSignature()).getMethod());
+        int index = keyIndexes.computeIfAbsent(method, this::keyIndex);
+        String shard = index < 0 ? ShardContext.DEFAULT : shardMapService.locate(keyKinds.get(method), joinPoint.getArgs()[index]);
+        String previous = ShardContext.bind(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.bind(previous);
+            ShardContext.retain(shard);
+        }
+    }
+
+    /**
+     * @return the method as declared by CalendarManagerService, which carries the ShardKey annotations
+     */
+    private static Method declared(Method method) {
+        try {
+            return CalendarManagerService.class.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return method;
+        }
+    }
+
+    private int keyIndex(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    keyKinds.put(method, ((ShardKey) annotation).value());
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,104 @@
+-- Tables of an empty database, Hibernate only validates the mapping against them (ddl-auto=validate).
+-- Databases that existed before are baselined at version 0 and skip this, their tables were created by
+-- Hibernate. Indexes the mappings don't declare follow in V1.
+
+-- cavabunga-lib entities, one table per hierarchy with the entity name in dtype. There are no foreign
+-- keys, rows are copied between shards and subtrees deleted in bulk without ordering them by reference.
+CREATE TABLE participant (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    dtype VARCHAR(31) NOT NULL,
+    user_name VARCHAR(255),
+    creation_date DATETIME,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE component (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    dtype VARCHAR(31) NOT NULL,
+    owner_id BIGINT,
+    parent_id BIGINT,
+    creation_date DATETIME,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE property (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    dtype VARCHAR(31) NOT NULL,
+    component_id BIGINT,
+    name VARCHAR(255),
+    value VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE parameter (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    dtype VARCHAR(31) NOT NULL,
+    property_id BIGINT,
+    name VARCHAR(255),
+    value VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+-- tr.edu.itu.cavabunga.server.entity
+CREATE TABLE component_ancestor (
+    ancestor_id BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth INT NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_component_ancestor_descendant ON component_ancestor (descendant_id, depth);
+
+CREATE TABLE component_change (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    owner_id BIGINT NOT NULL,
+    sequence_no BIGINT NOT NULL,
+    component_id BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    changed_at DATETIME NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_component_change_owner_sequence ON component_change (owner_id, sequence_no);
+
+CREATE TABLE component_change_sequence (
+    owner_id BIGINT NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    PRIMARY KEY (owner_id)
+);
+
+CREATE TABLE component_uid (
+    component_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    uid VARCHAR(255) NOT NULL,
+    PRIMARY KEY (component_id),
+    CONSTRAINT uk_component_uid_owner_uid UNIQUE (owner_id, uid)
+);
+
+CREATE TABLE component_version (
+    component_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified DATETIME,
+    PRIMARY KEY (component_id)
+);
+
+CREATE TABLE owner_version (
+    owner_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified DATETIME,
+    PRIMARY KEY (owner_id)
+);
+
+CREATE TABLE event_index (
+    component_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    start_date DATETIME NOT NULL,
+    end_date DATETIME NOT NULL,
+    recurring BOOLEAN NOT NULL,
+    busy BOOLEAN NOT NULL,
+    long_span BOOLEAN NOT NULL,
+    PRIMARY KEY (component_id)
+);
+
+CREATE INDEX idx_event_index_owner_span_range ON event_index (owner_id, long_span, start_date, end_date, busy, recurring);
+CREATE INDEX idx_event_index_owner_end ON event_index (owner_id, end_date);
@@ -0,0 +1,13 @@
+-- Indexes for the lookups every request runs. Tables and columns are mapped by cavabunga-lib and
+-- created by Hibernate, this only adds what the entity mappings don't declare.
+
+-- participant lookup by user name, also keeps user names unique
+CREATE UNIQUE INDEX uk_participant_user_name ON participant (user_name);
+
+-- keyset paging of an owner's components and of a component's children, both ordered by id
+CREATE INDEX idx_component_owner_id ON component (owner_id, id);
+CREATE INDEX idx_component_parent_id ON component (parent_id, id);
+
+-- properties of components and parameters of properties, loaded per tree level
+CREATE INDEX idx_property_component_id ON property (component_id, id);
+CREATE INDEX idx_parameter_property_id ON parameter (property_id, id);
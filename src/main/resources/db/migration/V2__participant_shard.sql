@@ -0,0 +1,9 @@
+-- Shard map, read on the default shard only. Participants without a row live on the default shard.
+
+CREATE TABLE participant_shard (
+    participant_id BIGINT NOT NULL PRIMARY KEY,
+    shard VARCHAR(64) NOT NULL,
+    moving BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+CREATE INDEX idx_participant_shard_shard ON participant_shard (shard);
@@ -0,0 +1,4 @@
+-- Flags event index entries spanning more than a week (EventIndex.MAX_SHORT_SPAN_MILLIS), Hibernate adds
+-- the column as false. Time range queries bound short entries by start_date on both sides.
+
+UPDATE event_index SET long_span = TRUE WHERE end_date > TIMESTAMPADD(DAY, 7, start_date);
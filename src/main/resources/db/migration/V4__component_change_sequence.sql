@@ -0,0 +1,8 @@
+-- Orders the change journal per owner by a sequence reserved in the writing transaction, Hibernate adds
+-- the column and the counter table. Existing entries take their id as sequence, ids increase with every
+-- entry, so sync tokens handed out before stay valid and new sequences continue above them.
+
+UPDATE component_change SET sequence_no = id;
+
+INSERT INTO component_change_sequence (owner_id, last_sequence)
+SELECT owner_id, MAX(id) FROM component_change GROUP BY owner_id;
@@ -0,0 +1,277 @@
+package tr.edu.itu.cavabunga.server.business;
+
+import db.migration.V5__component_ancestor_backfill;
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.lib.exception.NotFound;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import tr.edu.itu.cavabunga.server.service.ParticipantService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the number of SQL statements per business operation, every entity must be looked up once
+ * and trees must be loaded with a bounded number of queries
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CalendarManagerServiceImplTest {
+    @Autowired
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private IcalService icalService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Statistics statistics;
+
+    private String userName;
+
+    private Long calendarId;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userName = "statements-" + UUID.randomUUID();
+        calendarId = new TransactionTemplate(transactionManager).execute(status -> {
+            participantService.saveParticipant(participantService.createParticipant(userName, ParticipantType.User));
+            Component calendar = icalService.createComponentForParticipant(
+                    ComponentType.Calendar,
+                    participantService.getParticipantByUserName(userName).get()
+            );
+            icalService.saveComponent(calendar);
+            return calendar.getId();
+        });
+    }
+
+    @Test
+    public void addComponentLooksUpOwnerAndParentOnce() {
+        long minimal = statementsOf(() -> {
+            Component todo = icalService.createComponent(ComponentType.Todo);
+            todo.setOwner(participantService.getParticipantReferenceByUserName(userName).get());
+            todo.setParent(icalService.getComponentById(calendarId).get());
+            icalService.saveComponent(todo);
+        });
+
+        long statements = statementsOf(() -> calendarManagerService.addComponent(
+                icalService.createComponent(ComponentType.Todo), userName, calendarId
+        ));
+
+        assertEquals(minimal, statements);
+    }
+
+    @Test
+    public void addPropertyLooksUpComponentOnce() {
+        long minimal = statementsOf(() -> {
+            Property property = icalService.createProperty(PropertyType.Method);
+            property.setValue("PUBLISH");
+            property.setComponent(icalService.getComponentById(calendarId).get());
+            icalService.saveProperty(property);
+        });
+
+        Property property = icalService.createProperty(PropertyType.Method);
+        property.setValue("PUBLISH");
+        long statements = statementsOf(() -> calendarManagerService.addProperty(property, calendarId));
+
+        assertEquals(minimal, statements);
+    }
+
+    @Test
+    public void getComponentByIdLoadsTreeWithQueriesPerLevel() {
+        addEventWithAttendee();
+        long oneChild = statementsOf(() -> touch(calendarManagerService.getComponentById(calendarId)));
+
+        addEventWithAttendee();
+        addEventWithAttendee();
+        long threeChildren = statementsOf(() -> touch(calendarManagerService.getComponentById(calendarId)));
+
+        // two levels, each loads child components, properties and parameters once
+        assertEquals(6, oneChild);
+        assertEquals(oneChild, threeChildren);
+    }
+
+    @Test
+    public void deleteParameterLooksUpParameterOnce() {
+        long minimal = statementsOf(() -> icalService.deleteParameterById(newParameter()));
+
+        Long parameterId = newParameter();
+        long statements = statementsOf(() -> calendarManagerService.deleteParameter(parameterId));
+
+        assertEquals(minimal, statements);
+        assertFalse(icalService.getParameterById(parameterId).isPresent());
+    }
+
+    @Test
+    public void deletePropertyLooksUpProperty() {
+        Property property = icalService.createProperty(PropertyType.Method);
+        property.setValue("PUBLISH");
+        calendarManagerService.addProperty(property, calendarId);
+
+        calendarManagerService.deleteProperty(property.getId());
+
+        assertFalse(icalService.getPropertyById(property.getId()).isPresent());
+    }
+
+    @Test
+    public void deleteComponentDoesNotLoadPropertiesOrParameters() {
+        Long fewProperties = addEventWithAttendees(1);
+        long fewStatements = statementsOf(() -> calendarManagerService.deleteComponentById(fewProperties));
+
+        Long manyProperties = addEventWithAttendees(5);
+        long manyStatements = statementsOf(() -> calendarManagerService.deleteComponentById(manyProperties));
+
+        assertEquals(fewStatements, manyStatements);
+        assertFalse(icalService.getComponentById(manyProperties).isPresent());
+        assertTrue(icalService.getComponentById(calendarId).isPresent());
+    }
+
+    @Test(expected = NotFound.class)
+    public void deleteComponentOfUnknownIdIsNotFound() {
+        Long eventId = addEventWithAttendees(0);
+        calendarManagerService.deleteComponentById(eventId);
+
+        calendarManagerService.deleteComponentById(eventId);
+    }
+
+    @Test
+    public void deleteComponentFailsWithoutClosureRowsUntilTheyAreBackfilled() throws Exception {
+        Long eventId = addEventWithAttendees(1);
+        // as left by versions before the closure table
+        jdbcTemplate.update("delete from component_ancestor where descendant_id in (?, ?)", calendarId, eventId);
+
+        try {
+            calendarManagerService.deleteComponentById(eventId);
+            fail("component without closure rows deleted");
+        } catch (IllegalStateException e) {
+            assertTrue(icalService.getComponentById(eventId).isPresent());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            new V5__component_ancestor_backfill().migrate(connection);
+        }
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+                "select depth from component_ancestor where ancestor_id = ? and descendant_id = ?", Integer.class, calendarId, eventId));
+
+        calendarManagerService.deleteComponentById(eventId);
+
+        assertFalse(icalService.getComponentById(eventId).isPresent());
+    }
+
+    @Test
+    public void participantLookupsAreServedFromTheCache() {
+        Long id = participantService.getParticipantByUserName(userName).get().getId();
+
+        long statements = statementsOf(() -> {
+            assertEquals(userName, participantService.getParticipantByUserName(userName).get().getUserName());
+            assertEquals(userName, participantService.getParticipantById(id).get().getUserName());
+        });
+
+        assertEquals(0, statements);
+    }
+
+    @Test
+    public void addComponentOfParticipantDeletedByAnotherInstanceIsNotFound() {
+        String deleted = "deleted-" + UUID.randomUUID();
+        calendarManagerService.addParticipant(participantService.createParticipant(deleted, ParticipantType.User));
+        assertTrue(participantService.getParticipantReferenceByUserName(deleted).isPresent());
+        // the cache of this instance still maps the username to the id
+        jdbcTemplate.update("delete from participant where user_name = ?", deleted);
+
+        try {
+            calendarManagerService.addComponent(icalService.createComponent(ComponentType.Event), deleted, calendarId);
+            fail("component added for a deleted participant");
+        } catch (NotFound e) {
+            assertFalse(participantService.getParticipantByUserName(deleted).isPresent());
+        }
+    }
+
+    private Long addEventWithAttendees(int attendees) {
+        Component event = icalService.createComponent(ComponentType.Event);
+        calendarManagerService.addComponent(event, userName, calendarId);
+        for (int i = 0; i < attendees; i++) {
+            Property attendee = icalService.createProperty(PropertyType.Attendee);
+            attendee.setValue("mailto:attendee" + i + "@calendar.cavabunga.com");
+            calendarManagerService.addProperty(attendee, event.getId());
+            Parameter cn = icalService.createParameter(ParameterType.Cn);
+            cn.setValue("Attendee " + i);
+            calendarManagerService.addParameter(cn, attendee.getId());
+        }
+        return event.getId();
+    }
+
+    private void addEventWithAttendee() {
+        Component event = icalService.createComponent(ComponentType.Event);
+        calendarManagerService.addComponent(event, userName, calendarId);
+        Property attendee = icalService.createProperty(PropertyType.Attendee);
+        attendee.setValue("mailto:attendee@calendar.cavabunga.com");
+        calendarManagerService.addProperty(attendee, event.getId());
+        Parameter cn = icalService.createParameter(ParameterType.Cn);
+        cn.setValue("Attendee");
+        calendarManagerService.addParameter(cn, attendee.getId());
+    }
+
+    private static void touch(Component component) {
+        for (Property property : component.getProperties()) {
+            property.getParameters().size();
+        }
+        for (Component child : component.getComponents()) {
+            touch(child);
+        }
+    }
+
+    private Long newParameter() {
+        Property property = icalService.createProperty(PropertyType.Attendee);
+        property.setValue("mailto:attendee@calendar.cavabunga.com");
+        calendarManagerService.addProperty(property, calendarId);
+        Parameter parameter = icalService.createParameter(ParameterType.Cn);
+        parameter.setValue("Attendee");
+        calendarManagerService.addParameter(parameter, property.getId());
+        return parameter.getId();
+    }
+
+    private long statementsOf(Runnable operation) {
+        statistics.clear();
+        new TransactionTemplate(transactionManager).execute(status -> {
+            operation.run();
+            return null;
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,92 @@
+package tr.edu.itu.cavabunga.server.controller;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import tr.edu.itu.cavabunga.server.service.ParticipantService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the participant endpoints with cavabunga.sql.budget.fail, a request issuing more statements
+ * than its @StatementBudget fails with StatementBudgetExceededException
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "cavabunga.sql.budget.fail=true")
+public class ParticipantControllerTest {
+    private static final int EVENTS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private IcalService icalService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String userName;
+
+    @Before
+    public void setUp() {
+        userName = "budget-" + UUID.randomUUID();
+        Long calendarId = new TransactionTemplate(transactionManager).execute(status -> {
+            participantService.saveParticipant(participantService.createParticipant(userName, ParticipantType.User));
+            Component calendar = icalService.createComponentForParticipant(
+                    ComponentType.Calendar,
+                    participantService.getParticipantByUserName(userName).get()
+            );
+            icalService.saveComponent(calendar);
+            return calendar.getId();
+        });
+        for (int i = 0; i < EVENTS; i++) {
+            Component event = icalService.createComponent(ComponentType.Event);
+            calendarManagerService.addComponent(event, userName, calendarId);
+            Property attendee = icalService.createProperty(PropertyType.Attendee);
+            attendee.setValue("mailto:attendee" + i + "@calendar.cavabunga.com");
+            calendarManagerService.addProperty(attendee, event.getId());
+            Parameter cn = icalService.createParameter(ParameterType.Cn);
+            cn.setValue("Attendee " + i);
+            calendarManagerService.addParameter(cn, attendee.getId());
+        }
+    }
+
+    @Test
+    public void getParticipantLoadsTreeWithinBudget() throws Exception {
+        // lazily loading every event's properties one by one would take more than 2 * EVENTS statements
+        mockMvc.perform(get("/participant/" + userName)).andExpect(status().isOk());
+    }
+
+    @Test
+    public void getParticipantViewWithinBudget() throws Exception {
+        mockMvc.perform(get("/participant/" + userName).param("depth", "3")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,79 @@
+package tr.edu.itu.cavabunga.server.datasource;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ReplicaRoutingDataSourceTest {
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+            new DriverManagerDataSource(),
+            Arrays.<DataSource>asList(new DriverManagerDataSource(), new DriverManagerDataSource())
+    );
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ReadYourWrites.bind(null);
+    }
+
+    @Test
+    public void readOnlyTransactionsAreSpreadOverReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Object first = routing.determineCurrentLookupKey();
+        Object second = routing.determineCurrentLookupKey();
+
+        assertTrue(first.toString().startsWith("replica-"));
+        assertTrue(second.toString().startsWith("replica-"));
+        assertNotEquals(first, second);
+        assertEquals(first, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void writesAndReadsWithoutReplicasGoToPrimary() {
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRoutingDataSource primaryOnly = new ReplicaRoutingDataSource(new DriverManagerDataSource(), Collections.emptyList());
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, primaryOnly.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void readsFollowCommittedWriteToPrimary() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(0, 5000);
+        ReadYourWrites.bind(readYourWrites);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(readYourWrites.getLastWrite() > 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void recentWriteOfClientPinsReadsToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReadYourWrites.bind(new ReadYourWrites(System.currentTimeMillis() - 1000, 5000));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        ReadYourWrites.bind(new ReadYourWrites(System.currentTimeMillis() - 10000, 5000));
+        assertNotEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+}
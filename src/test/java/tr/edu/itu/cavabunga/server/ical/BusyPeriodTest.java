@@ -0,0 +1,48 @@
+package tr.edu.itu.cavabunga.server.ical;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BusyPeriodTest {
+
+    private static final Instant WINDOW_START = Instant.parse("2018-01-01T00:00:00Z");
+
+    private static final Instant WINDOW_END = Instant.parse("2018-01-02T00:00:00Z");
+
+    private BusyPeriod period(String start, String end) {
+        return new BusyPeriod(Instant.parse(start), Instant.parse(end));
+    }
+
+    @Test
+    public void mergesOverlappingAndAdjacentPeriods() {
+        List<BusyPeriod> result = BusyPeriod.merge(Arrays.asList(
+                period("2018-01-01T11:00:00Z", "2018-01-01T12:00:00Z"),
+                period("2018-01-01T09:00:00Z", "2018-01-01T10:00:00Z"),
+                period("2018-01-01T09:30:00Z", "2018-01-01T11:00:00Z"),
+                period("2018-01-01T14:00:00Z", "2018-01-01T15:00:00Z")
+        ), WINDOW_START, WINDOW_END);
+
+        assertEquals(2, result.size());
+        assertEquals(Instant.parse("2018-01-01T09:00:00Z"), result.get(0).getStart());
+        assertEquals(Instant.parse("2018-01-01T12:00:00Z"), result.get(0).getEnd());
+        assertEquals(Instant.parse("2018-01-01T14:00:00Z"), result.get(1).getStart());
+    }
+
+    @Test
+    public void clipsToWindowAndDropsEmptyPeriods() {
+        List<BusyPeriod> result = BusyPeriod.merge(Arrays.asList(
+                period("2017-12-31T22:00:00Z", "2018-01-01T01:00:00Z"),
+                period("2018-01-01T08:00:00Z", "2018-01-01T08:00:00Z"),
+                period("2018-01-01T23:00:00Z", "2018-01-02T03:00:00Z")
+        ), WINDOW_START, WINDOW_END);
+
+        assertEquals(2, result.size());
+        assertEquals(WINDOW_START, result.get(0).getStart());
+        assertEquals(WINDOW_END, result.get(1).getEnd());
+    }
+}
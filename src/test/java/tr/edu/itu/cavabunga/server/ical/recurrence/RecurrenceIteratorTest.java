@@ -0,0 +1,93 @@
+package tr.edu.itu.cavabunga.server.ical.recurrence;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecurrenceIteratorTest {
+
+    private List<LocalDateTime> take(String rrule, LocalDateTime dtstart, int limit) {
+        RecurrenceIterator iterator = new RecurrenceIterator(RecurrenceRule.parse(rrule), dtstart, ZoneOffset.UTC);
+        List<LocalDateTime> result = new ArrayList<>();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    @Test
+    public void dailyWithCount() {
+        List<LocalDateTime> result = take("FREQ=DAILY;COUNT=3", LocalDateTime.of(2018, 1, 30, 9, 0), 10);
+
+        assertEquals(3, result.size());
+        assertEquals(LocalDateTime.of(2018, 2, 1, 9, 0), result.get(2));
+    }
+
+    @Test
+    public void weeklyByDayUntil() {
+        List<LocalDateTime> result = take(
+                "FREQ=WEEKLY;BYDAY=MO,WE;UNTIL=20180117T235959Z",
+                LocalDateTime.of(2018, 1, 1, 10, 0),
+                10
+        );
+
+        assertEquals(6, result.size());
+        assertEquals(LocalDateTime.of(2018, 1, 3, 10, 0), result.get(1));
+        assertEquals(LocalDateTime.of(2018, 1, 17, 10, 0), result.get(5));
+    }
+
+    @Test
+    public void monthlyLastFriday() {
+        List<LocalDateTime> result = take("FREQ=MONTHLY;BYDAY=-1FR", LocalDateTime.of(2018, 1, 26, 17, 0), 3);
+
+        assertEquals(LocalDateTime.of(2018, 2, 23, 17, 0), result.get(1));
+        assertEquals(LocalDateTime.of(2018, 3, 30, 17, 0), result.get(2));
+    }
+
+    @Test
+    public void monthlySkipsShortMonths() {
+        List<LocalDateTime> result = take("FREQ=MONTHLY", LocalDateTime.of(2018, 1, 31, 8, 0), 3);
+
+        assertEquals(LocalDateTime.of(2018, 3, 31, 8, 0), result.get(1));
+        assertEquals(LocalDateTime.of(2018, 5, 31, 8, 0), result.get(2));
+    }
+
+    @Test
+    public void yearlyWithInterval() {
+        List<LocalDateTime> result = take("FREQ=YEARLY;INTERVAL=2;COUNT=2", LocalDateTime.of(2016, 2, 29, 0, 0), 10);
+
+        assertEquals(2, result.size());
+        assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0), result.get(1));
+    }
+
+    @Test
+    public void yearlyByMonthDayCoversEveryMonth() {
+        List<LocalDateTime> result = take("FREQ=YEARLY;BYMONTHDAY=1", LocalDateTime.of(2018, 1, 1, 9, 0), 3);
+
+        assertEquals(LocalDateTime.of(2018, 2, 1, 9, 0), result.get(1));
+        assertEquals(LocalDateTime.of(2018, 3, 1, 9, 0), result.get(2));
+    }
+
+    @Test
+    public void skipToStartsNearTarget() {
+        RecurrenceIterator iterator = new RecurrenceIterator(
+                RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO"), LocalDateTime.of(2000, 1, 3, 10, 0), ZoneOffset.UTC
+        );
+        iterator.skipTo(LocalDateTime.of(2018, 1, 10, 0, 0));
+
+        // one period before the target is kept, it may hold instances overlapping the target
+        assertEquals(LocalDateTime.of(2018, 1, 1, 10, 0), iterator.next());
+        assertEquals(LocalDateTime.of(2018, 1, 8, 10, 0), iterator.next());
+        assertEquals(LocalDateTime.of(2018, 1, 15, 10, 0), iterator.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ruleWithoutFrequencyIsRejected() {
+        RecurrenceRule.parse("COUNT=3");
+    }
+}
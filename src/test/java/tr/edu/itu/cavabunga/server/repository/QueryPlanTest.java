@@ -0,0 +1,178 @@
+package tr.edu.itu.cavabunga.server.repository;
+
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.server.metrics.StatementBudget;
+import tr.edu.itu.cavabunga.server.metrics.StatementCounter;
+import tr.edu.itu.cavabunga.server.metrics.StatementTracker;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for the hot lookups, every one of them must be answered
+ * through an index. The statements are captured by the statement inspector while the repository
+ * method runs, values are bound in the order of the statement's placeholders.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class QueryPlanTest {
+    private static final Timestamp START = Timestamp.valueOf("2016-04-01 00:00:00");
+
+    private static final Timestamp END = Timestamp.valueOf("2016-05-01 00:00:00");
+
+    private static final Timestamp EARLIEST_START = Timestamp.valueOf("2016-03-25 00:00:00");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ParticipantRepository participantRepository;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private ParameterRepository parameterRepository;
+
+    @Autowired
+    private EventIndexRepository eventIndexRepository;
+
+    @Autowired
+    private ComponentAncestorRepository componentAncestorRepository;
+
+    @Autowired
+    private ComponentChangeRepository componentChangeRepository;
+
+    @Test
+    public void participantByUserNameUsesIndex() {
+        assertIndexed(capture(() -> participantRepository.findByUserName("testuser")), "testuser");
+    }
+
+    @Test
+    public void componentsByOwnerUseIndex() {
+        assertIndexed(capture(() -> componentRepository.findByOwnerAfter(
+                entityManager.getReference(Participant.class, 1L), 0L, new PageRequest(0, 100))), 1L, 0L, 100);
+    }
+
+    @Test
+    public void childComponentsUseIndex() {
+        assertIndexed(capture(() -> componentRepository.findChildrenAfter(1L, 0L, new PageRequest(0, 100))), 1L, 0L, 100);
+    }
+
+    @Test
+    public void propertiesByComponentUseIndex() {
+        assertIndexed(capture(() -> propertyRepository.findWithParametersByComponentIds(Arrays.asList(1L, 2L, 3L))), 1L, 2L, 3L);
+    }
+
+    @Test
+    public void parametersByPropertyUseIndex() {
+        assertIndexed(capture(() -> parameterRepository.findSummariesByPropertyIds(Arrays.asList(1L, 2L, 3L))), 1L, 2L, 3L);
+    }
+
+    @Test
+    public void timeRangeIsCoveredByIndex() {
+        String shortEntries = capture(() -> eventIndexRepository.findShortInRange(1L, EARLIEST_START, START, END));
+        assertCovered(shortEntries, assertIndexed(shortEntries, 1L, EARLIEST_START, END, START, START));
+
+        String longEntries = capture(() -> eventIndexRepository.findLongInRange(1L, START, END));
+        assertCovered(longEntries, assertIndexed(longEntries, 1L, END, START));
+
+        String shortBusy = capture(() -> eventIndexRepository.findShortBusyInRange(Arrays.asList(1L, 2L), EARLIEST_START, START, END));
+        assertCovered(shortBusy, assertIndexed(shortBusy, 1L, 2L, EARLIEST_START, END, START, START));
+
+        String longBusy = capture(() -> eventIndexRepository.findLongBusyInRange(Arrays.asList(1L, 2L), START, END));
+        assertCovered(longBusy, assertIndexed(longBusy, 1L, 2L, END, START));
+    }
+
+    @Test
+    public void descendantsAndAncestorsUseIndex() {
+        assertIndexed(capture(() -> componentAncestorRepository.findDescendantIds(1L)), 1L);
+        assertIndexed(capture(() -> componentAncestorRepository.findAncestorIds(1L, new PageRequest(0, 100))), 1L, 100);
+    }
+
+    @Test
+    public void journalUsesIndex() {
+        assertIndexed(capture(() -> componentChangeRepository.findByOwnerAfter(1L, 0L, new PageRequest(0, 100))), 1L, 0L, 100);
+    }
+
+    /**
+     * @return the last statement Hibernate prepared while running lookup
+     */
+    private String capture(Runnable lookup) {
+        List<String> statements = new ArrayList<>();
+        StatementTracker tracker = new StatementTracker("query plan", StatementBudget.UNLIMITED, false) {
+            @Override
+            public void record(String sql) {
+                super.record(sql);
+                statements.add(sql);
+            }
+        };
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        StatementTracker previous = StatementCounter.untrack();
+        StatementCounter.track(tracker);
+        try {
+            transaction.execute(status -> {
+                lookup.run();
+                return null;
+            });
+        } finally {
+            StatementCounter.untrack();
+            if (previous != null) {
+                StatementCounter.track(previous);
+            }
+        }
+        assertFalse("no statement issued", statements.isEmpty());
+        return statements.get(statements.size() - 1);
+    }
+
+    /**
+     * @return plan rows of the statement
+     */
+    private List<Map<String, Object>> assertIndexed(String sql, Object... args) {
+        assertEquals("placeholders of: " + sql, args.length, sql.length() - sql.replace("?", "").length());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        for (Map<String, Object> row : rows) {
+            if (row.get("table") == null) {
+                // unique lookups without a match are resolved while optimizing, before any access path is chosen
+                continue;
+            }
+            assertNotEquals("full scan of " + row.get("table") + " for: " + sql, "ALL", row.get("type"));
+            assertNotNull("no index used on " + row.get("table") + " for: " + sql, row.get("key"));
+        }
+        return rows;
+    }
+
+    private static void assertCovered(String sql, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            if (row.get("table") != null) {
+                assertTrue("time range query must not read table rows: " + sql, String.valueOf(row.get("Extra")).contains("Using index"));
+            }
+        }
+    }
+}
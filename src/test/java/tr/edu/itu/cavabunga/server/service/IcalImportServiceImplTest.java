@@ -0,0 +1,88 @@
+package tr.edu.itu.cavabunga.server.service;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.ical.ImportProgress;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Imports a small calendar in chunks of two top level components
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = "cavabunga.import.chunk-size=2")
+public class IcalImportServiceImplTest {
+    private static final String CALENDAR = "BEGIN:VCALENDAR\r\n"
+            + "VERSION:2.0\r\n"
+            + "PRODID:-//Test Inc//Cavabunga Calendar//\r\n"
+            + "BEGIN:VTIMEZONE\r\n"
+            + "TZID:Europe/Istanbul\r\n"
+            + "BEGIN:STANDARD\r\n"
+            + "TZOFFSETFROM:+0300\r\n"
+            + "TZOFFSETTO:+0300\r\n"
+            + "TZNAME:+03\r\n"
+            + "END:STANDARD\r\n"
+            + "END:VTIMEZONE\r\n"
+            + event(1, "ATTENDEE;CN=Attendee;ROLE=REQ-PARTICIPANT:mailto:attendee@calendar.cavabunga.com\r\n"
+                    + "X-CAVABUNGA-UNKNOWN:skipped\r\n")
+            + event(2, "")
+            + event(3, "")
+            + "END:VCALENDAR\r\n";
+
+    @Autowired
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void importWritesCalendarInChunks() throws IOException {
+        String userName = "import-" + UUID.randomUUID();
+        calendarManagerService.addParticipant(participantService.createParticipant(userName, ParticipantType.User));
+
+        ImportProgress progress = calendarManagerService.importCalendars(
+                userName, new ByteArrayInputStream(CALENDAR.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(ImportProgress.State.COMPLETED, progress.getState());
+        assertEquals(1, progress.getCalendars());
+        // the calendar, then the timezone with the first event, then the remaining two events
+        assertEquals(3, progress.getChunksCommitted());
+        assertEquals(6, progress.getComponents());
+        assertEquals(16, progress.getProperties());
+        assertEquals(2, progress.getParameters());
+        assertEquals(1, progress.getSkipped());
+
+        Long calendarId = jdbcTemplate.queryForObject(
+                "select c.id from component c join participant p on p.id = c.owner_id where p.user_name = ? and c.parent_id is null",
+                Long.class, userName);
+        Component calendar = calendarManagerService.getComponentById(calendarId);
+        assertEquals(2, calendar.getProperties().size());
+        assertEquals(4, calendar.getComponents().size());
+    }
+
+    private static String event(int index, String lines) {
+        return "BEGIN:VEVENT\r\n"
+                + "UID:import-" + index + "@calendar.cavabunga.com\r\n"
+                + "DTSTART:2016040" + index + "T100000Z\r\n"
+                + "DTEND:2016040" + index + "T110000Z\r\n"
+                + lines
+                + "END:VEVENT\r\n";
+    }
+}
@@ -0,0 +1,280 @@
+package tr.edu.itu.cavabunga.server.shard;
+
+import tr.edu.itu.cavabunga.lib.entity.Component;
+import tr.edu.itu.cavabunga.lib.entity.Parameter;
+import tr.edu.itu.cavabunga.lib.entity.Participant;
+import tr.edu.itu.cavabunga.lib.entity.Property;
+import tr.edu.itu.cavabunga.lib.entity.component.ComponentType;
+import tr.edu.itu.cavabunga.lib.entity.parameter.ParameterType;
+import tr.edu.itu.cavabunga.lib.entity.participant.ParticipantType;
+import tr.edu.itu.cavabunga.lib.entity.property.PropertyType;
+import tr.edu.itu.cavabunga.server.business.CalendarManagerService;
+import tr.edu.itu.cavabunga.server.datasource.ShardContext;
+import tr.edu.itu.cavabunga.server.datasource.ShardRoutingDataSource;
+import tr.edu.itu.cavabunga.server.http.BatchOperation;
+import tr.edu.itu.cavabunga.server.service.IcalService;
+import tr.edu.itu.cavabunga.server.service.ParticipantService;
+import tr.edu.itu.cavabunga.server.service.ShardMapService;
+import tr.edu.itu.cavabunga.server.service.ShardMoveService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs two in-memory H2 shards, the default one holding the directory and shard1. Ids of shard1 start
+ * high, like auto_increment_offset would keep them apart on MySQL shards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "cavabunga.shards=shard1",
+        "cavabunga.shard.shard1.url=jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "cavabunga.shards.map.ttl-seconds=1"
+})
+public class ShardRoutingTest {
+    private static final long SHARD1_FIRST_ID = 1000000000L;
+
+    private static boolean idsSeparated = false;
+
+    @Autowired
+    private CalendarManagerService calendarManagerService;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private IcalService icalService;
+
+    @Autowired
+    private ShardMapService shardMapService;
+
+    @Autowired
+    private ShardMoveService shardMoveService;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate shard0;
+
+    private JdbcTemplate shard1;
+
+    @Before
+    public void setUp() {
+        shard0 = new JdbcTemplate(shardRoutingDataSource.getShard(ShardContext.DEFAULT));
+        shard1 = new JdbcTemplate(shardRoutingDataSource.getShard("shard1"));
+        if (!idsSeparated) {
+            separateIds();
+            idsSeparated = true;
+        }
+    }
+
+    @Test
+    public void calendarsAreStoredOnTheShardOfTheirOwner() {
+        String onDefault = userName(ShardContext.DEFAULT);
+        String onShard1 = userName("shard1");
+
+        Long[] defaultIds = addCalendar(onDefault);
+        Long[] shard1Ids = addCalendar(onShard1);
+
+        assertEquals(ShardContext.DEFAULT, shardMapService.getShardOfParticipant(onDefault));
+        assertEquals("shard1", shardMapService.getShardOfParticipant(onShard1));
+        assertEquals(4, rowsOf(shard0, onDefault));
+        assertEquals(0, rowsOf(shard1, onDefault));
+        assertEquals(4, rowsOf(shard1, onShard1));
+        assertEquals(0, rowsOf(shard0, onShard1));
+
+        // component, property and parameter ids all find their way to the owner's shard
+        assertEquals(shard1Ids[0], calendarManagerService.getComponentById(shard1Ids[0]).getId());
+        assertEquals(1, calendarManagerService.getPropertiesOfComponent(shard1Ids[1]).size());
+        assertEquals(1, calendarManagerService.getParametersOfProperty(shard1Ids[2]).size());
+        assertEquals(defaultIds[0], calendarManagerService.getComponentById(defaultIds[0]).getId());
+        assertEquals(1, calendarManagerService.getParametersOfProperty(defaultIds[2]).size());
+    }
+
+    @Test
+    public void childrenWithoutOwnerAreRoutedToTheShardOfTheirRoot() {
+        String userName = userName("shard1");
+        Long calendarId = addCalendar(userName)[0];
+        Component timezone = icalService.createComponent(ComponentType.Timezone);
+        Component standard = icalService.createComponent(ComponentType.Standard);
+        Property tzname = icalService.createProperty(PropertyType.Tzname);
+        tzname.setValue("+03");
+        standard.addProperty(tzname);
+        timezone.addComponent(standard);
+        calendarManagerService.addComponent(timezone, userName, calendarId);
+
+        assertNull(shard1.queryForObject("select owner_id from component where id = ?", Long.class, standard.getId()));
+        assertEquals(standard.getId(), calendarManagerService.getComponentById(standard.getId()).getId());
+        assertEquals(1, calendarManagerService.getPropertiesOfComponent(standard.getId()).size());
+        Parameter language = icalService.createParameter(ParameterType.Language);
+        language.setValue("tr");
+        calendarManagerService.addParameter(language, tzname.getId());
+        assertEquals(1, calendarManagerService.getParametersOfProperty(tzname.getId()).size());
+
+        shardMoveService.move(userName, ShardContext.DEFAULT);
+
+        assertEquals(0, shard1.queryForObject("select count(*) from component where id = ?", Integer.class, standard.getId()).intValue());
+        assertEquals(standard.getId(), calendarManagerService.getComponentById(standard.getId()).getId());
+    }
+
+    @Test
+    public void participantsAreReadWithTheCalendarsOfTheirShard() {
+        String onDefault = userName(ShardContext.DEFAULT);
+        String onShard1 = userName("shard1");
+        Long defaultCalendarId = addCalendar(onDefault)[0];
+        Long shard1CalendarId = addCalendar(onShard1)[0];
+
+        assertEquals(shard1CalendarId, calendarManagerService.getParticipantByUserName(onShard1).getComponents().iterator().next().getId());
+
+        Long defaultId = participantService.getParticipantByUserName(onDefault).get().getId();
+        Long shard1Id = participantService.getParticipantByUserName(onShard1).get().getId();
+        Long afterId = Math.min(defaultId, shard1Id) - 1;
+        Map<Long, Participant> page = new HashMap<>();
+        for (Participant participant : calendarManagerService.getParticipants(afterId, 2)) {
+            page.put(participant.getId(), participant);
+        }
+        assertEquals(defaultCalendarId, page.get(defaultId).getComponents().iterator().next().getId());
+        assertEquals(shard1CalendarId, page.get(shard1Id).getComponents().iterator().next().getId());
+
+        Map<Object, Object> components = new HashMap<>();
+        for (Map<String, Object> view : calendarManagerService.getParticipantViews(afterId, 2, 1, Collections.emptySet())) {
+            components.put(view.get("id"), view.get("components"));
+        }
+        assertEquals(1, ((List<?>) components.get(defaultId)).size());
+        assertEquals(1, ((List<?>) components.get(shard1Id)).size());
+    }
+
+    @Test
+    public void batchesSpanningShardsAreRejected() {
+        Long defaultEventId = addCalendar(userName(ShardContext.DEFAULT))[1];
+        Long shard1EventId = addCalendar(userName("shard1"))[1];
+
+        try {
+            calendarManagerService.applyBatch(Arrays.asList(delete(defaultEventId), delete(shard1EventId)));
+            fail("batch spanning shards applied");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Operation 1:"));
+        }
+        assertEquals(1, shard0.queryForObject("select count(*) from component where id = ?", Integer.class, defaultEventId).intValue());
+        assertEquals(1, shard1.queryForObject("select count(*) from component where id = ?", Integer.class, shard1EventId).intValue());
+    }
+
+    @Test
+    public void moveCarriesCalendarsToTheTargetShard() {
+        String userName = userName("shard1");
+        Long calendarId = addCalendar(userName)[0];
+
+        Map<String, Integer> moved = shardMoveService.move(userName, ShardContext.DEFAULT);
+
+        assertEquals(Integer.valueOf(2), moved.get("component"));
+        assertEquals(ShardContext.DEFAULT, shardMapService.getShardOfParticipant(userName));
+        assertEquals(4, rowsOf(shard0, userName));
+        assertEquals(0, rowsOf(shard1, userName));
+        assertEquals(calendarId, calendarManagerService.getComponentById(calendarId).getId());
+
+        shardMoveService.move(userName, "shard1");
+
+        assertEquals("shard1", shardMapService.getShardOfParticipant(userName));
+        assertEquals(0, rowsOf(shard0, userName));
+        assertEquals(4, rowsOf(shard1, userName));
+        assertEquals(calendarId, calendarManagerService.getComponentById(calendarId).getId());
+    }
+
+    /**
+     * @return username of a new participant, which the username hash assigns to shard
+     */
+    private String userName(String shard) {
+        while (true) {
+            String userName = "shard-" + UUID.randomUUID();
+            if (shardMapService.getShards().indexOf(shard) == Math.floorMod(userName.hashCode(), shardMapService.getShards().size())) {
+                calendarManagerService.addParticipant(participantService.createParticipant(userName, ParticipantType.User));
+                return userName;
+            }
+        }
+    }
+
+    /**
+     * adds a calendar holding an event, the event carries a property with a parameter
+     *
+     * @return ids of the calendar, the event and the property
+     */
+    private Long[] addCalendar(String userName) {
+        // root components are created by the service layer, which runs on the shard bound by the caller
+        String previous = ShardContext.bind(shardMapService.getShardOfParticipant(userName));
+        Long calendarId;
+        try {
+            calendarId = new TransactionTemplate(transactionManager).execute(status -> {
+                Component calendar = icalService.createComponentForParticipant(
+                        ComponentType.Calendar,
+                        participantService.getParticipantByUserName(userName).get()
+                );
+                icalService.saveComponent(calendar);
+                return calendar.getId();
+            });
+        } finally {
+            ShardContext.bind(previous);
+        }
+        Component event = icalService.createComponent(ComponentType.Event);
+        calendarManagerService.addComponent(event, userName, calendarId);
+        Property attendee = icalService.createProperty(PropertyType.Attendee);
+        attendee.setValue("mailto:attendee@calendar.cavabunga.com");
+        calendarManagerService.addProperty(attendee, event.getId());
+        Parameter cn = icalService.createParameter(ParameterType.Cn);
+        cn.setValue("Attendee");
+        calendarManagerService.addParameter(cn, attendee.getId());
+        return new Long[]{calendarId, event.getId(), attendee.getId()};
+    }
+
+    private static BatchOperation delete(Long componentId) {
+        BatchOperation operation = new BatchOperation();
+        operation.setAction(BatchOperation.Action.DELETE);
+        operation.setTarget(BatchOperation.Target.COMPONENT);
+        operation.setId(componentId);
+        return operation;
+    }
+
+    /**
+     * @return number of components, properties and parameters of the participant on the shard
+     */
+    private int rowsOf(JdbcTemplate shard, String userName) {
+        Long ownerId = shard0.queryForObject("select id from participant where user_name = ?", Long.class, userName);
+        return shard.queryForObject("select count(*) from component where owner_id = ?", Integer.class, ownerId)
+                + shard.queryForObject("select count(*) from property p join component c on c.id = p.component_id where c.owner_id = ?", Integer.class, ownerId)
+                + shard.queryForObject("select count(*) from parameter a join property p on p.id = a.property_id "
+                + "join component c on c.id = p.component_id where c.owner_id = ?", Integer.class, ownerId);
+    }
+
+    private void separateIds() {
+        if (shard1.queryForObject("select count(*) from information_schema.sequences where sequence_name = 'HIBERNATE_SEQUENCE'", Integer.class) > 0) {
+            shard1.execute("alter sequence hibernate_sequence restart with " + SHARD1_FIRST_ID);
+        }
+        for (String table : new String[]{"component", "property", "parameter", "component_change"}) {
+            Integer identity = shard1.queryForObject("select count(*) from information_schema.columns where table_name = ? "
+                    + "and column_name = 'ID' and column_default like '%SEQUENCE%'", Integer.class, table.toUpperCase());
+            if (identity > 0) {
+                shard1.execute("alter table " + table + " alter column id restart with " + SHARD1_FIRST_ID);
+            }
+        }
+    }
+}